@@ -0,0 +1,99 @@
+package com.example.pos_backend;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.example.pos_backend.entity.Merchant;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.cfg.Configuration;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Random;
+
+/**
+ * 基准用内存数据库
+ * H2 以 MySQL 兼容模式运行并忽略大小写（对应 utf8mb4_0900_ai_ci 下 LIKE 不区分大小写），
+ * 由 Hibernate 原生引导加载 Merchant 实体并建表，合成商家通过无状态会话批量写入。
+ * 数据全部在内存中，不含磁盘和网络 I/O，测得的是查询执行与对象构造的开销，不是 MySQL 上的绝对耗时。
+ */
+public final class BenchmarkDatabase implements AutoCloseable {
+
+    private static final String[] WORDS = {
+            "coffee", "bakery", "noodle", "tea", "pizza", "sushi", "grill", "market", "florist", "books",
+            "salon", "garden", "deli", "taco", "burger", "bistro", "kitchen", "studio", "house", "corner"};
+
+    private static final String PASSWORD_HASH = "$2a$10$N9qo8uLOickgx2ZMRZoMyeIjZAgcfl7p92ldGxad68LJZdL17lhWy";
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final SessionFactory sessionFactory;
+
+    private BenchmarkDatabase(SessionFactory sessionFactory) {
+        this.sessionFactory = sessionFactory;
+    }
+
+    /**
+     * 创建数据库并写入合成商家（固定随机种子，每次生成的数据相同）
+     * 商家名称为两个常见词加序号，邮箱为 owner序号@词.example.com，创建时间按序号递增
+     *
+     * @param name      数据库名（同一进程内不同基准互不影响）
+     * @param merchants 商家数
+     * @return 数据库
+     */
+    public static BenchmarkDatabase withMerchants(String name, int merchants) {
+        // 没有 Spring Boot 的日志配置时 logback 默认把 DEBUG 输出到控制台，基准中只保留错误
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.ERROR);
+
+        SessionFactory sessionFactory = new Configuration()
+                .addAnnotatedClass(Merchant.class)
+                .setProperty(AvailableSettings.JAKARTA_JDBC_URL,
+                        "jdbc:h2:mem:" + name + ";MODE=MySQL;IGNORECASE=TRUE;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS posdb")
+                .setProperty(AvailableSettings.JAKARTA_JDBC_USER, "sa")
+                .setProperty(AvailableSettings.JAKARTA_HBM2DDL_DATABASE_ACTION, "create")
+                .setProperty(AvailableSettings.JAKARTA_VALIDATION_MODE, "none")
+                .setProperty(AvailableSettings.STATEMENT_BATCH_SIZE, String.valueOf(BATCH_SIZE))
+                .buildSessionFactory();
+
+        Random random = new Random(42);
+        Instant base = Instant.parse("2024-01-01T00:00:00Z");
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < merchants; i++) {
+                Instant createdAt = base.plusSeconds(i);
+                session.insert(Merchant.builder()
+                        .id("MRC-" + i)
+                        .email("owner" + i + "@" + WORDS[random.nextInt(WORDS.length)] + ".example.com")
+                        .passwordHash(PASSWORD_HASH)
+                        .businessName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                                + " " + Integer.toString(i, 36))
+                        .industry("RESTAURANT")
+                        .currency("USD")
+                        .country("US")
+                        .status("ACTIVE")
+                        .createdAt(createdAt)
+                        .createdBy("MRC-" + i)
+                        .updatedAt(createdAt)
+                        .updatedBy("MRC-" + i)
+                        .isDeleted(false)
+                        .build());
+                if ((i + 1) % BATCH_SIZE == 0) {
+                    session.getTransaction().commit();
+                    session.beginTransaction();
+                }
+            }
+            session.getTransaction().commit();
+        }
+        return new BenchmarkDatabase(sessionFactory);
+    }
+
+    public SessionFactory sessionFactory() {
+        return sessionFactory;
+    }
+
+    @Override
+    public void close() {
+        sessionFactory.close();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.pos_backend.common;
+
+import com.example.pos_backend.BenchmarkDatabase;
+import com.example.pos_backend.dto.MerchantView;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商家搜索基准：三元组索引 vs LIKE '%keyword%' 查询
+ * 在合成商家上对比 MerchantRepository.searchPage 的 LIKE 查询（搜索索引未就绪时的回退路径）、
+ * 只查内存索引，以及索引命中后按主键取投影（MerchantService.searchMerchants 的实际路径）。
+ * 数据库为内存 H2（见 {@link BenchmarkDatabase}），LIKE 的耗时是 MySQL 上全表扫描的下限。
+ * 运行：./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="TrigramIndexBenchmark"
+ * 小数据量冒烟：-Djmh.args="TrigramIndexBenchmark -p merchants=20000 -wi 1 -i 1"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class TrigramIndexBenchmark {
+
+    private static final int LIMIT = 20;
+
+    /**
+     * 与 MerchantRepository.searchPage 相同的查询（Spring Data 的 %:keyword% 在这里由调用方拼接）
+     */
+    private static final String LIKE_JPQL = MerchantView.SELECT +
+            "WHERE (m.businessName LIKE :keyword OR m.email LIKE :keyword) AND m.isDeleted = false " +
+            "ORDER BY m.createdAt DESC, m.id DESC";
+
+    /**
+     * 与 MerchantRepository.findViewsByIdIn 相同的查询
+     */
+    private static final String BY_IDS_JPQL = MerchantView.SELECT + "WHERE m.id IN :ids";
+
+    @Param("1000000")
+    private int merchants;
+
+    @Param({"owner123456@", "bakery 1a", "sushi grill", "florist"})
+    private String keyword;
+
+    private BenchmarkDatabase database;
+
+    private SessionFactory sessionFactory;
+
+    private TrigramIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.withMerchants("trigram", merchants);
+        sessionFactory = database.sessionFactory();
+        // 与 MerchantSearchIndex.rebuild 一样从数据库加载全部未删除商家
+        index = new TrigramIndex(merchants);
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.createSelectionQuery(MerchantView.SELECT + "WHERE m.isDeleted = false", MerchantView.class)
+                    .getResultStream()
+                    .forEach(view -> index.upsert(view.id(), view.businessName(), view.email(),
+                            view.createdAt().toEpochMilli()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MerchantView> likeQuery() {
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createSelectionQuery(LIKE_JPQL, MerchantView.class)
+                    .setParameter("keyword", "%" + keyword + "%")
+                    .setMaxResults(LIMIT)
+                    .getResultList();
+        }
+    }
+
+    @Benchmark
+    public TrigramIndex.SearchResult indexSearch() {
+        return index.search(keyword, LIMIT);
+    }
+
+    @Benchmark
+    public List<MerchantView> indexSearchAndFetch() {
+        List<String> ids = index.search(keyword, LIMIT).keys();
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        try (StatelessSession session = sessionFactory.openStatelessSession()) {
+            return session.createSelectionQuery(BY_IDS_JPQL, MerchantView.class)
+                    .setParameter("ids", ids)
+                    .getResultList();
+        }
+    }
+}
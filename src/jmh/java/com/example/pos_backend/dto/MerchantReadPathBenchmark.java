@@ -0,0 +1,93 @@
+package com.example.pos_backend.dto;
+
+import com.example.pos_backend.BenchmarkDatabase;
+import com.example.pos_backend.entity.Merchant;
+import org.hibernate.SessionFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 商家读路径分配基准：受管实体 vs 只读投影
+ * 用真实的 Hibernate 会话读取一页活跃商家并转换为响应 DTO：
+ * - managedEntity：改造前的路径，普通会话加载 Merchant 实体（含密码哈希和审计列），每个实体进入持久化上下文并保留加载快照；
+ * - readOnlyEntity：同样加载实体，但会话为只读，不保留快照；
+ * - projection：MerchantView 构造表达式，与 MerchantRepository.findActivePage 相同，不进入持久化上下文。
+ * 分配量需配合 GC 分析器查看 gc.alloc.rate.norm（每次调用分配的字节数）：
+ * ./mvnw -Pbenchmark test-compile exec:exec -Djmh.args="MerchantReadPathBenchmark -prof gc"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MerchantReadPathBenchmark {
+
+    private static final int MERCHANTS = 10_000;
+
+    private static final String WHERE = "WHERE m.isDeleted = false ORDER BY m.createdAt DESC, m.id DESC";
+
+    @Param({"20", "100"})
+    private int pageSize;
+
+    private BenchmarkDatabase database;
+
+    private SessionFactory sessionFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.withMerchants("read_path", MERCHANTS);
+        sessionFactory = database.sessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MerchantResponseDTO> managedEntity() {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("SELECT m FROM Merchant m " + WHERE, Merchant.class)
+                .setMaxResults(pageSize)
+                .getResultList().stream()
+                .map(MerchantMapper::toResponseDTO)
+                .toList());
+    }
+
+    @Benchmark
+    public List<MerchantResponseDTO> readOnlyEntity() {
+        return sessionFactory.fromTransaction(session -> {
+            session.setDefaultReadOnly(true);
+            return session.createSelectionQuery("SELECT m FROM Merchant m " + WHERE, Merchant.class)
+                    .setMaxResults(pageSize)
+                    .getResultList().stream()
+                    .map(MerchantMapper::toResponseDTO)
+                    .toList();
+        });
+    }
+
+    @Benchmark
+    public List<MerchantResponseDTO> projection() {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery(MerchantView.SELECT + WHERE, MerchantView.class)
+                .setMaxResults(pageSize)
+                .getResultList().stream()
+                .map(MerchantMapper::toResponseDTO)
+                .toList());
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.pos_backend.common;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 线程安全的布隆过滤器
+ * 用作内存索引的前置过滤：返回 false 表示一定不存在，返回 true 表示可能存在，需要再查精确结构
+ * 采用双重哈希（h1 + i * h2）派生 k 个位位置，位数组基于 AtomicLongArray，写入无锁
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+
+    private final long numBits;
+
+    private final int numHashes;
+
+    private final LongAdder insertions = new LongAdder();
+
+    private BloomFilter(long numBits, int numHashes) {
+        int wordCount = (int) Math.max(1, (numBits + 63) >>> 6);
+        this.words = new AtomicLongArray(wordCount);
+        this.numBits = (long) wordCount << 6;
+        this.numHashes = numHashes;
+    }
+
+    /**
+     * 按预期元素数量和目标误判率创建过滤器
+     *
+     * @param expectedInsertions 预期元素数量
+     * @param falsePositiveRate  目标误判率（0~1）
+     * @return 布隆过滤器
+     */
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions <= 0) {
+            expectedInsertions = 1;
+        }
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("误判率必须在 (0, 1) 之间: " + falsePositiveRate);
+        }
+        long bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(bits, (long) Integer.MAX_VALUE << 6);
+        int hashes = Math.max(1, (int) Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    /**
+     * 写入一个元素（以两个 64 位哈希表示）
+     *
+     * @param hash1 第一个哈希
+     * @param hash2 第二个哈希
+     */
+    public void put(long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % numBits;
+            long mask = 1L << bit;
+            int index = (int) (bit >>> 6);
+            long current = words.get(index);
+            if ((current & mask) == 0) {
+                words.getAndAccumulate(index, mask, (a, b) -> a | b);
+            }
+            combined += hash2;
+        }
+        insertions.increment();
+    }
+
+    /**
+     * 判断元素是否可能存在
+     *
+     * @param hash1 第一个哈希
+     * @param hash2 第二个哈希
+     * @return false 表示一定不存在；true 表示可能存在
+     */
+    public boolean mightContain(long hash1, long hash2) {
+        long combined = hash1;
+        for (int i = 0; i < numHashes; i++) {
+            long bit = (combined & Long.MAX_VALUE) % numBits;
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * 写入字符串元素
+     *
+     * @param value 字符串
+     */
+    public void put(CharSequence value) {
+        long h1 = hash64(value, 0x9E3779B97F4A7C15L);
+        put(h1, hash64(value, h1) | 1L);
+    }
+
+    /**
+     * 判断字符串元素是否可能存在
+     *
+     * @param value 字符串
+     * @return false 表示一定不存在；true 表示可能存在
+     */
+    public boolean mightContain(CharSequence value) {
+        long h1 = hash64(value, 0x9E3779B97F4A7C15L);
+        return mightContain(h1, hash64(value, h1) | 1L);
+    }
+
+    /**
+     * 已写入次数（重复写入会重复计数）
+     *
+     * @return 写入次数
+     */
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    /**
+     * 位数组大小
+     *
+     * @return 位数
+     */
+    public long bitSize() {
+        return numBits;
+    }
+
+    /**
+     * 哈希函数个数
+     *
+     * @return 哈希函数个数
+     */
+    public int hashCount() {
+        return numHashes;
+    }
+
+    /**
+     * 按当前写入次数估算的理论误判率
+     *
+     * @return 理论误判率
+     */
+    public double expectedFalsePositiveRate() {
+        double fillRatio = 1 - Math.exp(-(double) numHashes * insertions.sum() / numBits);
+        return Math.pow(fillRatio, numHashes);
+    }
+
+    /**
+     * 字符串 64 位哈希（逐字符混合后做 murmur3 fmix64 收尾）
+     */
+    private static long hash64(CharSequence value, long seed) {
+        long h = seed ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
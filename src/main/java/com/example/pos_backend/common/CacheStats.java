@@ -0,0 +1,22 @@
+package com.example.pos_backend.common;
+
+/**
+ * 本地缓存统计快照
+ *
+ * @param hits      命中次数
+ * @param misses    未命中次数
+ * @param evictions 淘汰次数
+ * @param size      当前条目数
+ */
+public record CacheStats(long hits, long misses, long evictions, long size) {
+
+    /**
+     * 命中率（0~1），无访问时返回 0
+     *
+     * @return 命中率
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.pos_backend.common;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 流式 CSV 读取器（RFC 4180）
+ * 逐条读取记录，支持双引号包裹的字段、字段内的逗号 / 换行以及 "" 转义；行尾兼容 \r\n 和 \n。
+ * 只在内存中保留当前一条记录，适合读取大文件。
+ */
+public class CsvReader {
+
+    private final Reader reader;
+
+    private int peeked = -2;
+
+    private long line = 1;
+
+    private long recordLine;
+
+    /**
+     * @param reader 字符输入（调用方负责缓冲和关闭）
+     */
+    public CsvReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * 读取下一条记录
+     *
+     * @return 字段列表，已到末尾时返回 null
+     * @throws IOException 读取失败或引号未闭合
+     */
+    public List<String> next() throws IOException {
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean wasQuoted = false;
+        while (true) {
+            if (quoted) {
+                if (c == -1) {
+                    throw new IOException("第 " + recordLine + " 行引号未闭合");
+                }
+                if (c == '"') {
+                    if (peek() == '"') {
+                        read();
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    if (c == '\n') {
+                        line++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty() && !wasQuoted) {
+                quoted = true;
+                wasQuoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+                wasQuoted = false;
+            } else if (c == '\r' && peek() == '\n') {
+                // 交给下一轮的 \n 结束记录
+            } else if (c == '\n' || c == -1) {
+                if (c == '\n') {
+                    line++;
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    /**
+     * 当前记录的起始行号（从 1 开始，字段内换行也计入行号）
+     *
+     * @return 行号
+     */
+    public long recordLine() {
+        return recordLine;
+    }
+
+    private int read() throws IOException {
+        if (peeked != -2) {
+            int c = peeked;
+            peeked = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private int peek() throws IOException {
+        if (peeked == -2) {
+            peeked = reader.read();
+        }
+        return peeked;
+    }
+}
@@ -0,0 +1,14 @@
+package com.example.pos_backend.common;
+
+import java.util.List;
+
+/**
+ * 游标分页结果
+ *
+ * @param items      本页数据
+ * @param nextCursor 下一页游标，没有下一页时为 null
+ * @param hasMore    是否还有下一页
+ * @param <T>        数据类型
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+}
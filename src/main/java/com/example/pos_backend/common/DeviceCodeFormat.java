@@ -0,0 +1,106 @@
+package com.example.pos_backend.common;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * 设备激活码格式
+ * 12 位，前 11 位为随机字符，最后 1 位为 Luhn mod 32 校验位。
+ * 字母表为 Crockford Base32（0-9 和去掉 I、L、O、U 的大写字母），人工抄写时不会混淆 0/O、1/I/L；
+ * 输入时不区分大小写，忽略空格和连字符，并把 O 视为 0、I / L 视为 1。
+ * 校验位能发现任意单个字符输错和绝大多数相邻字符颠倒，输错的码在查库之前即可拒绝。
+ */
+public final class DeviceCodeFormat {
+
+    /**
+     * 字母表（32 个字符）
+     */
+    public static final String ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+
+    /**
+     * 激活码长度（含校验位）
+     */
+    public static final int LENGTH = 12;
+
+    private static final int RADIX = ALPHABET.length();
+
+    private static final int[] VALUES = new int[128];
+
+    static {
+        Arrays.fill(VALUES, -1);
+        for (int i = 0; i < RADIX; i++) {
+            char c = ALPHABET.charAt(i);
+            VALUES[c] = i;
+            VALUES[Character.toLowerCase(c)] = i;
+        }
+        VALUES['O'] = VALUES['o'] = 0;
+        VALUES['I'] = VALUES['i'] = VALUES['L'] = VALUES['l'] = 1;
+    }
+
+    private DeviceCodeFormat() {
+    }
+
+    /**
+     * 生成一个带校验位的激活码
+     *
+     * @param random 随机数源（激活码是凭证，应使用 SecureRandom）
+     * @return 激活码
+     */
+    public static String generate(RandomGenerator random) {
+        char[] chars = new char[LENGTH];
+        for (int i = 0; i < LENGTH - 1; i++) {
+            chars[i] = ALPHABET.charAt(random.nextInt(RADIX));
+        }
+        chars[LENGTH - 1] = checkChar(chars, LENGTH - 1);
+        return new String(chars);
+    }
+
+    /**
+     * 规范化用户输入：去掉空格和连字符，转为字母表中的标准字符
+     *
+     * @param input 用户输入
+     * @return 规范化后的激活码；含非法字符或长度不对时返回 null
+     */
+    public static String normalize(String input) {
+        if (input == null) {
+            return null;
+        }
+        StringBuilder normalized = new StringBuilder(LENGTH);
+        for (int i = 0; i < input.length(); i++) {
+            char c = input.charAt(i);
+            if (c == ' ' || c == '-') {
+                continue;
+            }
+            if (c >= VALUES.length || VALUES[c] < 0 || normalized.length() == LENGTH) {
+                return null;
+            }
+            normalized.append(ALPHABET.charAt(VALUES[c]));
+        }
+        return normalized.length() == LENGTH ? normalized.toString() : null;
+    }
+
+    /**
+     * 校验激活码格式和校验位
+     *
+     * @param input 用户输入
+     * @return 是否为格式正确的激活码
+     */
+    public static boolean isValid(String input) {
+        String code = normalize(input);
+        return code != null && code.charAt(LENGTH - 1) == checkChar(code.toCharArray(), LENGTH - 1);
+    }
+
+    /**
+     * Luhn mod N 校验字符：从右向左，奇数位权重 2、偶数位权重 1，乘积按 N 进制逐位相加
+     */
+    private static char checkChar(char[] chars, int length) {
+        int factor = 2;
+        int sum = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            int addend = factor * VALUES[chars[i]];
+            sum += addend / RADIX + addend % RADIX;
+            factor = factor == 2 ? 1 : 2;
+        }
+        return ALPHABET.charAt((RADIX - sum % RADIX) % RADIX);
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.pos_backend.common;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ * 最底层每格 tickMs、共 wheelSize 格；超出本层范围的条目放入上一层（每格为下一层一整圈），上层按需创建。
+ * 时钟每走过下一层一整圈，上一层对应格中的条目整体下放；添加和到期均为 O(1)，与条目总数和时间跨度无关。
+ * 条目在截止时间之后的第一个刻度到期（不会提前，最多延迟一个刻度）；截止时间已过的条目在下一个刻度到期。
+ * 方法均已同步，可在请求线程中添加、在定时线程中推进。
+ *
+ * @param <T> 条目类型
+ */
+public class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+
+    private final int wheelSize;
+
+    private final List<Level<T>> levels = new ArrayList<>();
+
+    /**
+     * 最底层当前格的起始时间（tickMs 的整数倍），早于该时间的截止时间视为已到期
+     */
+    private long currentTime;
+
+    private int size;
+
+    /**
+     * @param tickMs    最底层每格时长（毫秒）
+     * @param wheelSize 每层格数
+     * @param startMs   起始时间（毫秒）
+     */
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize < 2) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize at least 2");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.currentTime = startMs - Math.floorMod(startMs, tickMs);
+        levels.add(new Level<>(tickMs, wheelSize));
+    }
+
+    /**
+     * 添加条目
+     *
+     * @param item       条目
+     * @param deadlineMs 截止时间（毫秒）
+     */
+    public synchronized void add(T item, long deadlineMs) {
+        place(new Entry<>(item, Math.max(deadlineMs, currentTime)));
+        size++;
+    }
+
+    /**
+     * 推进时钟，依次交出所有已到期的条目
+     *
+     * @param nowMs   当前时间（毫秒）
+     * @param expired 到期条目的接收方
+     * @return 本次到期的条目数
+     */
+    public synchronized int advance(long nowMs, Consumer<T> expired) {
+        int count = 0;
+        if (size == 0) {
+            // 空轮直接跳到当前时间，避免长时间空闲后逐格空转
+            if (nowMs >= currentTime + tickMs) {
+                currentTime = nowMs - Math.floorMod(nowMs, tickMs);
+            }
+            return 0;
+        }
+        while (nowMs >= currentTime + tickMs) {
+            List<Entry<T>> due = levels.get(0).take(currentTime);
+            for (Entry<T> entry : due) {
+                expired.accept(entry.item());
+            }
+            count += due.size();
+            size -= due.size();
+            currentTime += tickMs;
+            cascade();
+        }
+        return count;
+    }
+
+    /**
+     * 未到期的条目数
+     *
+     * @return 条目数
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 已创建的层数
+     *
+     * @return 层数
+     */
+    public synchronized int levelCount() {
+        return levels.size();
+    }
+
+    /**
+     * 时钟走到某一层一整圈的边界时，从最高的对齐层开始逐层下放当前格
+     */
+    private void cascade() {
+        int top = 0;
+        while (top + 1 < levels.size() && Math.floorMod(currentTime, levels.get(top + 1).tickMs) == 0) {
+            top++;
+        }
+        for (int i = top; i >= 1; i--) {
+            for (Entry<T> entry : levels.get(i).take(currentTime)) {
+                place(entry);
+            }
+        }
+    }
+
+    /**
+     * 放入能容纳截止时间的最低一层：第 i 层覆盖 [currentTime 所在格起点, 起点 + 本层一圈)
+     */
+    private void place(Entry<T> entry) {
+        for (int i = 0; ; i++) {
+            if (i == levels.size()) {
+                levels.add(new Level<>(levels.get(i - 1).intervalMs, wheelSize));
+            }
+            Level<T> level = levels.get(i);
+            long levelStart = currentTime - Math.floorMod(currentTime, level.tickMs);
+            if (entry.deadlineMs() < levelStart + level.intervalMs) {
+                level.add(entry);
+                return;
+            }
+        }
+    }
+
+    private record Entry<T>(T item, long deadlineMs) {
+    }
+
+    private static final class Level<T> {
+
+        private final long tickMs;
+
+        private final long intervalMs;
+
+        private final List<List<Entry<T>>> buckets;
+
+        private Level(long tickMs, int wheelSize) {
+            this.tickMs = tickMs;
+            this.intervalMs = Math.multiplyExact(tickMs, wheelSize);
+            this.buckets = new ArrayList<>(wheelSize);
+            for (int i = 0; i < wheelSize; i++) {
+                buckets.add(new ArrayList<>());
+            }
+        }
+
+        private void add(Entry<T> entry) {
+            buckets.get(index(entry.deadlineMs())).add(entry);
+        }
+
+        /**
+         * 取出 timeMs 所在格的全部条目
+         */
+        private List<Entry<T>> take(long timeMs) {
+            int index = index(timeMs);
+            List<Entry<T>> bucket = buckets.get(index);
+            if (bucket.isEmpty()) {
+                return List.of();
+            }
+            buckets.set(index, new ArrayList<>());
+            return bucket;
+        }
+
+        private int index(long timeMs) {
+            return (int) Math.floorMod(Math.floorDiv(timeMs, tickMs), (long) buckets.size());
+        }
+    }
+}
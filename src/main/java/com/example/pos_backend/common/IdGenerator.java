@@ -0,0 +1,101 @@
+package com.example.pos_backend.common;
+
+import java.time.Clock;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间有序的业务主键生成器（无锁、单调递增）
+ * 64 位值布局与 Snowflake 相同：41 位毫秒时间戳（自 2024-01-01 起）| 10 位节点号 | 12 位序号，
+ * 编码为 13 位 Crockford Base32 并拼接业务前缀，例如 MRC-01HQ8V3K2M4Z0，总长度远小于 CHAR(36)。
+ * 时间戳与序号合并存放在一个 AtomicLong 中通过 CAS 推进：同一毫秒内序号用完或时钟回拨时
+ * 借用下一毫秒继续发号，不阻塞、不等待，同一节点生成的 ID 严格递增，字典序即生成顺序。
+ */
+public class IdGenerator {
+
+    /**
+     * 自定义纪元：2024-01-01T00:00:00Z
+     */
+    public static final long EPOCH_MILLIS = 1704067200000L;
+
+    public static final int NODE_BITS = 10;
+
+    public static final int SEQUENCE_BITS = 12;
+
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    /**
+     * 编码后主体长度
+     */
+    public static final int BODY_LENGTH = 13;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeBits;
+
+    private final Clock clock;
+
+    /**
+     * 上一次发号的 (时间戳 << SEQUENCE_BITS | 序号)
+     */
+    private final AtomicLong state = new AtomicLong();
+
+    public IdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    public IdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("节点号必须在 0~" + MAX_NODE_ID + " 之间: " + nodeId);
+        }
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    /**
+     * 生成 64 位时间有序 ID
+     *
+     * @return ID 数值
+     */
+    public long nextLong() {
+        long now = clock.millis() - EPOCH_MILLIS;
+        for (;;) {
+            long last = state.get();
+            // 时钟前进则序号归零；同一毫秒、序号溢出或时钟回拨时在上一次的基础上加一
+            long next = now > (last >>> SEQUENCE_BITS) ? now << SEQUENCE_BITS : last + 1;
+            if (state.compareAndSet(last, next)) {
+                long timestamp = next >>> SEQUENCE_BITS;
+                return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /**
+     * 生成带业务前缀的 ID
+     *
+     * @param prefix 业务前缀，如 MRC-
+     * @return ID 字符串
+     */
+    public String next(String prefix) {
+        long value = nextLong();
+        int prefixLength = prefix.length();
+        char[] chars = new char[prefixLength + BODY_LENGTH];
+        prefix.getChars(0, prefixLength, chars, 0);
+        for (int i = chars.length - 1; i >= prefixLength; i--) {
+            chars[i] = ALPHABET[(int) (value & 31)];
+            value >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    /**
+     * 从 ID 数值中取出生成时间（毫秒时间戳）
+     *
+     * @param id ID 数值
+     * @return 毫秒时间戳
+     */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
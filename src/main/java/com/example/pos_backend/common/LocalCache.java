@@ -0,0 +1,139 @@
+package com.example.pos_backend.common;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 本地读穿缓存
+ * 未命中时调用加载函数并缓存结果；加载结果为 null 时作为"不存在"缓存较短时间（负缓存），避免对不存在的键反复查库。
+ * 容量达到上限时先清理过期条目，仍然不足则按迭代顺序淘汰到 90% 以下。
+ * 每次失效都会推进代数，失效之前开始的加载结果不再写入，避免并发读把刚失效的旧值写回缓存。
+ *
+ * @param <K> 键类型
+ * @param <V> 值类型
+ */
+public class LocalCache<K, V> {
+
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+    private final int maxSize;
+
+    private final long ttlMillis;
+
+    private final long negativeTtlMillis;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxSize           最大条目数
+     * @param ttlMillis         存在值的有效期（毫秒）
+     * @param negativeTtlMillis 不存在结果的有效期（毫秒），0 表示不做负缓存
+     */
+    public LocalCache(int maxSize, long ttlMillis, long negativeTtlMillis) {
+        if (maxSize <= 0 || ttlMillis <= 0 || negativeTtlMillis < 0) {
+            throw new IllegalArgumentException("缓存容量和有效期必须为正数");
+        }
+        this.maxSize = maxSize;
+        this.ttlMillis = ttlMillis;
+        this.negativeTtlMillis = negativeTtlMillis;
+    }
+
+    /**
+     * 读取缓存，未命中或已过期时调用加载函数
+     *
+     * @param key    键
+     * @param loader 加载函数，返回 null 表示不存在
+     * @return 值，不存在时返回 null
+     */
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> cached = entries.get(key);
+        if (cached != null) {
+            if (cached.expiresAt > now) {
+                hits.increment();
+                return cached.value;
+            }
+            if (entries.remove(key, cached)) {
+                evictions.increment();
+            }
+        }
+        misses.increment();
+
+        long loadGeneration = generation.get();
+        V value = loader.apply(key);
+        long ttl = value != null ? ttlMillis : negativeTtlMillis;
+        if (ttl > 0 && generation.get() == loadGeneration) {
+            if (entries.size() >= maxSize) {
+                shrink();
+            }
+            entries.put(key, new Entry<>(value, System.currentTimeMillis() + ttl));
+        }
+        return value;
+    }
+
+    /**
+     * 使指定键失效
+     *
+     * @param key 键
+     */
+    public void invalidate(K key) {
+        generation.incrementAndGet();
+        if (key != null && entries.remove(key) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计快照
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * 回收空间：先删除已过期条目，仍超过 90% 容量时按迭代顺序淘汰到 90% 以下
+     */
+    private synchronized void shrink() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        int removed = 0;
+        for (Iterator<Map.Entry<K, Entry<V>>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue().expiresAt <= now) {
+                it.remove();
+                removed++;
+            }
+        }
+        int target = maxSize - maxSize / 10;
+        for (Iterator<K> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        evictions.add(removed);
+    }
+
+    private record Entry<V>(V value, long expiresAt) {
+    }
+}
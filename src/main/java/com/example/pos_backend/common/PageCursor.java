@@ -0,0 +1,107 @@
+package com.example.pos_backend.common;
+
+import com.example.pos_backend.constants.GlobalConstants;
+import com.example.pos_backend.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoField;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 键集分页游标 (time, id)
+ * 游标对客户端不透明，内容为上一页最后一行的排序时间和主键，按 time DESC, id DESC 翻页
+ * （商家列表为 created_at，设备列表为 last_online），每页只扫描索引上的 size + 1 行，翻到多深都不需要 OFFSET。
+ * 排序时间可以为 null（如从未上线的设备），编码为 "-"，这类行排在最后。
+ *
+ * @param time 上一页最后一行的排序时间（可为 null）
+ * @param id   上一页最后一行的主键
+ */
+public record PageCursor(Instant time, String id) {
+
+    private static final String VERSION = "v1";
+
+    private static final char SEPARATOR = '|';
+
+    private static final String NULL_TIME = "-";
+
+    /**
+     * 编码为不透明的游标字符串
+     *
+     * @return 游标
+     */
+    public String encode() {
+        String timePart = time == null ? NULL_TIME + SEPARATOR + NULL_TIME
+                : time.getEpochSecond() + String.valueOf(SEPARATOR) + time.getNano();
+        String raw = VERSION + SEPARATOR + timePart + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标，为空时表示第一页
+     *
+     * @param cursor 游标字符串
+     * @return 游标，第一页返回 null
+     * @throws BusinessException 游标格式无效
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 4);
+            if (parts.length != 4 || !VERSION.equals(parts[0]) || parts[3].isEmpty()) {
+                throw BusinessException.dataValidation("无效的分页游标");
+            }
+            if (NULL_TIME.equals(parts[1]) && NULL_TIME.equals(parts[2])) {
+                return new PageCursor(null, parts[3]);
+            }
+            int nanos = ChronoField.NANO_OF_SECOND.checkValidIntValue(Long.parseLong(parts[2]));
+            return new PageCursor(Instant.ofEpochSecond(Long.parseLong(parts[1]), nanos), parts[3]);
+        } catch (IllegalArgumentException | java.time.DateTimeException e) {
+            throw BusinessException.dataValidation("无效的分页游标");
+        }
+    }
+
+    /**
+     * 计算实际页大小：未指定时取默认值，超过上限时截断
+     *
+     * @param size 请求的页大小
+     * @return 页大小
+     */
+    public static int resolvePageSize(Integer size) {
+        if (size == null || size <= 0) {
+            return GlobalConstants.Database.DEFAULT_PAGE_SIZE;
+        }
+        return Math.min(size, GlobalConstants.Database.MAX_PAGE_SIZE);
+    }
+
+    /**
+     * 把按 size + 1 查询到的行组装为分页结果
+     *
+     * @param rows   查询结果（最多 size + 1 行）
+     * @param size   页大小
+     * @param time   取行的排序时间（可返回 null）
+     * @param id     取行的主键
+     * @param mapper 行到响应对象的转换
+     * @param <E>    行类型
+     * @param <T>    响应类型
+     * @return 分页结果
+     */
+    public static <E, T> CursorPage<T> toPage(List<E> rows, int size,
+                                              Function<E, Instant> time,
+                                              Function<E, String> id,
+                                              Function<E, T> mapper) {
+        boolean hasMore = rows.size() > size;
+        List<E> page = hasMore ? rows.subList(0, size) : rows;
+        String nextCursor = null;
+        if (hasMore) {
+            E last = page.get(page.size() - 1);
+            nextCursor = new PageCursor(time.apply(last), id.apply(last)).encode();
+        }
+        return new CursorPage<>(page.stream().map(mapper).toList(), nextCursor, hasMore);
+    }
+}
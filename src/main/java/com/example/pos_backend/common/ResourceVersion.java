@@ -0,0 +1,35 @@
+package com.example.pos_backend.common;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.zip.CRC32;
+
+/**
+ * 资源版本（条件 GET 用的弱 ETag 和 Last-Modified）
+ * ETag 由资源ID、updated_at 和对外可见字段的 CRC32 组成：updated_at 只精确到秒，
+ * 同一秒内的两次修改靠字段摘要区分，避免客户端拿到 304 却错过修改。
+ *
+ * @param etag         弱 ETag，形如 W/"MRC-xxx-18c5f3a2b00-1a2b3c4d"
+ * @param lastModified 最后修改时间（毫秒），未知时为 -1
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    /**
+     * 计算资源版本
+     *
+     * @param id        资源ID
+     * @param updatedAt 最后修改时间（可为 null）
+     * @param state     响应中包含的字段值
+     * @return 资源版本
+     */
+    public static ResourceVersion of(String id, Instant updatedAt, Object... state) {
+        CRC32 crc = new CRC32();
+        for (Object value : state) {
+            crc.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+            crc.update(0);
+        }
+        long lastModified = updatedAt != null ? updatedAt.toEpochMilli() : -1;
+        String etag = "W/\"" + id + "-" + Long.toHexString(Math.max(0, lastModified)) + "-" + Long.toHexString(crc.getValue()) + "\"";
+        return new ResourceVersion(etag, lastModified);
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.pos_backend.common;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 可扩容的布隆过滤器
+ * 由若干层 {@link BloomFilter} 组成，当前层写满预期容量后追加一层：新层容量翻倍、目标误判率减半，
+ * 总误判率收敛于 首层误判率 / (1 - 0.5) = 2 × 首层误判率，数据量超出预估时误判率不会失控。
+ * 查询时逐层判断，任意一层返回"可能存在"即为可能存在。
+ */
+public class ScalableBloomFilter {
+
+    /**
+     * 每追加一层，目标误判率乘以该系数
+     */
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final List<Layer> layers = new CopyOnWriteArrayList<>();
+
+    private final double falsePositiveRate;
+
+    /**
+     * @param initialCapacity   首层预期元素数量
+     * @param falsePositiveRate 总目标误判率（0~1）
+     */
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("误判率必须在 (0, 1) 之间: " + falsePositiveRate);
+        }
+        this.falsePositiveRate = falsePositiveRate;
+        long capacity = Math.max(1024, initialCapacity);
+        double firstRate = falsePositiveRate * (1 - TIGHTENING_RATIO);
+        layers.add(new Layer(BloomFilter.create(capacity, firstRate), capacity, firstRate));
+    }
+
+    /**
+     * 写入字符串元素
+     *
+     * @param value 字符串
+     */
+    public void put(CharSequence value) {
+        if (mightContain(value)) {
+            return;
+        }
+        current().filter.put(value);
+    }
+
+    /**
+     * 判断字符串元素是否可能存在
+     *
+     * @param value 字符串
+     * @return false 表示一定不存在；true 表示可能存在
+     */
+    public boolean mightContain(CharSequence value) {
+        for (Layer layer : layers) {
+            if (layer.filter.mightContain(value)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 层数
+     *
+     * @return 层数
+     */
+    public int layerCount() {
+        return layers.size();
+    }
+
+    /**
+     * 已写入的元素数（已存在的元素不重复写入）
+     *
+     * @return 元素数
+     */
+    public long insertions() {
+        long total = 0;
+        for (Layer layer : layers) {
+            total += layer.filter.insertions();
+        }
+        return total;
+    }
+
+    /**
+     * 各层位数组总大小
+     *
+     * @return 位数
+     */
+    public long bitSize() {
+        long total = 0;
+        for (Layer layer : layers) {
+            total += layer.filter.bitSize();
+        }
+        return total;
+    }
+
+    /**
+     * 按各层写入次数估算的理论误判率
+     *
+     * @return 理论误判率
+     */
+    public double expectedFalsePositiveRate() {
+        double allNegative = 1;
+        for (Layer layer : layers) {
+            allNegative *= 1 - layer.filter.expectedFalsePositiveRate();
+        }
+        return 1 - allNegative;
+    }
+
+    /**
+     * 总目标误判率
+     *
+     * @return 目标误判率
+     */
+    public double targetFalsePositiveRate() {
+        return falsePositiveRate;
+    }
+
+    /**
+     * 当前可写层，写满时追加新层
+     */
+    private Layer current() {
+        Layer last = layers.get(layers.size() - 1);
+        if (last.filter.insertions() < last.capacity) {
+            return last;
+        }
+        synchronized (layers) {
+            last = layers.get(layers.size() - 1);
+            if (last.filter.insertions() >= last.capacity) {
+                long capacity = last.capacity * 2;
+                double rate = last.falsePositiveRate * TIGHTENING_RATIO;
+                last = new Layer(BloomFilter.create(capacity, rate), capacity, rate);
+                layers.add(last);
+            }
+            return last;
+        }
+    }
+
+    private record Layer(BloomFilter filter, long capacity, double falsePositiveRate) {
+    }
+}
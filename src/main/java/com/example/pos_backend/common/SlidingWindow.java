@@ -0,0 +1,65 @@
+package com.example.pos_backend.common;
+
+/**
+ * 滑动窗口计数（最近 limit 次事件时间的环形缓冲）
+ * 缓冲已满且最早一次仍在窗口内时视为超限，内存占用固定为 limit 个时间戳
+ */
+public final class SlidingWindow {
+
+    private final long[] timestamps;
+
+    private int head;
+
+    private int size;
+
+    /**
+     * @param limit 窗口内允许的事件数
+     */
+    public SlidingWindow(int limit) {
+        this.timestamps = new long[Math.max(1, limit)];
+    }
+
+    /**
+     * 记录一次事件
+     *
+     * @param now 当前时间（毫秒）
+     */
+    public synchronized void add(long now) {
+        timestamps[head] = now;
+        head = (head + 1) % timestamps.length;
+        if (size < timestamps.length) {
+            size++;
+        }
+    }
+
+    /**
+     * 超限时返回解除时间
+     *
+     * @param now      当前时间（毫秒）
+     * @param windowMs 窗口长度（毫秒）
+     * @return 解除时间（毫秒），未超限时返回 0
+     */
+    public synchronized long blockedUntil(long now, long windowMs) {
+        if (size < timestamps.length) {
+            return 0;
+        }
+        // 缓冲已满时 head 指向最早的一次事件
+        long until = timestamps[head] + windowMs;
+        return until > now ? until : 0;
+    }
+
+    /**
+     * 最近一次事件是否已在窗口外（可清理）
+     *
+     * @param now      当前时间（毫秒）
+     * @param windowMs 窗口长度（毫秒）
+     * @return 是否可清理
+     */
+    public synchronized boolean isStale(long now, long windowMs) {
+        if (size == 0) {
+            return true;
+        }
+        long newest = timestamps[(head - 1 + timestamps.length) % timestamps.length];
+        return newest + windowMs <= now;
+    }
+}
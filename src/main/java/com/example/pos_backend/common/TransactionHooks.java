@@ -0,0 +1,32 @@
+package com.example.pos_backend.common;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具类
+ * 内存索引、计数器等节点本地结构只应反映已提交的数据，写入动作统一挂到事务提交之后执行
+ */
+public class TransactionHooks {
+
+    private TransactionHooks() {
+    }
+
+    /**
+     * 当前事务提交后执行；没有活动事务时立即执行，事务回滚时不执行
+     *
+     * @param action 回调动作
+     */
+    public static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,471 @@
+package com.example.pos_backend.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 三元组倒排索引（名称 + 邮箱子串搜索）
+ * 每个文档占一个递增的槽位号，名称和邮箱（小写）拆成字符三元组，每个三元组对应一个按槽位号升序的 int 倒排表；
+ * 查询时取关键词全部三元组的倒排表，从最短的开始求交集，再对候选逐个做 contains 校验并打分，只保留前 limit 个。
+ * 更新采用追加新槽位 + 旧槽位打删除标记，倒排表始终保持有序；删除标记过多时由调用方整体重建。
+ * 少于 3 个字符的关键词无法用三元组过滤，退化为对全部有效槽位的顺序扫描。
+ * 读多写少，使用读写锁保护。
+ */
+public class TrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * 按得分降序、名称长度升序、创建时间降序
+     */
+    private static final Comparator<Hit> RANKING = Comparator.comparingInt(Hit::score).reversed()
+            .thenComparingInt(Hit::nameLength)
+            .thenComparing(Comparator.comparingLong(Hit::createdAt).reversed());
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> slotByKey = new HashMap<>();
+
+    private final GramTable postings = new GramTable();
+
+    private final BitSet live = new BitSet();
+
+    private String[] keys;
+
+    private String[] names;
+
+    private String[] emails;
+
+    private long[] createdAts;
+
+    private int slots;
+
+    private long postingCount;
+
+    public TrigramIndex() {
+        this(1024);
+    }
+
+    /**
+     * @param expectedDocuments 预期文档数，用于预分配槽位数组
+     */
+    public TrigramIndex(int expectedDocuments) {
+        int capacity = Math.max(16, expectedDocuments);
+        this.keys = new String[capacity];
+        this.names = new String[capacity];
+        this.emails = new String[capacity];
+        this.createdAts = new long[capacity];
+    }
+
+    /**
+     * 写入或更新文档
+     *
+     * @param key       文档键（商家ID）
+     * @param name      名称
+     * @param email     邮箱
+     * @param createdAt 创建时间（毫秒），得分相同时较新的排在前面
+     */
+    public void upsert(String key, String name, String email, long createdAt) {
+        String normalizedName = normalize(name);
+        String normalizedEmail = normalize(email);
+        long[] grams = documentGrams(normalizedName, normalizedEmail);
+
+        lock.writeLock().lock();
+        try {
+            Integer previous = slotByKey.get(key);
+            if (previous != null) {
+                if (normalizedName.equals(names[previous]) && normalizedEmail.equals(emails[previous])) {
+                    createdAts[previous] = createdAt;
+                    return;
+                }
+                live.clear(previous);
+            }
+            int slot = slots++;
+            ensureCapacity(slots);
+            keys[slot] = key;
+            names[slot] = normalizedName;
+            emails[slot] = normalizedEmail;
+            createdAts[slot] = createdAt;
+            live.set(slot);
+            slotByKey.put(key, slot);
+            for (long gram : grams) {
+                postings.getOrCreate(gram).add(slot);
+            }
+            postingCount += grams.length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 删除文档
+     *
+     * @param key 文档键
+     * @return 文档是否存在
+     */
+    public boolean remove(String key) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByKey.remove(key);
+            if (slot == null) {
+                return false;
+            }
+            live.clear(slot);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * 搜索名称或邮箱包含关键词的文档（不区分大小写）
+     * 得分：名称完全一致 > 邮箱完全一致 > 名称前缀 > 邮箱前缀 > 名称中的单词开头 > 名称包含 > 邮箱包含
+     *
+     * @param keyword 关键词
+     * @param limit   最多返回条数
+     * @return 排序后的文档键及命中总数
+     */
+    public SearchResult search(String keyword, int limit) {
+        String query = normalize(keyword);
+        if (query.isEmpty() || limit <= 0) {
+            return new SearchResult(List.of(), 0);
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, RANKING.reversed());
+        int matches = 0;
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM) {
+                for (int slot = live.nextSetBit(0); slot >= 0; slot = live.nextSetBit(slot + 1)) {
+                    matches += collect(slot, query, top, limit);
+                }
+            } else {
+                int[] candidates = candidates(query);
+                for (int slot : candidates) {
+                    if (live.get(slot)) {
+                        matches += collect(slot, query, top, limit);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        List<String> result = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            result.add(hit.key());
+        }
+        return new SearchResult(result, matches);
+    }
+
+    /**
+     * 有效文档数
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 已删除但仍占用槽位和倒排表空间的文档数
+     */
+    public int tombstones() {
+        lock.readLock().lock();
+        try {
+            return slots - slotByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 不同三元组数
+     */
+    public int trigramCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 倒排表条目总数
+     */
+    public long postingCount() {
+        lock.readLock().lock();
+        try {
+            return postingCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 校验候选并放入前 limit 名堆
+     *
+     * @return 是否命中（1 / 0）
+     */
+    private int collect(int slot, String query, PriorityQueue<Hit> top, int limit) {
+        int score = score(names[slot], emails[slot], query);
+        if (score == 0) {
+            return 0;
+        }
+        // 堆已满且不优于当前最差结果时不再创建对象
+        Hit worst = top.size() == limit ? top.peek() : null;
+        if (worst != null && !outranks(score, names[slot].length(), createdAts[slot], worst)) {
+            return 1;
+        }
+        top.offer(new Hit(keys[slot], score, names[slot].length(), createdAts[slot]));
+        if (top.size() > limit) {
+            top.poll();
+        }
+        return 1;
+    }
+
+    private static boolean outranks(int score, int nameLength, long createdAt, Hit other) {
+        if (score != other.score()) {
+            return score > other.score();
+        }
+        if (nameLength != other.nameLength()) {
+            return nameLength < other.nameLength();
+        }
+        return createdAt > other.createdAt();
+    }
+
+    private static int score(String name, String email, String query) {
+        if (name.equals(query)) {
+            return 100;
+        }
+        if (email.equals(query)) {
+            return 95;
+        }
+        if (name.startsWith(query)) {
+            return 80;
+        }
+        if (email.startsWith(query)) {
+            return 70;
+        }
+        int at = name.indexOf(query);
+        if (at > 0) {
+            return Character.isLetterOrDigit(name.charAt(at - 1)) ? 50 : 60;
+        }
+        return email.contains(query) ? 40 : 0;
+    }
+
+    /**
+     * 关键词全部三元组倒排表的交集
+     */
+    private int[] candidates(String query) {
+        long[] grams = distinctGrams(query);
+        IntList[] lists = new IntList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return EMPTY;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists[0].values, lists[0].size);
+        int size = result.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = intersect(result, size, lists[i]);
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * 原地求交集：另一侧远长于当前结果时逐个二分查找，否则线性归并
+     */
+    private static int intersect(int[] acc, int accSize, IntList other) {
+        int[] values = other.values;
+        int otherSize = other.size;
+        int out = 0;
+        if ((long) otherSize > (long) accSize * 8) {
+            int from = 0;
+            for (int i = 0; i < accSize && from < otherSize; i++) {
+                int found = Arrays.binarySearch(values, from, otherSize, acc[i]);
+                if (found >= 0) {
+                    acc[out++] = acc[i];
+                    from = found + 1;
+                } else {
+                    from = -found - 1;
+                }
+            }
+            return out;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < accSize && j < otherSize) {
+            int a = acc[i];
+            int b = values[j];
+            if (a == b) {
+                acc[out++] = a;
+                i++;
+                j++;
+            } else if (a < b) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return out;
+    }
+
+    private static long[] documentGrams(String name, String email) {
+        long[] grams = new long[Math.max(0, name.length() - GRAM + 1) + Math.max(0, email.length() - GRAM + 1)];
+        int count = appendGrams(name, grams, 0);
+        count = appendGrams(email, grams, count);
+        return dedupe(grams, count);
+    }
+
+    private static long[] distinctGrams(String text) {
+        long[] grams = new long[text.length() - GRAM + 1];
+        return dedupe(grams, appendGrams(text, grams, 0));
+    }
+
+    private static int appendGrams(String text, long[] grams, int offset) {
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams[offset++] = ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        }
+        return offset;
+    }
+
+    private static long[] dedupe(long[] grams, int count) {
+        if (count == 0) {
+            return new long[0];
+        }
+        Arrays.sort(grams, 0, count);
+        int distinct = 1;
+        for (int i = 1; i < count; i++) {
+            if (grams[i] != grams[distinct - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    private static String normalize(String text) {
+        return text != null ? text.trim().toLowerCase(Locale.ROOT) : "";
+    }
+
+    private void ensureCapacity(int required) {
+        if (required <= keys.length) {
+            return;
+        }
+        int capacity = Math.max(required, keys.length + (keys.length >> 1));
+        keys = Arrays.copyOf(keys, capacity);
+        names = Arrays.copyOf(names, capacity);
+        emails = Arrays.copyOf(emails, capacity);
+        createdAts = Arrays.copyOf(createdAts, capacity);
+    }
+
+    /**
+     * 搜索结果
+     *
+     * @param keys    按得分排序的文档键（最多 limit 个）
+     * @param matches 命中总数
+     */
+    public record SearchResult(List<String> keys, int matches) {
+    }
+
+    private record Hit(String key, int score, int nameLength, long createdAt) {
+    }
+
+    /**
+     * 三元组 -> 倒排表的开放寻址哈希表（线性探测），避免 Long 装箱
+     */
+    private static final class GramTable {
+
+        private long[] grams = new long[1024];
+
+        private IntList[] lists = new IntList[1024];
+
+        private int size;
+
+        IntList get(long gram) {
+            int mask = grams.length - 1;
+            for (int i = mix(gram) & mask; lists[i] != null; i = (i + 1) & mask) {
+                if (grams[i] == gram) {
+                    return lists[i];
+                }
+            }
+            return null;
+        }
+
+        IntList getOrCreate(long gram) {
+            int mask = grams.length - 1;
+            int i = mix(gram) & mask;
+            for (; lists[i] != null; i = (i + 1) & mask) {
+                if (grams[i] == gram) {
+                    return lists[i];
+                }
+            }
+            IntList list = new IntList();
+            grams[i] = gram;
+            lists[i] = list;
+            if (++size * 2 > grams.length) {
+                resize();
+            }
+            return list;
+        }
+
+        private void resize() {
+            long[] oldGrams = grams;
+            IntList[] oldLists = lists;
+            grams = new long[oldGrams.length << 1];
+            lists = new IntList[oldLists.length << 1];
+            int mask = grams.length - 1;
+            for (int j = 0; j < oldLists.length; j++) {
+                if (oldLists[j] != null) {
+                    int i = mix(oldGrams[j]) & mask;
+                    while (lists[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    grams[i] = oldGrams[j];
+                    lists[i] = oldLists[j];
+                }
+            }
+        }
+
+        private static int mix(long gram) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h ^ (h >>> 32));
+        }
+    }
+
+    /**
+     * 可增长的 int 倒排表
+     */
+    private static final class IntList {
+
+        private int[] values = new int[4];
+
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size + (size >> 1) + 1);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.pos_backend.config;
+
+import com.example.pos_backend.common.IdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+/**
+ * 主键生成器配置
+ * 每个实例必须显式配置不同的 id.node-id（0~1023）。节点号相同的两个实例会生成重复主键，
+ * 因此不再由主机名和进程号推导（10 位空间内哈希碰撞概率过高），未配置时启动失败。
+ */
+@Slf4j
+@Configuration
+public class IdGeneratorConfig {
+
+    @Value("${id.node-id:}")
+    private String nodeId;
+
+    @Bean
+    public IdGenerator idGenerator() {
+        int node = parseNodeId(nodeId);
+        log.info("主键生成器节点号: {}", node);
+        return new IdGenerator(node);
+    }
+
+    private static int parseNodeId(String value) {
+        if (!StringUtils.hasText(value)) {
+            throw new IllegalStateException("未配置 id.node-id（环境变量 POS_ID_NODE_ID），每个实例需要唯一的节点号 0~"
+                    + IdGenerator.MAX_NODE_ID);
+        }
+        int node;
+        try {
+            node = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("id.node-id 必须为整数: " + value);
+        }
+        if (node < 0 || node > IdGenerator.MAX_NODE_ID) {
+            throw new IllegalStateException("id.node-id 超出范围 0~" + IdGenerator.MAX_NODE_ID + ": " + node);
+        }
+        return node;
+    }
+}
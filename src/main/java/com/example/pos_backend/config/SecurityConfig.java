@@ -1,8 +1,14 @@
 package com.example.pos_backend.config;
 
+import com.example.pos_backend.security.JwtAuthenticationFilter;
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.access.expression.method.DefaultMethodSecurityExpressionHandler;
+import org.springframework.security.access.expression.method.MethodSecurityExpressionHandler;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -28,9 +34,8 @@ public class SecurityConfig {
     @Autowired
     private CorsConfigurationSource corsConfigurationSource;
 
-    // TODO: 注入 JwtAuthenticationFilter
-    // @Autowired
-    // private JwtAuthenticationFilter jwtAuthenticationFilter;
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
 
     // TODO: 注入 JwtAuthenticationEntryPoint
     // @Autowired
@@ -44,6 +49,16 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * 方法级安全表达式处理器，hasPermission(...) 由内存 RBAC 引擎评估
+     */
+    @Bean
+    static MethodSecurityExpressionHandler methodSecurityExpressionHandler(PermissionEvaluator permissionEvaluator) {
+        DefaultMethodSecurityExpressionHandler handler = new DefaultMethodSecurityExpressionHandler();
+        handler.setPermissionEvaluator(permissionEvaluator);
+        return handler;
+    }
+
     /**
      * 认证管理器
      */
@@ -77,6 +92,9 @@ public class SecurityConfig {
                 
                 // 配置授权规则
                 .authorizeHttpRequests(auth -> auth
+                        // 异步分派（SSE、流式导出的后续写出）沿用首次请求的鉴权结果
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+
                         // 公开访问的端点
                         .requestMatchers(
                                 "/api/auth/**",           // 认证相关接口（登录、刷新token等）
@@ -84,6 +102,8 @@ public class SecurityConfig {
                                 "/api/users/login",       // 用户登录接口
                                 "/api/merchants/register", // 商家注册接口
                                 "/api/merchants/login",   // 商家登录接口
+                                "/api/device-codes/activate", // 设备激活接口（终端尚无令牌）
+                                "/api/devices/events",    // 设备状态订阅（令牌或一次性票据在控制器中校验门店权限）
                                 "/api/public/**",         // 公开接口
                                 "/swagger-ui/**",         // Swagger UI
                                 "/v3/api-docs/**",        // OpenAPI 文档
@@ -103,19 +123,30 @@ public class SecurityConfig {
                         // 商品管理接口（需要认证）
                         .requestMatchers("/api/products/**").authenticated()
                         
-                        // 系统管理接口（需要管理员权限）
+                        // 系统管理接口（需要管理员权限，由 security.admin-principals 授予 ROLE_ADMIN）
                         .requestMatchers("/api/system/**").hasRole("ADMIN")
                         
                         // 其他所有请求都需要认证
                         .anyRequest().authenticated()
                 );
 
-        // TODO: 添加 JWT 认证过滤器
-        // http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+        // JWT 认证过滤器（含会话吊销检查）
+        http.addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
 
         return http.build();
     }
 
+    /**
+     * 禁止 JWT 过滤器作为普通 Servlet 过滤器重复注册，只在安全过滤器链中执行
+     */
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(
+            JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     /**
      * 开发环境安全配置（可选）
      * 在开发环境中可以使用此配置来禁用安全认证
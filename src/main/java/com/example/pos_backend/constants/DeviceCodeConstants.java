@@ -0,0 +1,27 @@
+package com.example.pos_backend.constants;
+
+/**
+ * 设备激活码业务常量定义
+ */
+public class DeviceCodeConstants {
+
+    /**
+     * 设备码状态常量
+     */
+    public static class Status {
+        /**
+         * 已预生成入池、尚未发放（不计入未使用码统计）
+         */
+        public static final String POOLED = "POOLED";
+        public static final String UNUSED = "UNUSED";
+        public static final String BOUND = "BOUND";
+        public static final String EXPIRED = "EXPIRED";
+    }
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private DeviceCodeConstants() {
+        throw new IllegalStateException("Utility class");
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.pos_backend.constants;
+
+/**
+ * 设备业务常量定义
+ */
+public class DeviceConstants {
+
+    /**
+     * 设备在线状态常量
+     */
+    public static class Status {
+        public static final String ONLINE = "ONLINE";
+        public static final String OFFLINE = "OFFLINE";
+    }
+
+    /**
+     * 设备状态推送事件名常量
+     */
+    public static class Event {
+        /**
+         * 订阅时的门店快照
+         */
+        public static final String SNAPSHOT = "snapshot";
+        /**
+         * 设备上线 / 离线
+         */
+        public static final String DEVICE_STATUS = "device-status";
+        /**
+         * 在线设备的心跳
+         */
+        public static final String HEARTBEAT = "heartbeat";
+        /**
+         * 门店在线数变化
+         */
+        public static final String STORE_STATUS = "store-status";
+    }
+
+    /**
+     * 私有构造函数，防止实例化
+     */
+    private DeviceConstants() {
+        throw new IllegalStateException("Utility class");
+    }
+}
@@ -32,6 +32,15 @@ public class GlobalConstants {
         public static final String ASC = "asc";
     }
 
+    /**
+     * 业务主键前缀常量
+     */
+    public static class IdPrefix {
+        public static final String MERCHANT = "MRC-";
+        public static final String LOCATION = "LOC-";
+        public static final String SESSION = "SES-";
+    }
+
     /**
      * 字符串长度限制常量
      */
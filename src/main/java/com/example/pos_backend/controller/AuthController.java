@@ -0,0 +1,48 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.dto.PinLoginRequestDTO;
+import com.example.pos_backend.dto.PinLoginResponseDTO;
+import com.example.pos_backend.service.PinAuthService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 员工认证控制器
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+@Tag(name = "员工认证", description = "收银终端员工登录相关接口")
+public class AuthController {
+
+    private final PinAuthService pinAuthService;
+
+    /**
+     * 员工 PIN 登录
+     */
+    @PostMapping("/pin-login")
+    @Operation(summary = "员工PIN登录", description = "在门店终端上使用4-6位PIN码登录，返回员工访问令牌")
+    public ResponseEntity<ApiResponse<PinLoginResponseDTO>> pinLogin(
+            @Valid @RequestBody PinLoginRequestDTO requestDTO,
+            HttpServletRequest request) {
+
+        // 远端地址由容器按 server.forward-headers-strategy 解析，只采信可信代理追加的转发头，客户端无法伪造
+        String ipAddress = request.getRemoteAddr();
+        String userAgent = request.getHeader("User-Agent");
+
+        PinLoginResponseDTO response = pinAuthService.login(requestDTO, ipAddress, userAgent);
+
+        return ResponseEntity.ok(ApiResponse.success(response, "PIN登录成功"));
+    }
+}
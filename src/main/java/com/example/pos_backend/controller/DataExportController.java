@@ -0,0 +1,77 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.service.DataExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+/**
+ * 数据导出控制器
+ * 以 NDJSON / CSV 流式输出全量数据，路径位于 /api/system 下，需要管理员权限
+ */
+@RestController
+@RequestMapping("/api/system/export")
+@RequiredArgsConstructor
+@Tag(name = "数据导出", description = "商家、门店全量流式导出")
+public class DataExportController {
+
+    private final DataExportService dataExportService;
+
+    /**
+     * 导出商家
+     */
+    @GetMapping("/merchants")
+    @Operation(summary = "导出商家", description = "流式导出全部有效商家（不含密码哈希），支持 NDJSON / CSV 及 gzip 压缩")
+    public ResponseEntity<StreamingResponseBody> exportMerchants(
+            @Parameter(description = "导出格式：ndjson 或 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip) {
+
+        DataExportService.Format exportFormat = DataExportService.Format.of(format);
+        StreamingResponseBody body = dataExportService.exportMerchants(exportFormat, gzip);
+
+        return attachment("merchants", exportFormat, gzip, body);
+    }
+
+    /**
+     * 导出门店
+     */
+    @GetMapping("/stores")
+    @Operation(summary = "导出门店", description = "流式导出门店，可按商家过滤，支持 NDJSON / CSV 及 gzip 压缩")
+    public ResponseEntity<StreamingResponseBody> exportStores(
+            @Parameter(description = "商家ID（可选）") @RequestParam(required = false) String merchantId,
+            @Parameter(description = "导出格式：ndjson 或 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip) {
+
+        DataExportService.Format exportFormat = DataExportService.Format.of(format);
+        StreamingResponseBody body = dataExportService.exportStores(merchantId, exportFormat, gzip);
+
+        return attachment("stores", exportFormat, gzip, body);
+    }
+
+    private ResponseEntity<StreamingResponseBody> attachment(String name, DataExportService.Format format,
+                                                             boolean gzip, StreamingResponseBody body) {
+        String filename = name + "-" + LocalDate.now(ZoneOffset.UTC) + "." + format.getExtension() + (gzip ? ".gz" : "");
+        MediaType contentType = gzip
+                ? MediaType.parseMediaType("application/gzip")
+                : MediaType.parseMediaType(format.getContentType());
+
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment().filename(filename).build().toString())
+                .header(HttpHeaders.CACHE_CONTROL, "no-store")
+                .body(body);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.dto.DeviceActivationRequestDTO;
+import com.example.pos_backend.dto.DeviceCodeResponseDTO;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.service.DeviceActivationService;
+import com.example.pos_backend.service.DeviceCodeAllocator;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 设备激活码控制器
+ * 从预生成的激活码池中按门店发放设备激活码，终端使用激活码完成绑定
+ */
+@RestController
+@RequestMapping("/api/device-codes")
+@RequiredArgsConstructor
+@Tag(name = "设备激活码", description = "设备激活码发放与设备激活")
+public class DeviceCodeController {
+
+    private final DeviceCodeAllocator deviceCodeAllocator;
+
+    private final DeviceActivationService deviceActivationService;
+
+    /**
+     * 发放单个激活码
+     */
+    @PostMapping
+    @Operation(summary = "发放激活码", description = "为本人可访问的门店取出一个激活码，有效期内可用于设备激活")
+    public ResponseEntity<ApiResponse<DeviceCodeResponseDTO>> issue(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "限定激活设备的指纹（为空时任意设备可用）") @RequestParam(required = false) String deviceFingerprint,
+            @AuthenticationPrincipal AuthenticatedPrincipal operator) {
+
+        DeviceCodeResponseDTO code = deviceCodeAllocator.issue(1, storeId, deviceFingerprint, operator).get(0);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(code, "激活码发放成功"));
+    }
+
+    /**
+     * 批量发放激活码
+     */
+    @PostMapping("/batch")
+    @Operation(summary = "批量发放激活码", description = "为本人可访问的门店一次发放多个激活码，用于批量开通设备")
+    public ResponseEntity<ApiResponse<List<DeviceCodeResponseDTO>>> issueBatch(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "发放数量") @RequestParam int count,
+            @AuthenticationPrincipal AuthenticatedPrincipal operator) {
+
+        List<DeviceCodeResponseDTO> codes = deviceCodeAllocator.issue(count, storeId, null, operator);
+
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .body(ApiResponse.success(codes, "激活码批量发放成功"));
+    }
+
+    /**
+     * 设备激活
+     */
+    @PostMapping("/activate")
+    @Operation(summary = "设备激活", description = "终端使用激活码完成绑定，同一设备重复提交返回已绑定结果")
+    public ResponseEntity<ApiResponse<DeviceCodeResponseDTO>> activate(
+            @Valid @RequestBody DeviceActivationRequestDTO requestDTO,
+            HttpServletRequest request) {
+
+        DeviceCodeResponseDTO code = deviceActivationService.activate(requestDTO, request.getRemoteAddr());
+
+        return ResponseEntity.ok(ApiResponse.success(code, "设备激活成功"));
+    }
+}
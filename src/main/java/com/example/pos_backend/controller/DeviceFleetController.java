@@ -0,0 +1,55 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.common.CursorPage;
+import com.example.pos_backend.dto.DeviceView;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.service.DeviceFleetService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+
+/**
+ * 设备列表控制器
+ * 在调用方可访问的门店内按类型、状态、最后在线时间和名称前缀组合查询设备
+ */
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "设备列表", description = "设备组合条件查询")
+public class DeviceFleetController {
+
+    private final DeviceFleetService deviceFleetService;
+
+    /**
+     * 组合条件查询设备
+     */
+    @GetMapping("/search")
+    @Operation(summary = "查询设备列表", description = "门店必填且必须可访问，其余条件可选，按最后在线时间倒序键集分页；翻页时传入上一页返回的 nextCursor")
+    public ResponseEntity<ApiResponse<CursorPage<DeviceView>>> search(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "设备类型") @RequestParam(required = false) String deviceType,
+            @Parameter(description = "在线状态：ONLINE / OFFLINE") @RequestParam(required = false) String status,
+            @Parameter(description = "最后在线时间下限，含（ISO-8601）") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant lastOnlineFrom,
+            @Parameter(description = "最后在线时间上限，不含（ISO-8601）") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant lastOnlineTo,
+            @Parameter(description = "设备名称前缀") @RequestParam(required = false) String namePrefix,
+            @Parameter(description = "分页游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页数量，默认20，最大100") @RequestParam(required = false) Integer size,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
+
+        CursorPage<DeviceView> page = deviceFleetService.search(storeId, deviceType, status,
+                lastOnlineFrom, lastOnlineTo, namePrefix, cursor, size, principal);
+
+        return ResponseEntity.ok(ApiResponse.success(page, "查询设备列表成功"));
+    }
+}
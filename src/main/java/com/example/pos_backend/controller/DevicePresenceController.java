@@ -0,0 +1,179 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.dto.DevicePresenceDTO;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.JwtAuthenticationFilter;
+import com.example.pos_backend.security.StoreAccess;
+import com.example.pos_backend.security.StreamTicketRegistry;
+import com.example.pos_backend.security.TokenDigest;
+import com.example.pos_backend.service.DevicePresenceRegistry;
+import com.example.pos_backend.service.DeviceStatusBroadcaster;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestAttribute;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 设备在线状态控制器
+ * 接收终端心跳，提供按门店的在线 / 离线设备查询（数据来自节点内存中的在线状态表）和状态推送；
+ * 只能上报和查询调用方可访问门店的设备
+ */
+@RestController
+@RequestMapping("/api/devices")
+@RequiredArgsConstructor
+@Tag(name = "设备在线状态", description = "终端心跳与在线状态查询")
+public class DevicePresenceController {
+
+    /**
+     * 列表查询的最大返回数
+     */
+    private static final int MAX_LIMIT = 10000;
+
+    private final DevicePresenceRegistry devicePresenceRegistry;
+
+    private final DeviceStatusBroadcaster deviceStatusBroadcaster;
+
+    private final StreamTicketRegistry streamTicketRegistry;
+
+    private final StoreAccess storeAccess;
+
+    /**
+     * 终端心跳
+     */
+    @PostMapping("/{deviceId}/heartbeat")
+    @Operation(summary = "设备心跳", description = "终端以门店员工令牌定时上报心跳（建议每 15 秒一次），只更新内存状态，不产生逐次数据库写入")
+    public ResponseEntity<ApiResponse<DevicePresenceDTO>> heartbeat(
+            @Parameter(description = "设备ID") @PathVariable String deviceId,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal,
+            HttpServletRequest request) {
+
+        DevicePresenceDTO presence = devicePresenceRegistry.heartbeat(deviceId, request.getRemoteAddr(), principal);
+
+        return ResponseEntity.ok(ApiResponse.success(presence, "心跳已接收"));
+    }
+
+    /**
+     * 查询设备在线状态
+     */
+    @GetMapping("/{deviceId}/presence")
+    @Operation(summary = "查询设备在线状态", description = "获取设备的在线状态、最后心跳时间和来源IP")
+    public ResponseEntity<ApiResponse<DevicePresenceDTO>> getPresence(
+            @Parameter(description = "设备ID") @PathVariable String deviceId,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
+
+        DevicePresenceDTO presence = devicePresenceRegistry.get(deviceId, principal);
+        if (presence == null) {
+            throw BusinessException.dataNotFound("设备不存在");
+        }
+
+        return ResponseEntity.ok(ApiResponse.success(presence, "获取设备在线状态成功"));
+    }
+
+    /**
+     * 在线设备列表
+     */
+    @GetMapping("/online")
+    @Operation(summary = "在线设备列表", description = "按最后心跳时间倒序返回门店的在线设备")
+    public ResponseEntity<ApiResponse<List<DevicePresenceDTO>>> getOnlineDevices(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "最大返回数") @RequestParam(defaultValue = "1000") int limit,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                devicePresenceRegistry.findOnline(storeId, checkLimit(limit), principal), "获取在线设备成功"));
+    }
+
+    /**
+     * 离线设备列表
+     */
+    @GetMapping("/offline")
+    @Operation(summary = "离线设备列表", description = "按最后心跳时间倒序返回门店的离线设备")
+    public ResponseEntity<ApiResponse<List<DevicePresenceDTO>>> getOfflineDevices(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "最大返回数") @RequestParam(defaultValue = "1000") int limit,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                devicePresenceRegistry.findOffline(storeId, checkLimit(limit), principal), "获取离线设备成功"));
+    }
+
+    /**
+     * 长时间未上线的设备
+     */
+    @GetMapping("/not-seen-since")
+    @Operation(summary = "长时间未上线设备", description = "返回门店内自指定时间以来没有心跳的设备（含从未上线的设备）")
+    public ResponseEntity<ApiResponse<List<DevicePresenceDTO>>> getDevicesNotSeenSince(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "时间阈值（ISO-8601）") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant since,
+            @Parameter(description = "最大返回数") @RequestParam(defaultValue = "1000") int limit,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
+
+        return ResponseEntity.ok(ApiResponse.success(
+                devicePresenceRegistry.findNotSeenSince(storeId, since, checkLimit(limit), principal), "获取未上线设备成功"));
+    }
+
+    /**
+     * 签发门店设备状态订阅票据
+     */
+    @PostMapping("/events/ticket")
+    @Operation(summary = "签发订阅票据", description = "为本人可访问的门店签发一次性、短期有效的 SSE 订阅票据，供无法设置请求头的浏览器 EventSource 使用")
+    public ResponseEntity<ApiResponse<String>> issueEventTicket(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal,
+            @Parameter(hidden = true) @RequestAttribute(name = JwtAuthenticationFilter.TOKEN_DIGEST_ATTRIBUTE, required = false) TokenDigest tokenDigest) {
+
+        return ResponseEntity.ok(ApiResponse.success(streamTicketRegistry.issue(principal, tokenDigest, storeId), "签发订阅票据成功"));
+    }
+
+    /**
+     * 订阅门店设备状态（SSE）
+     * 使用 Authorization 头或一次性票据鉴权；不要用 token 查询参数携带访问令牌，查询串会完整写入代理和访问日志。
+     * 连接期间令牌所属会话被吊销或失去门店访问权时，连接在下次保活时关闭
+     */
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "订阅门店设备状态", description = "SSE 推送：先发送门店快照（snapshot），之后推送设备上线 / 离线（device-status）、"
+            + "心跳（heartbeat）和门店在线数变化（store-status）；只能订阅本人可访问的门店。浏览器 EventSource 先调用 "
+            + "POST /api/devices/events/ticket 换取一次性票据，再以 ticket 查询参数订阅，不要把访问令牌放进查询参数")
+    public SseEmitter subscribe(
+            @Parameter(description = "门店ID") @RequestParam String storeId,
+            @Parameter(description = "一次性订阅票据（无 Authorization 头时使用）") @RequestParam(required = false) String ticket,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal,
+            @Parameter(hidden = true) @RequestAttribute(name = JwtAuthenticationFilter.TOKEN_DIGEST_ATTRIBUTE, required = false) TokenDigest tokenDigest) {
+
+        if (ticket != null) {
+            StreamTicketRegistry.Grant grant = streamTicketRegistry.redeem(ticket, storeId);
+            principal = grant.principal();
+            tokenDigest = grant.tokenDigest();
+        } else {
+            storeAccess.requireStore(principal, storeId);
+        }
+
+        return deviceStatusBroadcaster.subscribe(storeId, principal, tokenDigest,
+                () -> devicePresenceRegistry.getStoreStatus(storeId, true));
+    }
+
+    private static int checkLimit(int limit) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw BusinessException.dataValidation("返回数必须在 1 到 " + MAX_LIMIT + " 之间");
+        }
+        return limit;
+    }
+}
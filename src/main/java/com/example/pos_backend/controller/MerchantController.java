@@ -1,10 +1,15 @@
 package com.example.pos_backend.controller;
 
 import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.common.CursorPage;
+import com.example.pos_backend.common.ResourceVersion;
 import com.example.pos_backend.dto.MerchantRequestDTO;
 import com.example.pos_backend.dto.MerchantResponseDTO;
 import com.example.pos_backend.dto.MerchantUpdateDTO;
 import com.example.pos_backend.dto.MerchantLoginResponseDTO;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.SecurityConstants;
 import com.example.pos_backend.service.MerchantService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -13,12 +18,16 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * 商家管理控制器 - Square风格
@@ -44,7 +53,7 @@ public class MerchantController {
         log.info("Merchant registration request received for email: {}", requestDTO.getEmail());
         
         // 获取客户端信息
-        String ipAddress = getClientIpAddress(request);
+        String ipAddress = request.getRemoteAddr();
         String userAgent = request.getHeader("User-Agent");
         
         MerchantLoginResponseDTO response = merchantService.registerMerchant(requestDTO, ipAddress, userAgent);
@@ -57,53 +66,73 @@ public class MerchantController {
      * 根据ID获取商家信息
      */
     @GetMapping("/{merchantId}")
-    @Operation(summary = "获取商家信息", description = "根据商家ID获取详细信息")
+    @Operation(summary = "获取商家信息", description = "根据商家ID获取详细信息，支持 If-None-Match / If-Modified-Since 条件请求（未修改时返回 304）")
     public ResponseEntity<ApiResponse<MerchantResponseDTO>> getMerchantById(
-            @Parameter(description = "商家ID") @PathVariable String merchantId) {
+            @Parameter(description = "商家ID") @PathVariable String merchantId,
+            WebRequest webRequest) {
         
+        ResourceVersion version = merchantService.getMerchantVersion(merchantId);
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            // 已写入 304 及 ETag / Last-Modified
+            return null;
+        }
         MerchantResponseDTO response = merchantService.getMerchantById(merchantId);
         
-        return ResponseEntity.ok(ApiResponse.success(response, "获取商家信息成功"));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(response, "获取商家信息成功"));
     }
 
     /**
      * 根据邮箱获取商家信息
      */
     @GetMapping("/email/{email}")
-    @Operation(summary = "根据邮箱获取商家", description = "根据邮箱地址获取商家信息")
+    @Operation(summary = "根据邮箱获取商家", description = "根据邮箱地址获取商家信息，支持 If-None-Match / If-Modified-Since 条件请求（未修改时返回 304）")
     public ResponseEntity<ApiResponse<MerchantResponseDTO>> getMerchantByEmail(
-            @Parameter(description = "商家邮箱") @PathVariable String email) {
+            @Parameter(description = "商家邮箱") @PathVariable String email,
+            WebRequest webRequest) {
         
+        ResourceVersion version = merchantService.getMerchantVersionByEmail(email);
+        if (webRequest.checkNotModified(version.etag(), version.lastModified())) {
+            // 已写入 304 及 ETag / Last-Modified
+            return null;
+        }
         MerchantResponseDTO response = merchantService.getMerchantByEmail(email);
         
-        return ResponseEntity.ok(ApiResponse.success(response, "获取商家信息成功"));
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(ApiResponse.success(response, "获取商家信息成功"));
     }
 
     /**
      * 获取所有活跃商家
      */
     @GetMapping("/active")
-    @Operation(summary = "获取活跃商家列表", description = "获取所有状态为活跃的商家")
-    public ResponseEntity<ApiResponse<List<MerchantResponseDTO>>> getAllActiveMerchants() {
+    @Operation(summary = "获取活跃商家列表", description = "按创建时间倒序分页获取活跃商家，使用上一页返回的 nextCursor 翻页")
+    public ResponseEntity<ApiResponse<CursorPage<MerchantResponseDTO>>> getAllActiveMerchants(
+            @Parameter(description = "分页游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，最大100") @RequestParam(required = false) Integer size) {
         
-        List<MerchantResponseDTO> response = merchantService.getAllActiveMerchants();
+        CursorPage<MerchantResponseDTO> response = merchantService.getActiveMerchants(cursor, size);
         
         return ResponseEntity.ok(ApiResponse.success(response, 
-                String.format("获取到 %d 个活跃商家", response.size())));
+                String.format("获取到 %d 个活跃商家", response.items().size())));
     }
 
     /**
      * 根据行业获取商家
      */
     @GetMapping("/industry/{industry}")
-    @Operation(summary = "根据行业获取商家", description = "获取指定行业的所有商家")
-    public ResponseEntity<ApiResponse<List<MerchantResponseDTO>>> getMerchantsByIndustry(
-            @Parameter(description = "行业类型") @PathVariable String industry) {
+    @Operation(summary = "根据行业获取商家", description = "按创建时间倒序分页获取指定行业的商家")
+    public ResponseEntity<ApiResponse<CursorPage<MerchantResponseDTO>>> getMerchantsByIndustry(
+            @Parameter(description = "行业类型") @PathVariable String industry,
+            @Parameter(description = "分页游标，第一页不传") @RequestParam(required = false) String cursor,
+            @Parameter(description = "每页条数，最大100") @RequestParam(required = false) Integer size) {
         
-        List<MerchantResponseDTO> response = merchantService.getMerchantsByIndustry(industry);
+        CursorPage<MerchantResponseDTO> response = merchantService.getMerchantsByIndustry(industry, cursor, size);
         
         return ResponseEntity.ok(ApiResponse.success(response, 
-                String.format("获取到 %d 个 %s 行业的商家", response.size(), industry)));
+                String.format("获取到 %d 个 %s 行业的商家", response.items().size(), industry)));
     }
 
     /**
@@ -126,27 +155,28 @@ public class MerchantController {
      * 删除商家（软删除）
      */
     @DeleteMapping("/{merchantId}")
-    @Operation(summary = "删除商家", description = "软删除指定商家及其所有门店")
-    public ResponseEntity<ApiResponse<Void>> deleteMerchant(
+    @Operation(summary = "删除商家", description = "软删除指定商家及其门店、员工、设备、商品和会话，返回各表影响行数；仅商家账号本身可以删除")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> deleteMerchant(
             @Parameter(description = "商家ID") @PathVariable String merchantId,
-            @Parameter(description = "操作人ID") @RequestParam(required = false) String deletedBy) {
+            @AuthenticationPrincipal AuthenticatedPrincipal principal) {
         
         log.info("Merchant deletion request received for ID: {}", merchantId);
         
-        merchantService.deleteMerchant(merchantId, deletedBy);
+        Map<String, Long> affected = merchantService.deleteMerchant(merchantId, principal);
         
-        return ResponseEntity.ok(ApiResponse.success(null, "商家删除成功"));
+        return ResponseEntity.ok(ApiResponse.success(affected, "商家删除成功"));
     }
 
     /**
      * 搜索商家
      */
     @GetMapping("/search")
-    @Operation(summary = "搜索商家", description = "根据关键词搜索商家（企业名称或邮箱）")
+    @Operation(summary = "搜索商家", description = "根据关键词搜索商家（企业名称或邮箱），按相关度排序返回前 limit 个")
     public ResponseEntity<ApiResponse<List<MerchantResponseDTO>>> searchMerchants(
-            @Parameter(description = "搜索关键词") @RequestParam String keyword) {
+            @Parameter(description = "搜索关键词") @RequestParam String keyword,
+            @Parameter(description = "最多返回条数，最大100") @RequestParam(required = false) Integer limit) {
         
-        List<MerchantResponseDTO> response = merchantService.searchMerchants(keyword);
+        List<MerchantResponseDTO> response = merchantService.searchMerchants(keyword, limit);
         
         return ResponseEntity.ok(ApiResponse.success(response, 
                 String.format("搜索到 %d 个相关商家", response.size())));
@@ -176,6 +206,18 @@ public class MerchantController {
         return ResponseEntity.ok(ApiResponse.success(stats, "获取行业统计成功"));
     }
 
+    /**
+     * 获取各国家商家统计
+     */
+    @GetMapping("/stats/country")
+    @Operation(summary = "国家统计", description = "获取各国家商家数量统计")
+    public ResponseEntity<ApiResponse<List<Object[]>>> getMerchantsStatsByCountry() {
+        
+        List<Object[]> stats = merchantService.countMerchantsByCountry();
+        
+        return ResponseEntity.ok(ApiResponse.success(stats, "获取国家统计成功"));
+    }
+
     /**
      * 商家登录认证 - OAuth2版本
      */
@@ -189,7 +231,7 @@ public class MerchantController {
         log.info("Merchant login request received for email: {}", email);
         
         // 获取客户端信息
-        String ipAddress = getClientIpAddress(request);
+        String ipAddress = request.getRemoteAddr();
         String userAgent = request.getHeader("User-Agent");
         
         MerchantLoginResponseDTO response = merchantService.authenticateMerchant(email, password, ipAddress, userAgent);
@@ -198,19 +240,19 @@ public class MerchantController {
     }
 
     /**
-     * 获取客户端真实IP地址
+     * 商家登出
      */
-    private String getClientIpAddress(HttpServletRequest request) {
-        String xForwardedFor = request.getHeader("X-Forwarded-For");
-        if (StringUtils.hasText(xForwardedFor) && !"unknown".equalsIgnoreCase(xForwardedFor)) {
-            return xForwardedFor.split(",")[0].trim();
-        }
-        
-        String xRealIp = request.getHeader("X-Real-IP");
-        if (StringUtils.hasText(xRealIp) && !"unknown".equalsIgnoreCase(xRealIp)) {
-            return xRealIp;
+    @PostMapping("/logout")
+    @Operation(summary = "商家登出", description = "停用当前会话并吊销访问令牌和刷新令牌")
+    public ResponseEntity<ApiResponse<Void>> logoutMerchant(HttpServletRequest request) {
+
+        String bearerToken = request.getHeader(SecurityConstants.JWT.HEADER_STRING);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith(SecurityConstants.JWT.TOKEN_PREFIX)) {
+            throw new BusinessException("缺少访问令牌");
         }
-        
-        return request.getRemoteAddr();
+
+        merchantService.logout(bearerToken.substring(SecurityConstants.JWT.TOKEN_PREFIX.length()));
+
+        return ResponseEntity.ok(ApiResponse.success(null, "商家登出成功"));
     }
 }
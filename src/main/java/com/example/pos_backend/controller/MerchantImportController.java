@@ -0,0 +1,76 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.dto.MerchantImportJobDTO;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.service.DataExportService;
+import com.example.pos_backend.service.MerchantImportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 商家批量导入控制器
+ * 接收 CSV / NDJSON 请求体并转为后台任务，路径位于 /api/system 下，需要管理员权限；导入记录的创建人为当前登录的管理员
+ */
+@RestController
+@RequestMapping("/api/system/import")
+@RequiredArgsConstructor
+@Tag(name = "批量导入", description = "商家及门店批量开通")
+public class MerchantImportController {
+
+    private final MerchantImportService merchantImportService;
+
+    /**
+     * 提交商家导入任务
+     */
+    @PostMapping("/merchants")
+    @Operation(summary = "导入商家", description = "请求体为 CSV 或 NDJSON（可 gzip 压缩），立即返回任务ID，导入在后台按块执行，逐行错误记入任务结果")
+    public ResponseEntity<ApiResponse<MerchantImportJobDTO>> importMerchants(
+            @Parameter(description = "文件格式：ndjson 或 csv") @RequestParam(defaultValue = "ndjson") String format,
+            @Parameter(description = "请求体是否 gzip 压缩") @RequestParam(defaultValue = "false") boolean gzip,
+            @AuthenticationPrincipal AuthenticatedPrincipal principal,
+            HttpServletRequest request) throws IOException {
+
+        MerchantImportJobDTO job = merchantImportService.submit(
+                request.getInputStream(), DataExportService.Format.of(format), gzip, principal.id());
+
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(ApiResponse.success(job, "导入任务已提交"));
+    }
+
+    /**
+     * 查询导入任务
+     */
+    @GetMapping("/jobs/{jobId}")
+    @Operation(summary = "查询导入任务", description = "获取导入进度、成功数量和逐行错误")
+    public ResponseEntity<ApiResponse<MerchantImportJobDTO>> getJob(
+            @Parameter(description = "任务ID") @PathVariable String jobId) {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantImportService.getJob(jobId), "获取导入任务成功"));
+    }
+
+    /**
+     * 最近的导入任务
+     */
+    @GetMapping("/jobs")
+    @Operation(summary = "导入任务列表", description = "获取本节点最近的导入任务")
+    public ResponseEntity<ApiResponse<List<MerchantImportJobDTO>>> listJobs() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantImportService.listJobs(), "获取导入任务列表成功"));
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.common.CacheStats;
+import com.example.pos_backend.security.DeviceActivationLimiter;
+import com.example.pos_backend.security.LoginAttemptLimiter;
+import com.example.pos_backend.security.PasswordHashingExecutor;
+import com.example.pos_backend.security.PermissionEngine;
+import com.example.pos_backend.security.SessionRevocationIndex;
+import com.example.pos_backend.security.StreamTicketRegistry;
+import com.example.pos_backend.security.VerifiedTokenCache;
+import com.example.pos_backend.service.DataExportService;
+import com.example.pos_backend.service.DeviceActivationService;
+import com.example.pos_backend.service.DeviceCodeAllocator;
+import com.example.pos_backend.service.DeviceCodeExpiryScheduler;
+import com.example.pos_backend.service.DevicePresenceRegistry;
+import com.example.pos_backend.service.DeviceStatusBroadcaster;
+import com.example.pos_backend.service.ExpiredSessionPurger;
+import com.example.pos_backend.service.MerchantCache;
+import com.example.pos_backend.service.MerchantCounters;
+import com.example.pos_backend.service.MerchantEmailFilter;
+import com.example.pos_backend.service.MerchantImportService;
+import com.example.pos_backend.service.MerchantSearchIndex;
+import com.example.pos_backend.service.PinAuthService;
+import com.example.pos_backend.service.SessionActivityTracker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * 系统运行指标控制器
+ * 暴露本地缓存等组件的运行统计，路径位于 /api/system 下，需要管理员权限
+ */
+@RestController
+@RequestMapping("/api/system/metrics")
+@RequiredArgsConstructor
+@Tag(name = "系统指标", description = "本地缓存与后台任务运行指标")
+public class SystemMetricsController {
+
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final SessionRevocationIndex sessionRevocationIndex;
+    private final SessionActivityTracker sessionActivityTracker;
+    private final ExpiredSessionPurger expiredSessionPurger;
+    private final PermissionEngine permissionEngine;
+    private final PinAuthService pinAuthService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptLimiter loginAttemptLimiter;
+    private final DataExportService dataExportService;
+    private final MerchantSearchIndex merchantSearchIndex;
+    private final MerchantCounters merchantCounters;
+    private final MerchantCache merchantCache;
+    private final MerchantEmailFilter merchantEmailFilter;
+    private final MerchantImportService merchantImportService;
+    private final DeviceCodeAllocator deviceCodeAllocator;
+    private final DeviceCodeExpiryScheduler deviceCodeExpiryScheduler;
+    private final DeviceActivationService deviceActivationService;
+    private final DeviceActivationLimiter deviceActivationLimiter;
+    private final DevicePresenceRegistry devicePresenceRegistry;
+    private final DeviceStatusBroadcaster deviceStatusBroadcaster;
+    private final StreamTicketRegistry streamTicketRegistry;
+
+    /**
+     * 获取JWT验证缓存统计
+     */
+    @GetMapping("/jwt-cache")
+    @Operation(summary = "JWT验证缓存统计", description = "获取已验证令牌缓存的命中、未命中、淘汰次数和当前条目数")
+    public ResponseEntity<ApiResponse<CacheStats>> getJwtCacheStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(verifiedTokenCache.stats(), "获取JWT缓存统计成功"));
+    }
+
+    /**
+     * 获取会话吊销索引统计
+     */
+    @GetMapping("/session-revocation")
+    @Operation(summary = "会话吊销索引统计", description = "获取吊销检查次数、布隆过滤器放行次数、拒绝次数和当前条目数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getSessionRevocationStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(sessionRevocationIndex.stats(), "获取会话吊销统计成功"));
+    }
+
+    /**
+     * 获取会话活跃时间写回统计
+     */
+    @GetMapping("/session-activity")
+    @Operation(summary = "会话活跃写回统计", description = "获取活跃记录次数、合并次数、写回行数和待写回条数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getSessionActivityStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(sessionActivityTracker.stats(), "获取会话活跃统计成功"));
+    }
+
+    /**
+     * 获取过期会话清理统计
+     */
+    @GetMapping("/session-purge")
+    @Operation(summary = "过期会话清理统计", description = "获取累计删除行数、分块耗时和剩余积压行数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getSessionPurgeStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(expiredSessionPurger.stats(), "获取会话清理统计成功"));
+    }
+
+    /**
+     * 获取权限引擎统计
+     */
+    @GetMapping("/permissions")
+    @Operation(summary = "权限引擎统计", description = "获取权限检查次数、用户掩码加载次数、重新编译次数和缓存用户数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getPermissionEngineStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(permissionEngine.stats(), "获取权限引擎统计成功"));
+    }
+
+    /**
+     * 获取员工PIN登录统计
+     */
+    @GetMapping("/pin-login")
+    @Operation(summary = "PIN登录统计", description = "获取PIN登录成功、失败、锁定次数和门店名册加载次数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getPinLoginStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(pinAuthService.stats(), "获取PIN登录统计成功"));
+    }
+
+    /**
+     * 获取密码哈希线程池统计
+     */
+    @GetMapping("/password-hashing")
+    @Operation(summary = "密码哈希线程池统计", description = "获取队列深度、活跃线程数、哈希耗时、排队时间和拒绝次数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getPasswordHashingStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(passwordHashingExecutor.stats(), "获取密码哈希统计成功"));
+    }
+
+    /**
+     * 获取登录限流统计
+     */
+    @GetMapping("/login-limit")
+    @Operation(summary = "登录限流统计", description = "获取登录失败次数、被拦截次数和跟踪中的邮箱/IP数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getLoginLimitStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(loginAttemptLimiter.stats(), "获取登录限流统计成功"));
+    }
+
+    /**
+     * 获取数据导出统计
+     */
+    @GetMapping("/export")
+    @Operation(summary = "数据导出统计", description = "获取导出次数、导出行数、失败次数、被拒绝次数和进行中的导出数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getExportStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(dataExportService.stats(), "获取数据导出统计成功"));
+    }
+
+    /**
+     * 获取商家搜索索引统计
+     */
+    @GetMapping("/merchant-search")
+    @Operation(summary = "商家搜索索引统计", description = "获取搜索次数、平均耗时、增量更新与重建次数和索引规模")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getMerchantSearchStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantSearchIndex.stats(), "获取商家搜索索引统计成功"));
+    }
+
+    /**
+     * 获取商家计数器统计
+     */
+    @GetMapping("/merchant-counters")
+    @Operation(summary = "商家计数器统计", description = "获取增量调整次数、对账次数和最近一次对账偏差")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getMerchantCounterStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantCounters.stats(), "获取商家计数器统计成功"));
+    }
+
+    /**
+     * 获取商家 / 门店缓存统计
+     */
+    @GetMapping("/merchant-cache")
+    @Operation(summary = "商家缓存统计", description = "获取商家ID、邮箱、默认门店缓存的命中、未命中、淘汰次数和当前条目数")
+    public ResponseEntity<ApiResponse<Map<String, CacheStats>>> getMerchantCacheStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantCache.stats(), "获取商家缓存统计成功"));
+    }
+
+    /**
+     * 获取商家邮箱过滤器统计
+     */
+    @GetMapping("/merchant-email-filter")
+    @Operation(summary = "商家邮箱过滤器统计", description = "获取邮箱查重次数、免查库次数、实测与理论误判率（百万分比）和过滤器规模")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getMerchantEmailFilterStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantEmailFilter.stats(), "获取商家邮箱过滤器统计成功"));
+    }
+
+    /**
+     * 获取商家批量导入统计
+     */
+    @GetMapping("/merchant-import")
+    @Operation(summary = "商家批量导入统计", description = "获取导入任务数、导入商家与门店数、失败记录数和哈希队列深度")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getMerchantImportStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(merchantImportService.stats(), "获取商家批量导入统计成功"));
+    }
+
+    /**
+     * 获取设备激活码池统计
+     */
+    @GetMapping("/device-code-pool")
+    @Operation(summary = "设备激活码池统计", description = "获取池中可发放数、已发放数、唯一索引冲突数、发放冲突数和补充次数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceCodePoolStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(deviceCodeAllocator.stats(), "获取设备激活码池统计成功"));
+    }
+
+    /**
+     * 获取设备激活统计
+     */
+    @GetMapping("/device-activation")
+    @Operation(summary = "设备激活统计", description = "获取激活成功、重复激活次数和各类激活失败次数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceActivationStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(deviceActivationService.stats(), "获取设备激活统计成功"));
+    }
+
+    /**
+     * 获取设备激活限流统计
+     */
+    @GetMapping("/device-activation-limit")
+    @Operation(summary = "设备激活限流统计", description = "获取激活失败次数、被拦截次数和跟踪中的设备指纹/IP数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceActivationLimitStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(deviceActivationLimiter.stats(), "获取设备激活限流统计成功"));
+    }
+
+    /**
+     * 获取设备激活码过期调度统计
+     */
+    @GetMapping("/device-code-expiry")
+    @Operation(summary = "设备激活码过期统计", description = "获取时间轮中待过期数、层数、到期数、实际置为过期数和更新批次数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceCodeExpiryStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(deviceCodeExpiryScheduler.stats(), "获取设备激活码过期统计成功"));
+    }
+
+    /**
+     * 获取设备在线状态表统计
+     */
+    @GetMapping("/device-presence")
+    @Operation(summary = "设备在线状态统计", description = "获取心跳次数、上线 / 离线转换次数、写回行数和在线设备数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDevicePresenceStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(devicePresenceRegistry.stats(), "获取设备在线状态统计成功"));
+    }
+
+    /**
+     * 获取设备状态推送统计
+     */
+    @GetMapping("/device-events")
+    @Operation(summary = "设备状态推送统计", description = "获取当前订阅数、订阅门店数、发布事件数、送达帧数和慢消费者断开数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceEventStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(deviceStatusBroadcaster.stats(), "获取设备状态推送统计成功"));
+    }
+
+    /**
+     * 获取设备状态订阅票据统计
+     */
+    @GetMapping("/device-event-tickets")
+    @Operation(summary = "订阅票据统计", description = "获取订阅票据的签发数、使用数、拒绝数和未使用数")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getDeviceEventTicketStats() {
+
+        return ResponseEntity.ok(ApiResponse.success(streamTicketRegistry.stats(), "获取订阅票据统计成功"));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.pos_backend.controller;
+
+import com.example.pos_backend.common.ApiResponse;
+import com.example.pos_backend.dto.PinUpdateDTO;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.service.PinAuthService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 员工 PIN 管理控制器
+ */
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+@Tag(name = "员工PIN管理", description = "设置员工收银终端登录PIN码")
+public class UserPinController {
+
+    private final PinAuthService pinAuthService;
+
+    /**
+     * 设置员工 PIN
+     */
+    @PutMapping("/{userId}/pin")
+    @PreAuthorize("hasPermission('user', 'edit')")
+    @Operation(summary = "设置员工PIN", description = "设置员工的4-6位PIN码，同一门店内不可重复；只能设置本商家、本人可访问门店的员工")
+    public ResponseEntity<ApiResponse<Void>> updatePin(
+            @Parameter(description = "用户ID") @PathVariable String userId,
+            @Valid @RequestBody PinUpdateDTO updateDTO,
+            @AuthenticationPrincipal AuthenticatedPrincipal operator) {
+
+        pinAuthService.updatePin(userId, updateDTO.getPin(), operator);
+
+        return ResponseEntity.ok(ApiResponse.success(null, "PIN设置成功"));
+    }
+}
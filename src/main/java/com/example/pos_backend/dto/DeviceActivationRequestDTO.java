@@ -18,10 +18,10 @@ import lombok.NoArgsConstructor;
 public class DeviceActivationRequestDTO {
 
     /**
-     * 激活码（12位数字字母混合）
+     * 激活码（12位数字字母混合，可按 4 位一组用连字符分隔）
      */
     @NotBlank(message = "激活码不能为空")
-    @Size(min = 12, max = 12, message = "激活码必须为12位")
+    @Size(min = 12, max = 14, message = "激活码必须为12位")
     private String activationCode;
 
     /**
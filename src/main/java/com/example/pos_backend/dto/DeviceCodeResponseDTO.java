@@ -33,6 +33,11 @@ public class DeviceCodeResponseDTO {
      */
     private String deviceId;
 
+    /**
+     * 发放门店ID
+     */
+    private String storeId;
+
     /**
      * 设备指纹信息
      */
@@ -0,0 +1,46 @@
+package com.example.pos_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * 设备在线状态DTO
+ * 用于返回设备心跳和在线状态（来自节点内存中的在线状态表）
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DevicePresenceDTO {
+
+    /**
+     * 设备ID
+     */
+    private String deviceId;
+
+    /**
+     * 所属门店ID
+     */
+    private String storeId;
+
+    /**
+     * 在线状态：ONLINE / OFFLINE
+     */
+    private String status;
+
+    /**
+     * 最后一次心跳时间
+     */
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+    private Instant lastSeenAt;
+
+    /**
+     * 最后一次心跳的来源IP
+     */
+    private String ipAddress;
+}
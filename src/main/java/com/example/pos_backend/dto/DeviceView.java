@@ -0,0 +1,22 @@
+package com.example.pos_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.time.Instant;
+
+/**
+ * 设备只读投影
+ * 设备列表只需要标识、类型和在线信息，不加载完整设备实体，也不进入持久化上下文。
+ */
+public record DeviceView(String id,
+                         String storeId,
+                         String deviceName,
+                         String deviceType,
+                         String macAddress,
+                         String ipAddress,
+                         String status,
+                         @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+                         Instant lastOnline,
+                         @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", timezone = "UTC")
+                         Instant registeredAt) {
+}
@@ -0,0 +1,100 @@
+package com.example.pos_backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * 商家批量导入任务DTO
+ * 用于返回导入任务的进度、结果和逐行错误
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MerchantImportJobDTO {
+
+    /**
+     * 任务ID
+     */
+    private String jobId;
+
+    /**
+     * 任务状态：QUEUED / RUNNING / COMPLETED / FAILED
+     */
+    private String status;
+
+    /**
+     * 文件格式：NDJSON / CSV
+     */
+    private String format;
+
+    /**
+     * 已读取的商家记录数
+     */
+    private long processedRecords;
+
+    /**
+     * 成功导入的商家数
+     */
+    private long importedMerchants;
+
+    /**
+     * 成功导入的门店数
+     */
+    private long importedStores;
+
+    /**
+     * 失败的商家记录数
+     */
+    private long failedRecords;
+
+    /**
+     * 逐行错误（最多保留 merchant.import.max-errors 条）
+     */
+    private List<RowError> errors;
+
+    /**
+     * 错误是否因超过保留上限被截断
+     */
+    private boolean errorsTruncated;
+
+    /**
+     * 任务整体失败原因（文件无法解析等）
+     */
+    private String failureReason;
+
+    private Instant createdAt;
+
+    private Instant startedAt;
+
+    private Instant finishedAt;
+
+    /**
+     * 单条记录的导入错误
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+
+        /**
+         * 记录在文件中的起始行号
+         */
+        private long line;
+
+        /**
+         * 商家邮箱
+         */
+        private String email;
+
+        /**
+         * 错误原因
+         */
+        private String message;
+    }
+}
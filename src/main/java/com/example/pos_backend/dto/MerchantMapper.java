@@ -48,6 +48,27 @@ public class MerchantMapper {
                 .build();
     }
 
+    /**
+     * 只读投影转响应DTO
+     */
+    public static MerchantResponseDTO toResponseDTO(MerchantView merchant) {
+        if (merchant == null) {
+            return null;
+        }
+
+        return MerchantResponseDTO.builder()
+                .merchantId(merchant.id())
+                .email(merchant.email())
+                .businessName(merchant.businessName())
+                .industry(merchant.industry())
+                .currency(merchant.currency())
+                .country(merchant.country())
+                .status(merchant.status())
+                .createdAt(merchant.createdAt())
+                .updatedAt(merchant.updatedAt())
+                .build();
+    }
+
     /**
      * 实体转响应DTO（包含门店信息）
      */
@@ -124,7 +145,7 @@ public class MerchantMapper {
     /**
      * 实体转OAuth2登录响应DTO
      */
-    public static MerchantLoginResponseDTO toLoginResponseDTO(Merchant merchant, Store store, 
+    public static MerchantLoginResponseDTO toLoginResponseDTO(Merchant merchant, String locationId, 
                                                             String accessToken, String refreshToken,
                                                             Long expiresIn, Long refreshExpiresIn,
                                                             String sessionId) {
@@ -145,7 +166,7 @@ public class MerchantMapper {
 
         return MerchantLoginResponseDTO.builder()
                 .merchantId(merchant.getId())
-                .locationId(store != null ? store.getId() : null)
+                .locationId(locationId)
                 .accessToken(accessToken)
                 .refreshToken(refreshToken)
                 .tokenType("Bearer")
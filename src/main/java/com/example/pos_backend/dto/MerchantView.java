@@ -0,0 +1,27 @@
+package com.example.pos_backend.dto;
+
+import java.time.Instant;
+
+/**
+ * 商家只读投影
+ * 由 JPQL 构造表达式直接生成，不含密码哈希和审计人字段，也不进入持久化上下文（无快照、无脏检查）。
+ * 读接口、列表、搜索和商家缓存都使用该投影，需要修改商家时才加载 Merchant 实体。
+ */
+public record MerchantView(String id,
+                           String email,
+                           String businessName,
+                           String industry,
+                           String currency,
+                           String country,
+                           String status,
+                           Boolean isDeleted,
+                           Instant createdAt,
+                           Instant updatedAt) {
+
+    /**
+     * JPQL 构造表达式，Repository 查询以此开头再拼接 WHERE / ORDER BY
+     */
+    public static final String SELECT =
+            "SELECT new com.example.pos_backend.dto.MerchantView(m.id, m.email, m.businessName, m.industry, " +
+            "m.currency, m.country, m.status, m.isDeleted, m.createdAt, m.updatedAt) FROM Merchant m ";
+}
@@ -0,0 +1,34 @@
+package com.example.pos_backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 员工 PIN 登录请求DTO（iPad 收银终端）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinLoginRequestDTO {
+
+    /**
+     * 门店ID
+     */
+    @NotBlank(message = "门店ID不能为空")
+    private String storeId;
+
+    /**
+     * PIN 码
+     */
+    @NotBlank(message = "PIN码不能为空")
+    @Pattern(regexp = "\\d{4,6}", message = "PIN码必须为4-6位数字")
+    private String pin;
+
+    /**
+     * 终端设备ID（可选）
+     */
+    private String deviceId;
+}
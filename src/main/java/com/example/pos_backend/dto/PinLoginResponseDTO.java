@@ -0,0 +1,46 @@
+package com.example.pos_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 员工 PIN 登录响应DTO
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinLoginResponseDTO {
+
+    @JsonProperty("user_id")
+    private String userId;
+
+    @JsonProperty("location_id")
+    private String locationId;
+
+    @JsonProperty("access_token")
+    private String accessToken;
+
+    @JsonProperty("token_type")
+    @Builder.Default
+    private String tokenType = "Bearer";
+
+    @JsonProperty("expires_in")
+    private Long expiresIn;
+
+    @JsonProperty("session_id")
+    private String sessionId;
+
+    private String username;
+
+    @JsonProperty("first_name")
+    private String firstName;
+
+    @JsonProperty("last_name")
+    private String lastName;
+
+    private String role;
+}
@@ -0,0 +1,23 @@
+package com.example.pos_backend.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 员工 PIN 设置请求DTO
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PinUpdateDTO {
+
+    /**
+     * 新 PIN 码
+     */
+    @NotBlank(message = "PIN码不能为空")
+    @Pattern(regexp = "\\d{4,6}", message = "PIN码必须为4-6位数字")
+    private String pin;
+}
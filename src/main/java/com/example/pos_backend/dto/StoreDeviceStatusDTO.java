@@ -0,0 +1,41 @@
+package com.example.pos_backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * 门店设备状态DTO
+ * 用于设备状态推送：订阅时的门店快照和门店在线数变化
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class StoreDeviceStatusDTO {
+
+    /**
+     * 门店ID
+     */
+    private String storeId;
+
+    /**
+     * 在线设备数
+     */
+    private int onlineDevices;
+
+    /**
+     * 设备总数
+     */
+    private int totalDevices;
+
+    /**
+     * 门店全部设备的在线状态（仅快照事件包含）
+     */
+    private List<DevicePresenceDTO> devices;
+}
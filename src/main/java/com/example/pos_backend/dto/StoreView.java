@@ -0,0 +1,20 @@
+package com.example.pos_backend.dto;
+
+import java.time.Instant;
+
+/**
+ * 门店只读投影
+ * 登录时只需要默认门店的标识信息，不加载税率、营业时间等完整门店实体。
+ */
+public record StoreView(String id,
+                        String merchantId,
+                        String storeName,
+                        String status,
+                        Instant createdAt) {
+
+    /**
+     * JPQL 构造表达式，Repository 查询以此开头再拼接 WHERE / ORDER BY
+     */
+    public static final String SELECT =
+            "SELECT new com.example.pos_backend.dto.StoreView(s.id, s.merchantId, s.storeName, s.status, s.createdAt) FROM Store s ";
+}
@@ -20,6 +20,10 @@ public class Device {
     @Column(name = "device_id", nullable = false, columnDefinition = "CHAR(36)")
     private String id;
 
+    @NotNull
+    @Column(name = "store_id", nullable = false, columnDefinition = "CHAR(36)")
+    private String storeId;
+
     @Size(max = 100)
     @NotNull
     @Column(name = "device_name", nullable = false, length = 100)
@@ -28,6 +28,9 @@ public class DeviceCode {
     @Column(name = "device_id", columnDefinition = "CHAR(36)")
     private String deviceId;
 
+    @Column(name = "store_id", columnDefinition = "CHAR(36)")
+    private String storeId;
+
     @Size(max = 255)
     @Column(name = "device_fingerprint", length = 255)
     private String deviceFingerprint;
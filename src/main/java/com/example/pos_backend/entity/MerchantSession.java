@@ -27,13 +27,11 @@ public class MerchantSession {
     @Column(name = "device_id", columnDefinition = "CHAR(36)")
     private String deviceId;
 
-    @Size(max = 500)
-    @Column(name = "access_token", length = 500)
-    private String accessToken;
+    @Column(name = "access_token_hash", columnDefinition = "BINARY(32)")
+    private byte[] accessTokenHash;
 
-    @Size(max = 500)
-    @Column(name = "refresh_token", length = 500)
-    private String refreshToken;
+    @Column(name = "refresh_token_hash", columnDefinition = "BINARY(32)")
+    private byte[] refreshTokenHash;
 
     @Column(name = "access_token_expires_at")
     private Instant accessTokenExpiresAt;
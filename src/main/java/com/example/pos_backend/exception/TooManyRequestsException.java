@@ -0,0 +1,35 @@
+package com.example.pos_backend.exception;
+
+/**
+ * 请求过多异常
+ * 登录限流或密码哈希线程池饱和时抛出，由全局异常处理器转换为 HTTP 429 并带 Retry-After 头
+ */
+public class TooManyRequestsException extends BusinessException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * 建议的重试等待时间（秒）
+     */
+    private final long retryAfterSeconds;
+
+    /**
+     * 带消息和重试等待时间的构造函数
+     *
+     * @param message           异常消息
+     * @param retryAfterSeconds 重试等待时间（秒）
+     */
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super("TOO_MANY_REQUESTS", message);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    /**
+     * 获取重试等待时间
+     *
+     * @return 重试等待时间（秒）
+     */
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -3,6 +3,7 @@ package com.example.pos_backend.repository;
 import com.example.pos_backend.entity.DeviceCode;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -200,6 +201,7 @@ public interface DeviceCodeRepository extends JpaRepository<DeviceCode, String>,
     /**
      * 批量更新过期设备码状态
      */
+    @Modifying
     @Query("UPDATE DeviceCode dc SET dc.status = 'EXPIRED', dc.updatedAt = :currentTime WHERE dc.expiredAt < :currentTime AND dc.status = 'UNUSED' AND dc.isDeleted = false")
     int batchExpireDeviceCodes(@Param("currentTime") Instant currentTime);
 
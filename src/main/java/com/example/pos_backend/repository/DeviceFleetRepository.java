@@ -0,0 +1,23 @@
+package com.example.pos_backend.repository;
+
+import com.example.pos_backend.dto.DeviceView;
+import com.example.pos_backend.entity.Device;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * 设备列表查询（自定义 Repository 片段）
+ * JpaSpecificationExecutor 只能返回实体，这里用同一个 Specification 生成构造表达式查询，直接返回只读投影。
+ */
+public interface DeviceFleetRepository {
+
+    /**
+     * 按条件查询一页设备，顺序为 last_online DESC, device_id DESC
+     *
+     * @param filter 查询条件（含键集分页条件）
+     * @param limit  最大返回行数
+     * @return 设备投影
+     */
+    List<DeviceView> findFleetPage(Specification<Device> filter, int limit);
+}
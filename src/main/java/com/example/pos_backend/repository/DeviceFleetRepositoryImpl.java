@@ -0,0 +1,39 @@
+package com.example.pos_backend.repository;
+
+import com.example.pos_backend.dto.DeviceView;
+import com.example.pos_backend.entity.Device;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * 设备列表查询实现
+ */
+public class DeviceFleetRepositoryImpl implements DeviceFleetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<DeviceView> findFleetPage(Specification<Device> filter, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<DeviceView> query = cb.createQuery(DeviceView.class);
+        Root<Device> root = query.from(Device.class);
+        query.select(cb.construct(DeviceView.class,
+                root.get("id"), root.get("storeId"), root.get("deviceName"), root.get("deviceType"),
+                root.get("macAddress"), root.get("ipAddress"), root.get("status"),
+                root.get("lastOnline"), root.get("registeredAt")));
+        Predicate predicate = filter.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.desc(root.get("lastOnline")), cb.desc(root.get("id")));
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
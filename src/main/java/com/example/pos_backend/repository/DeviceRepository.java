@@ -3,6 +3,7 @@ package com.example.pos_backend.repository;
 import com.example.pos_backend.entity.Device;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -16,7 +17,8 @@ import java.util.Optional;
  * 提供设备相关的数据访问方法
  */
 @Repository
-public interface DeviceRepository extends JpaRepository<Device, String>, JpaSpecificationExecutor<Device> {
+public interface DeviceRepository extends JpaRepository<Device, String>, JpaSpecificationExecutor<Device>,
+        DeviceFleetRepository {
 
     /**
      * 根据设备名称查找设备
@@ -90,12 +92,14 @@ public interface DeviceRepository extends JpaRepository<Device, String>, JpaSpec
 
     /**
      * 查找在线设备（状态为ONLINE且未删除）
+     * 设备表中的状态由心跳写回，最多落后一个写回间隔；实时查询使用 DevicePresenceRegistry
      */
     @Query("SELECT d FROM Device d WHERE d.status = 'ONLINE' AND d.isDeleted = false")
     List<Device> findOnlineDevices();
 
     /**
      * 查找离线设备（状态为OFFLINE且未删除）
+     * 设备表中的状态由心跳写回，最多落后一个写回间隔；实时查询使用 DevicePresenceRegistry
      */
     @Query("SELECT d FROM Device d WHERE d.status = 'OFFLINE' AND d.isDeleted = false")
     List<Device> findOfflineDevices();
@@ -122,6 +126,7 @@ public interface DeviceRepository extends JpaRepository<Device, String>, JpaSpec
 
     /**
      * 查找长时间未在线的设备
+     * 设备表中的状态由心跳写回，最多落后一个写回间隔；实时查询使用 DevicePresenceRegistry
      */
     @Query("SELECT d FROM Device d WHERE d.lastOnline < :threshold AND d.isDeleted = false")
     List<Device> findDevicesNotOnlineSince(@Param("threshold") Instant threshold);
@@ -131,4 +136,15 @@ public interface DeviceRepository extends JpaRepository<Device, String>, JpaSpec
      */
     @Query("SELECT d FROM Device d WHERE (d.deviceName LIKE %:keyword% OR d.deviceType LIKE %:keyword%) AND d.isDeleted = false")
     List<Device> findByDeviceNameOrDeviceTypeContaining(@Param("keyword") String keyword);
+
+    /**
+     * 批量软删除商家各门店的设备（每次最多 limit 行，返回影响行数）
+     */
+    @Modifying
+    @Query(value = "UPDATE devices SET is_deleted = TRUE, status = 'OFFLINE', updated_by = :deletedBy " +
+                   "WHERE store_id IN (SELECT id FROM stores WHERE merchant_id = :merchantId) AND is_deleted = FALSE " +
+                   "LIMIT :limit", nativeQuery = true)
+    int softDeleteByMerchantId(@Param("merchantId") String merchantId,
+                               @Param("deletedBy") String deletedBy,
+                               @Param("limit") int limit);
 }
@@ -0,0 +1,87 @@
+package com.example.pos_backend.repository;
+
+import com.example.pos_backend.entity.Device;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Instant;
+
+/**
+ * 设备查询条件
+ * 条件只使用列上的等值、区间和前缀匹配，不对列套函数、不使用前导通配符。参数为空的条件返回 null，组合时被忽略。
+ * 设备列表总是限定单个门店，门店 + 未删除等值落在 idx_devices_store_keyset (store_id, is_deleted, last_online, device_id) 前缀上，
+ * 索引顺序即 last_online DESC, device_id DESC 的倒序扫描，不需要 filesort；状态、类型、时间区间、名称前缀在沿索引扫描时逐行过滤，
+ * 凑满 size + 1 行即停止，筛选越严格扫描的行越多，但不会超过该门店的设备数。
+ */
+public final class DeviceSpecifications {
+
+    private DeviceSpecifications() {
+    }
+
+    /**
+     * 未删除
+     */
+    public static Specification<Device> notDeleted() {
+        return (root, query, cb) -> cb.isFalse(root.get("isDeleted"));
+    }
+
+    /**
+     * 所属门店
+     */
+    public static Specification<Device> inStore(String storeId) {
+        return storeId == null ? null : (root, query, cb) -> cb.equal(root.get("storeId"), storeId);
+    }
+
+    /**
+     * 在线状态
+     */
+    public static Specification<Device> hasStatus(String status) {
+        return status == null ? null : (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    /**
+     * 设备类型
+     */
+    public static Specification<Device> hasType(String deviceType) {
+        return deviceType == null ? null : (root, query, cb) -> cb.equal(root.get("deviceType"), deviceType);
+    }
+
+    /**
+     * 最后在线时间在 [from, to) 内
+     */
+    public static Specification<Device> lastOnlineFrom(Instant from) {
+        return from == null ? null : (root, query, cb) -> cb.greaterThanOrEqualTo(root.get("lastOnline"), from);
+    }
+
+    public static Specification<Device> lastOnlineBefore(Instant to) {
+        return to == null ? null : (root, query, cb) -> cb.lessThan(root.get("lastOnline"), to);
+    }
+
+    /**
+     * 设备名称前缀（LIKE 'prefix%'，可走索引；% 和 _ 按字面匹配）
+     */
+    public static Specification<Device> nameStartsWith(String prefix) {
+        if (prefix == null) {
+            return null;
+        }
+        String pattern = prefix.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+        return (root, query, cb) -> cb.like(root.get("deviceName"), pattern, '\\');
+    }
+
+    /**
+     * 键集分页：排在 (lastOnline, id) 之后的行，顺序为 last_online DESC（NULL 在最后）, device_id DESC
+     *
+     * @param lastOnline 上一页最后一行的最后在线时间（可为 null）
+     * @param id         上一页最后一行的主键
+     */
+    public static Specification<Device> after(Instant lastOnline, String id) {
+        return (root, query, cb) -> {
+            if (lastOnline == null) {
+                return cb.and(cb.isNull(root.get("lastOnline")), cb.lessThan(root.get("id"), id));
+            }
+            return cb.or(
+                    cb.lessThan(root.get("lastOnline"), lastOnline),
+                    cb.and(cb.equal(root.get("lastOnline"), lastOnline), cb.lessThan(root.get("id"), id)),
+                    cb.isNull(root.get("lastOnline")));
+        };
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.pos_backend.repository;
 
+import com.example.pos_backend.dto.MerchantView;
 import com.example.pos_backend.entity.Merchant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
@@ -8,6 +10,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -169,4 +172,64 @@ public interface MerchantRepository extends JpaRepository<Merchant, String>, Jpa
      */
     @Query("SELECT m.country, COUNT(m) FROM Merchant m WHERE m.isDeleted = false GROUP BY m.country")
     List<Object[]> countMerchantsByCountry();
+
+    /**
+     * 按ID查询商家投影（含已软删除的商家，由调用方判断）
+     */
+    @Query(MerchantView.SELECT + "WHERE m.id = :id")
+    Optional<MerchantView> findViewById(@Param("id") String id);
+
+    /**
+     * 按邮箱查询未删除的商家投影
+     */
+    @Query(MerchantView.SELECT + "WHERE m.email = :email AND m.isDeleted = false")
+    Optional<MerchantView> findViewByEmail(@Param("email") String email);
+
+    /**
+     * 按ID批量查询商家投影（顺序不保证，由调用方按需重排）
+     */
+    @Query(MerchantView.SELECT + "WHERE m.id IN :ids")
+    List<MerchantView> findViewsByIdIn(@Param("ids") Collection<String> ids);
+
+    /**
+     * 活跃商家键集分页 - 第一页（按创建时间、ID倒序，limit 由 Pageable 指定）
+     */
+    @Query(MerchantView.SELECT + "WHERE m.status = 'ACTIVE' AND m.isDeleted = false " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MerchantView> findActivePage(Pageable pageable);
+
+    /**
+     * 活跃商家键集分页 - 游标之后
+     */
+    @Query(MerchantView.SELECT + "WHERE m.status = 'ACTIVE' AND m.isDeleted = false AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MerchantView> findActivePageAfter(@Param("createdAt") Instant createdAt,
+                                           @Param("id") String id,
+                                           Pageable pageable);
+
+    /**
+     * 行业商家键集分页 - 第一页
+     */
+    @Query(MerchantView.SELECT + "WHERE m.industry = :industry AND m.isDeleted = false " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MerchantView> findByIndustryPage(@Param("industry") String industry, Pageable pageable);
+
+    /**
+     * 行业商家键集分页 - 游标之后
+     */
+    @Query(MerchantView.SELECT + "WHERE m.industry = :industry AND m.isDeleted = false AND " +
+           "(m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id)) " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MerchantView> findByIndustryPageAfter(@Param("industry") String industry,
+                                               @Param("createdAt") Instant createdAt,
+                                               @Param("id") String id,
+                                               Pageable pageable);
+
+    /**
+     * 企业名称或邮箱模糊查询（搜索索引未就绪时的回退查询）
+     */
+    @Query(MerchantView.SELECT + "WHERE (m.businessName LIKE %:keyword% OR m.email LIKE %:keyword%) AND m.isDeleted = false " +
+           "ORDER BY m.createdAt DESC, m.id DESC")
+    List<MerchantView> searchPage(@Param("keyword") String keyword, Pageable pageable);
 }
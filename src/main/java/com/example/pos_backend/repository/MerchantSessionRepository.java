@@ -1,7 +1,9 @@
 package com.example.pos_backend.repository;
 
 import com.example.pos_backend.entity.MerchantSession;
+import com.example.pos_backend.security.TokenDigest;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -19,31 +21,34 @@ public interface MerchantSessionRepository extends JpaRepository<MerchantSession
     List<MerchantSession> findByMerchantIdAndStatusAndIsDeleted(String merchantId, String status, Boolean isDeleted);
 
     /**
-     * 根据访问令牌查找会话
+     * 根据访问令牌摘要查找会话
      */
-    Optional<MerchantSession> findByAccessTokenAndIsDeleted(String accessToken, Boolean isDeleted);
+    Optional<MerchantSession> findByAccessTokenHashAndIsDeleted(byte[] accessTokenHash, Boolean isDeleted);
 
     /**
-     * 根据刷新令牌查找会话
+     * 根据刷新令牌摘要查找会话
      */
-    Optional<MerchantSession> findByRefreshTokenAndIsDeleted(String refreshToken, Boolean isDeleted);
+    Optional<MerchantSession> findByRefreshTokenHashAndIsDeleted(byte[] refreshTokenHash, Boolean isDeleted);
 
     /**
-     * 根据商家ID和设备ID查找会话
+     * 根据访问令牌查找会话（先计算摘要再按摘要索引查询）
      */
-    Optional<MerchantSession> findByMerchantIdAndDeviceIdAndStatusAndIsDeleted(
-            String merchantId, String deviceId, String status, Boolean isDeleted);
+    default Optional<MerchantSession> findByAccessTokenAndIsDeleted(String accessToken, Boolean isDeleted) {
+        return findByAccessTokenHashAndIsDeleted(TokenDigest.sha256(accessToken), isDeleted);
+    }
 
     /**
-     * 删除过期的会话
+     * 根据刷新令牌查找会话（先计算摘要再按摘要索引查询）
      */
-    @Query("DELETE FROM MerchantSession ms WHERE " +
-           "(ms.accessTokenExpiresAt < :now) OR " +
-           "(ms.refreshTokenExpiresAt < :expiredTime) OR " +
-           "(ms.status = 'INACTIVE' AND ms.updatedAt < :inactiveTime)")
-    void deleteExpiredSessions(@Param("now") Instant now, 
-                              @Param("expiredTime") Instant expiredTime, 
-                              @Param("inactiveTime") Instant inactiveTime);
+    default Optional<MerchantSession> findByRefreshTokenAndIsDeleted(String refreshToken, Boolean isDeleted) {
+        return findByRefreshTokenHashAndIsDeleted(TokenDigest.sha256(refreshToken), isDeleted);
+    }
+
+    /**
+     * 根据商家ID和设备ID查找会话
+     */
+    Optional<MerchantSession> findByMerchantIdAndDeviceIdAndStatusAndIsDeleted(
+            String merchantId, String deviceId, String status, Boolean isDeleted);
 
     /**
      * 根据商家ID查找所有会话（包括已删除的）
@@ -60,6 +65,17 @@ public interface MerchantSessionRepository extends JpaRepository<MerchantSession
      */
     List<MerchantSession> findByIpAddressAndIsDeleted(String ipAddress, Boolean isDeleted);
 
+    /**
+     * 查找在指定时间之后被注销、停用或删除且访问令牌尚未过期的会话
+     * 返回 [accessTokenHash, accessTokenExpiresAt, refreshTokenHash, refreshTokenExpiresAt]，供吊销索引加载
+     */
+    @Query("SELECT ms.accessTokenHash, ms.accessTokenExpiresAt, ms.refreshTokenHash, ms.refreshTokenExpiresAt " +
+           "FROM MerchantSession ms WHERE " +
+           "ms.updatedAt > :since AND " +
+           "(ms.status <> 'ACTIVE' OR ms.isDeleted = true) AND " +
+           "(ms.accessTokenExpiresAt > :now OR ms.refreshTokenExpiresAt > :now)")
+    List<Object[]> findRevokedTokensSince(@Param("since") Instant since, @Param("now") Instant now);
+
     /**
      * 查找即将过期的会话
      */
@@ -68,4 +84,22 @@ public interface MerchantSessionRepository extends JpaRepository<MerchantSession
            "ms.status = 'ACTIVE' AND ms.isDeleted = false")
     List<MerchantSession> findSessionsExpiringSoon(@Param("now") Instant now, 
                                                   @Param("soonExpire") Instant soonExpire);
+
+    /**
+     * 查询商家未过期的有效会话令牌摘要（用于删除商家时立即吊销）
+     */
+    @Query("SELECT ms.accessTokenHash, ms.accessTokenExpiresAt, ms.refreshTokenHash, ms.refreshTokenExpiresAt " +
+           "FROM MerchantSession ms WHERE ms.merchantId = :merchantId AND ms.status = 'ACTIVE' AND ms.isDeleted = false AND " +
+           "(ms.accessTokenExpiresAt > :now OR ms.refreshTokenExpiresAt > :now)")
+    List<Object[]> findActiveTokensByMerchantId(@Param("merchantId") String merchantId, @Param("now") Instant now);
+
+    /**
+     * 批量停用并软删除商家会话（每次最多 limit 行，返回影响行数）
+     */
+    @Modifying
+    @Query(value = "UPDATE merchant_sessions SET status = 'INACTIVE', is_deleted = TRUE, updated_by = :deletedBy " +
+                   "WHERE merchant_id = :merchantId AND is_deleted = FALSE LIMIT :limit", nativeQuery = true)
+    int softDeleteByMerchantId(@Param("merchantId") String merchantId,
+                               @Param("deletedBy") String deletedBy,
+                               @Param("limit") int limit);
 }
@@ -1,8 +1,12 @@
 package com.example.pos_backend.repository;
 
+import com.example.pos_backend.dto.StoreView;
 import com.example.pos_backend.entity.Store;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -70,10 +74,23 @@ public interface StoreRepository extends JpaRepository<Store, String>, JpaSpecif
     List<Store> findActiveStoresByMerchantId(@Param("merchantId") String merchantId);
 
     /**
-     * 根据商家ID查找默认门店（第一个创建的门店）
+     * 根据商家ID查找默认门店（第一个创建的未删除门店），只读取门店投影
      */
-    @Query("SELECT s FROM Store s WHERE s.merchantId = :merchantId AND s.isDeleted = false ORDER BY s.createdAt ASC")
-    Optional<Store> findDefaultStoreByMerchantId(@Param("merchantId") String merchantId);
+    default Optional<StoreView> findDefaultStoreByMerchantId(String merchantId) {
+        return findViewsByMerchantId(merchantId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    /**
+     * 按创建顺序查询商家未删除门店的投影（多门店商家取默认门店时由 Pageable 限制为 1 行）
+     */
+    @Query(StoreView.SELECT + "WHERE s.merchantId = :merchantId AND s.isDeleted = false ORDER BY s.createdAt ASC, s.id ASC")
+    List<StoreView> findViewsByMerchantId(@Param("merchantId") String merchantId, Pageable pageable);
+
+    /**
+     * 查询未删除门店所属的商家ID
+     */
+    @Query("SELECT s.merchantId FROM Store s WHERE s.id = :storeId AND s.isDeleted = false")
+    Optional<String> findMerchantIdById(@Param("storeId") String storeId);
 
     /**
      * 统计商家的门店数量
@@ -107,4 +124,20 @@ public interface StoreRepository extends JpaRepository<Store, String>, JpaSpecif
     boolean existsByMerchantIdAndStoreNameAndIdNot(@Param("merchantId") String merchantId, 
                                                   @Param("storeName") String storeName, 
                                                   @Param("storeId") String storeId);
+
+    /**
+     * 批量软删除商家的门店（每次最多 limit 行，返回影响行数）
+     */
+    @Modifying
+    @Query(value = "UPDATE stores SET is_deleted = TRUE, status = 'INACTIVE', updated_by = :deletedBy " +
+                   "WHERE merchant_id = :merchantId AND is_deleted = FALSE LIMIT :limit", nativeQuery = true)
+    int softDeleteByMerchantId(@Param("merchantId") String merchantId,
+                               @Param("deletedBy") String deletedBy,
+                               @Param("limit") int limit);
+
+    /**
+     * 查询商家全部门店ID（含已删除）
+     */
+    @Query("SELECT s.id FROM Store s WHERE s.merchantId = :merchantId")
+    List<String> findIdsByMerchantId(@Param("merchantId") String merchantId);
 }
@@ -3,8 +3,29 @@ package com.example.pos_backend.repository;
 import com.example.pos_backend.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface UserRepository extends JpaRepository<User, String>, JpaSpecificationExecutor<User> {
 
     User findByUsername(String username);
+
+    /**
+     * 查询商家全部员工ID（含已删除）
+     */
+    @Query("SELECT u.id FROM User u WHERE u.merchantId = :merchantId")
+    List<String> findIdsByMerchantId(@Param("merchantId") String merchantId);
+
+    /**
+     * 批量软删除商家的员工（每次最多 limit 行，返回影响行数）
+     */
+    @Modifying
+    @Query(value = "UPDATE users SET is_deleted = TRUE, status = 'INACTIVE', updated_by = :deletedBy " +
+                   "WHERE merchant_id = :merchantId AND is_deleted = FALSE LIMIT :limit", nativeQuery = true)
+    int softDeleteByMerchantId(@Param("merchantId") String merchantId,
+                               @Param("deletedBy") String deletedBy,
+                               @Param("limit") int limit);
 }
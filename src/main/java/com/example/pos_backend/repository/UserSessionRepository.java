@@ -1,8 +1,10 @@
 package com.example.pos_backend.repository;
 
 import com.example.pos_backend.entity.UserSession;
+import com.example.pos_backend.security.TokenDigest;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -29,14 +31,28 @@ public interface UserSessionRepository extends JpaRepository<UserSession, String
     List<UserSession> findByUserIdAndIsDeleted(String userId, Boolean isDeleted);
 
     /**
-     * 根据Access Token查找会话
+     * 根据Access Token摘要查找会话
      */
-    Optional<UserSession> findByAccessToken(String accessToken);
+    Optional<UserSession> findByAccessTokenHash(byte[] accessTokenHash);
 
     /**
-     * 根据Refresh Token查找会话
+     * 根据Refresh Token摘要查找会话
      */
-    Optional<UserSession> findByRefreshToken(String refreshToken);
+    Optional<UserSession> findByRefreshTokenHash(byte[] refreshTokenHash);
+
+    /**
+     * 根据Access Token查找会话（先计算摘要再按摘要索引查询）
+     */
+    default Optional<UserSession> findByAccessToken(String accessToken) {
+        return findByAccessTokenHash(TokenDigest.sha256(accessToken));
+    }
+
+    /**
+     * 根据Refresh Token查找会话（先计算摘要再按摘要索引查询）
+     */
+    default Optional<UserSession> findByRefreshToken(String refreshToken) {
+        return findByRefreshTokenHash(TokenDigest.sha256(refreshToken));
+    }
 
     /**
      * 根据设备ID查找会话
@@ -94,6 +110,17 @@ public interface UserSessionRepository extends JpaRepository<UserSession, String
     @Query("SELECT s FROM UserSession s WHERE s.lastActivityAt < :threshold AND s.status = 'ACTIVE' AND s.isDeleted = false")
     List<UserSession> findInactiveSessionsSince(@Param("threshold") Instant threshold);
 
+    /**
+     * 查找在指定时间之后被注销、停用或删除且访问令牌尚未过期的会话
+     * 返回 [accessTokenHash, accessTokenExpiresAt, refreshTokenHash, refreshTokenExpiresAt]，供吊销索引加载
+     */
+    @Query("SELECT s.accessTokenHash, s.accessTokenExpiresAt, s.refreshTokenHash, s.refreshTokenExpiresAt " +
+           "FROM UserSession s WHERE " +
+           "s.updatedAt > :since AND " +
+           "(s.status <> 'ACTIVE' OR s.isDeleted = true) AND " +
+           "(s.accessTokenExpiresAt > :now OR s.refreshTokenExpiresAt > :now)")
+    List<Object[]> findRevokedTokensSince(@Param("since") Instant since, @Param("now") Instant now);
+
     /**
      * 批量更新过期会话状态
      */
@@ -105,4 +132,24 @@ public interface UserSessionRepository extends JpaRepository<UserSession, String
      */
     @Query("UPDATE UserSession s SET s.isDeleted = true, s.status = 'DELETED', s.updatedAt = :currentTime WHERE s.userId = :userId AND s.isDeleted = false")
     int deleteAllSessionsByUserId(@Param("userId") String userId, @Param("currentTime") Instant currentTime);
+
+    /**
+     * 查询商家员工未过期的有效会话令牌摘要（用于删除商家时立即吊销）
+     */
+    @Query("SELECT us.accessTokenHash, us.accessTokenExpiresAt, us.refreshTokenHash, us.refreshTokenExpiresAt " +
+           "FROM UserSession us WHERE us.status = 'ACTIVE' AND us.isDeleted = false AND " +
+           "us.userId IN (SELECT u.id FROM User u WHERE u.merchantId = :merchantId) AND " +
+           "(us.accessTokenExpiresAt > :now OR us.refreshTokenExpiresAt > :now)")
+    List<Object[]> findActiveTokensByMerchantId(@Param("merchantId") String merchantId, @Param("now") Instant now);
+
+    /**
+     * 批量停用并软删除商家员工的会话（每次最多 limit 行，返回影响行数）
+     */
+    @Modifying
+    @Query(value = "UPDATE user_sessions SET status = 'INACTIVE', is_deleted = TRUE, updated_by = :deletedBy " +
+                   "WHERE user_id IN (SELECT user_id FROM users WHERE merchant_id = :merchantId) AND is_deleted = FALSE " +
+                   "LIMIT :limit", nativeQuery = true)
+    int softDeleteByMerchantId(@Param("merchantId") String merchantId,
+                               @Param("deletedBy") String deletedBy,
+                               @Param("limit") int limit);
 }
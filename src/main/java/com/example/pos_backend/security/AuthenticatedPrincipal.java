@@ -0,0 +1,44 @@
+package com.example.pos_backend.security;
+
+import java.security.Principal;
+
+/**
+ * 已认证主体
+ * 由认证过滤器根据令牌声明构造，getName() 返回令牌主题（商家ID或用户ID），
+ * 同时携带所属商家和门店，供租户范围检查使用
+ *
+ * @param id         主体ID（令牌主题）
+ * @param type       主体类型
+ * @param merchantId 所属商家ID（商家主体即自身ID，旧令牌可能为 null）
+ * @param storeId    所属门店ID（商家主体为 null）
+ */
+public record AuthenticatedPrincipal(String id, Type type, String merchantId, String storeId) implements Principal {
+
+    /**
+     * 主体类型
+     */
+    public enum Type {
+        /**
+         * 商家账号（门店所有者）
+         */
+        MERCHANT,
+        /**
+         * 门店员工
+         */
+        USER
+    }
+
+    @Override
+    public String getName() {
+        return id;
+    }
+
+    /**
+     * 是否为商家账号
+     *
+     * @return 是否为商家
+     */
+    public boolean isMerchant() {
+        return type == Type.MERCHANT;
+    }
+}
@@ -0,0 +1,125 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.common.SlidingWindow;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备激活失败次数限制（按设备指纹、按IP的滑动窗口，节点本地）
+ * 替代按指纹汇总 device_codes.activation_attempts 的查询：窗口内失败次数达到上限后直接拒绝，不再访问数据库。
+ * 设备指纹由客户端上报，更换指纹即可绕过指纹维度，因此同时按连接来源地址限制（不信任 X-Forwarded-For）。
+ * 两个维度各自最多跟踪 max-tracked-keys 个键：已满时先清理窗口外的记录，仍然满时不再跟踪新键，
+ * 轮换指纹或地址无法撑大内存，已跟踪的键照常限流。
+ */
+@Component
+public class DeviceActivationLimiter {
+
+    @Value("${device-code.activation-limit.window-ms:900000}")
+    private long windowMs;
+
+    @Value("${device-code.activation-limit.max-failures-per-fingerprint:5}")
+    private int maxFailuresPerFingerprint;
+
+    @Value("${device-code.activation-limit.max-failures-per-ip:50}")
+    private int maxFailuresPerIp;
+
+    @Value("${device-code.activation-limit.max-tracked-keys:100000}")
+    private int maxTrackedKeys;
+
+    private final ConcurrentHashMap<String, SlidingWindow> byFingerprint = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, SlidingWindow> byIp = new ConcurrentHashMap<>();
+
+    private final LongAdder blocked = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder untracked = new LongAdder();
+
+    /**
+     * 检查是否允许尝试激活
+     *
+     * @param fingerprint 设备指纹
+     * @param ipAddress   客户端IP（可为空）
+     * @throws TooManyRequestsException 失败次数已达上限
+     */
+    public void check(String fingerprint, String ipAddress) {
+        long now = System.currentTimeMillis();
+        long blockedUntil = Math.max(
+                blockedUntil(byFingerprint, fingerprint, now),
+                blockedUntil(byIp, ipAddress, now));
+        if (blockedUntil > now) {
+            blocked.increment();
+            throw new TooManyRequestsException("设备激活失败次数过多，请稍后再试", (blockedUntil - now + 999) / 1000);
+        }
+    }
+
+    /**
+     * 记录一次激活失败
+     *
+     * @param fingerprint 设备指纹
+     * @param ipAddress   客户端IP（可为空）
+     */
+    public void recordFailure(String fingerprint, String ipAddress) {
+        failures.increment();
+        long now = System.currentTimeMillis();
+        track(byFingerprint, fingerprint, maxFailuresPerFingerprint, now);
+        track(byIp, ipAddress, maxFailuresPerIp, now);
+    }
+
+    /**
+     * 定时清理窗口外的记录
+     */
+    @Scheduled(fixedDelayString = "${device-code.activation-limit.cleanup-interval-ms:60000}")
+    public void evictStale() {
+        long now = System.currentTimeMillis();
+        byFingerprint.values().removeIf(window -> window.isStale(now, windowMs));
+        byIp.values().removeIf(window -> window.isStale(now, windowMs));
+    }
+
+    /**
+     * 运行统计：被拦截次数、失败次数、因跟踪数已满未记录的失败次数、跟踪中的指纹数和IP数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "blocked", blocked.sum(),
+                "failures", failures.sum(),
+                "untracked", untracked.sum(),
+                "trackedFingerprints", (long) byFingerprint.size(),
+                "trackedIps", (long) byIp.size());
+    }
+
+    private void track(ConcurrentHashMap<String, SlidingWindow> windows, String key, int limit, long now) {
+        if (key == null) {
+            return;
+        }
+        SlidingWindow window = windows.get(key);
+        if (window == null) {
+            if (windows.size() >= maxTrackedKeys) {
+                windows.values().removeIf(stale -> stale.isStale(now, windowMs));
+                if (windows.size() >= maxTrackedKeys) {
+                    untracked.increment();
+                    return;
+                }
+            }
+            window = windows.computeIfAbsent(key, k -> new SlidingWindow(limit));
+        }
+        window.add(now);
+    }
+
+    private long blockedUntil(ConcurrentHashMap<String, SlidingWindow> windows, String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        SlidingWindow window = windows.get(key);
+        return window != null ? window.blockedUntil(now, windowMs) : 0;
+    }
+}
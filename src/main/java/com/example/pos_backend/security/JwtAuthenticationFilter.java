@@ -1,12 +1,17 @@
 package com.example.pos_backend.security;
 
+import com.example.pos_backend.service.SessionActivityTracker;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
@@ -16,6 +21,9 @@ import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
 
 /**
  * JWT 认证过滤器
@@ -26,9 +34,32 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    /**
+     * 请求属性：已认证令牌的摘要（{@link TokenDigest}），供长连接在连接期间复查会话是否被吊销
+     */
+    public static final String TOKEN_DIGEST_ATTRIBUTE = "com.example.pos_backend.security.JwtAuthenticationFilter.TOKEN_DIGEST";
+
+    private static final String ROLE_MERCHANT = "ROLE_MERCHANT";
+
+    private static final String ROLE_USER = "ROLE_USER";
+
+    private static final String ROLE_ADMIN = "ROLE_ADMIN";
+
     @Autowired
     private JwtProvider jwtProvider;
 
+    @Autowired
+    private SessionRevocationIndex sessionRevocationIndex;
+
+    @Autowired
+    private SessionActivityTracker sessionActivityTracker;
+
+    /**
+     * 拥有 ROLE_ADMIN（可访问 /api/system/**）的主体ID，逗号分隔
+     */
+    @Value("${security.admin-principals:}")
+    private Set<String> adminPrincipals;
+
     // TODO: 注入 UserDetailsService 实现
     // @Autowired
     // private UserDetailsService userDetailsService;
@@ -52,10 +83,16 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             String jwt = getJwtFromRequest(request);
             log.debug("提取到的JWT令牌: {}", jwt != null ? jwt.substring(0, Math.min(jwt.length(), 20)) + "..." : "null");
             
-            if (StringUtils.hasText(jwt) && jwtProvider.validateToken(jwt)) {
+            // 每个令牌只验签、解析一次，结果在有效期内由缓存复用
+            VerifiedToken verified = StringUtils.hasText(jwt) ? verifyQuietly(jwt) : null;
+
+            if (verified != null) {
                 log.debug("JWT令牌验证成功");
+                // 记录会话活跃时间（仅写内存，由追踪器定时批量写回）
+                recordSessionActivity(verified);
+
                 // 从令牌中获取用户名
-                String username = jwtProvider.getUsernameFromToken(jwt);
+                String username = verified.subject();
                 
                 // TODO: 从数据库加载用户详情
                 // UserDetails userDetails = userDetailsService.loadUserByUsername(username);
@@ -79,11 +116,13 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                     }
                     */
                     
-                    // 临时实现：直接设置认证信息
+                    // 临时实现：按令牌声明构造主体和角色
+                    AuthenticatedPrincipal principal = toPrincipal(verified);
                     UsernamePasswordAuthenticationToken authentication = 
-                        new UsernamePasswordAuthenticationToken(username, null, null);
+                        new UsernamePasswordAuthenticationToken(principal, null, authoritiesOf(principal));
                     authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
+                    request.setAttribute(TOKEN_DIGEST_ATTRIBUTE, verified.digest());
                     
                     log.debug("已为用户 '{}' 设置安全上下文", username);
                 }
@@ -98,6 +137,94 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 验证令牌，无效、已过期或已吊销时返回 null
+     *
+     * @param jwt JWT 令牌
+     * @return 已验证令牌，无效时返回 null
+     */
+    private VerifiedToken verifyQuietly(String jwt) {
+        try {
+            VerifiedToken verified = jwtProvider.verify(jwt);
+            if (verified.isExpiredAt(Instant.now())) {
+                return null;
+            }
+            // 刷新令牌只能用于换取访问令牌，不能作为 Bearer 令牌访问接口
+            if (isRefreshToken(verified)) {
+                log.debug("拒绝以刷新令牌访问接口");
+                return null;
+            }
+            // 已注销/停用的会话令牌在内存中拒绝，不查询会话表
+            if (sessionRevocationIndex.isRevoked(verified.digest())) {
+                log.debug("令牌所属会话已被吊销");
+                return null;
+            }
+            return verified;
+        } catch (JwtException | IllegalArgumentException e) {
+            log.warn("令牌验证失败: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 是否为刷新令牌（JwtService 使用 token_type 声明，JwtProvider 使用 type 声明）
+     *
+     * @param verified 已验证令牌
+     * @return 是否为刷新令牌
+     */
+    private boolean isRefreshToken(VerifiedToken verified) {
+        return "refresh".equals(verified.getClaim("token_type", String.class))
+                || "refresh".equals(verified.getClaim("type", String.class));
+    }
+
+    /**
+     * 记录令牌所属会话的活跃时间
+     * 员工令牌带有 user_id 声明，其余带会话ID的令牌视为商家会话
+     *
+     * @param verified 已验证令牌
+     */
+    private void recordSessionActivity(VerifiedToken verified) {
+        String sessionId = verified.getClaim("session_id", String.class);
+        if (sessionId == null) {
+            return;
+        }
+        if (verified.claims().containsKey("user_id")) {
+            sessionActivityTracker.touchUserSession(sessionId);
+        } else {
+            sessionActivityTracker.touchMerchantSession(sessionId);
+        }
+    }
+
+    /**
+     * 由令牌声明构造已认证主体
+     * 员工令牌带有 user_id 声明，商家令牌带有 merchant_id 声明；两者都没有的旧令牌按员工处理且不属于任何商家
+     *
+     * @param verified 已验证令牌
+     * @return 已认证主体
+     */
+    private AuthenticatedPrincipal toPrincipal(VerifiedToken verified) {
+        String merchantId = verified.getClaim("merchant_id", String.class);
+        if (verified.claims().containsKey("user_id") || merchantId == null) {
+            return new AuthenticatedPrincipal(verified.subject(), AuthenticatedPrincipal.Type.USER,
+                    merchantId, verified.getClaim("store_id", String.class));
+        }
+        return new AuthenticatedPrincipal(verified.subject(), AuthenticatedPrincipal.Type.MERCHANT, merchantId, null);
+    }
+
+    /**
+     * 主体角色：商家为 ROLE_MERCHANT，员工为 ROLE_USER；security.admin-principals 中列出的主体另有 ROLE_ADMIN
+     *
+     * @param principal 已认证主体
+     * @return 角色列表
+     */
+    private List<GrantedAuthority> authoritiesOf(AuthenticatedPrincipal principal) {
+        GrantedAuthority role = new SimpleGrantedAuthority(principal.isMerchant() ? ROLE_MERCHANT : ROLE_USER);
+        if (adminPrincipals.contains(principal.id())) {
+            return List.of(role, new SimpleGrantedAuthority(ROLE_ADMIN));
+        }
+        return List.of(role);
+    }
+
     /**
      * 从请求中提取 JWT 令牌
      *
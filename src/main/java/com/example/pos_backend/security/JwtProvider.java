@@ -2,10 +2,13 @@ package com.example.pos_backend.security;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -13,6 +16,7 @@ import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
+import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
@@ -35,14 +39,69 @@ public class JwtProvider {
     @Value("${jwt.refresh-expiration:" + SecurityConstants.JWT.REFRESH_EXPIRATION_TIME + "}")
     private long refreshExpirationTime;
 
+    @Autowired
+    private VerifiedTokenCache verifiedTokenCache;
+
+    /**
+     * 签名密钥，启动时构建一次
+     */
+    private SecretKey signingKey;
+
+    /**
+     * 令牌解析器（线程安全，可复用）
+     */
+    private JwtParser jwtParser;
+
+    /**
+     * 初始化签名密钥和解析器
+     */
+    @PostConstruct
+    public void init() {
+        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
+        this.signingKey = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
+    }
+
     /**
      * 获取签名密钥
      *
      * @return 签名密钥
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes(StandardCharsets.UTF_8);
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
+    }
+
+    /**
+     * 验证令牌并返回验证结果
+     * 同一令牌在有效期内只做一次验签和解析，之后直接命中缓存
+     *
+     * @param token JWT 令牌
+     * @return 已验证令牌
+     * @throws JwtException             令牌签名无效、格式错误或已过期
+     * @throws IllegalArgumentException 令牌为空
+     */
+    public VerifiedToken verify(String token) {
+        TokenDigest digest = TokenDigest.of(token);
+        VerifiedToken cached = verifiedTokenCache.get(digest);
+        if (cached != null) {
+            return cached;
+        }
+
+        Claims claims = jwtParser.parseSignedClaims(token).getPayload();
+        Date expiration = claims.getExpiration();
+        VerifiedToken verified = new VerifiedToken(
+                digest,
+                claims.getSubject(),
+                claims,
+                expiration != null ? expiration.toInstant() : null);
+
+        // 无过期时间的令牌不缓存，避免永久驻留
+        if (verified.expiresAt() != null) {
+            verifiedTokenCache.put(verified);
+        }
+        return verified;
     }
 
     /**
@@ -167,11 +226,7 @@ public class JwtProvider {
      * @return 所有声明
      */
     private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verify(token).claims();
     }
 
     /**
@@ -182,8 +237,7 @@ public class JwtProvider {
      */
     public boolean isTokenExpired(String token) {
         try {
-            final Date expiration = getExpirationDateFromToken(token);
-            return expiration.before(new Date());
+            return verify(token).isExpiredAt(Instant.now());
         } catch (Exception e) {
             log.warn("检查令牌过期状态时发生异常: {}", e.getMessage());
             return true;
@@ -199,8 +253,9 @@ public class JwtProvider {
      */
     public boolean validateToken(String token, UserDetails userDetails) {
         try {
-            final String username = getUsernameFromToken(token);
-            return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+            VerifiedToken verified = verify(token);
+            return verified.subject().equals(userDetails.getUsername())
+                    && !verified.isExpiredAt(Instant.now());
         } catch (Exception e) {
             log.warn("验证令牌时发生异常: {}", e.getMessage());
             return false;
@@ -215,11 +270,7 @@ public class JwtProvider {
      */
     public boolean validateToken(String token) {
         try {
-            Jwts.parser()
-                    .verifyWith(getSigningKey())
-                    .build()
-                    .parseSignedClaims(token);
-            return !isTokenExpired(token);
+            return !verify(token).isExpiredAt(Instant.now());
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("令牌验证失败: {}", e.getMessage());
             return false;
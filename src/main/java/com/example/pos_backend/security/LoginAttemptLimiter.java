@@ -0,0 +1,120 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.common.SlidingWindow;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 登录失败次数限制（按邮箱、按IP的滑动窗口）
+ * 窗口内失败次数达到上限后直接拒绝，不再进入密码哈希，避免撞库请求消耗 BCrypt 算力
+ */
+@Component
+public class LoginAttemptLimiter {
+
+    @Value("${login.limit.window-ms:900000}")
+    private long windowMs;
+
+    @Value("${login.limit.max-failures-per-email:5}")
+    private int maxFailuresPerEmail;
+
+    @Value("${login.limit.max-failures-per-ip:20}")
+    private int maxFailuresPerIp;
+
+    private final ConcurrentHashMap<String, SlidingWindow> byEmail = new ConcurrentHashMap<>();
+
+    private final ConcurrentHashMap<String, SlidingWindow> byIp = new ConcurrentHashMap<>();
+
+    private final LongAdder blocked = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * 检查是否允许尝试登录
+     *
+     * @param email     邮箱
+     * @param ipAddress 客户端IP（可为空）
+     * @throws TooManyRequestsException 失败次数已达上限
+     */
+    public void check(String email, String ipAddress) {
+        long now = System.currentTimeMillis();
+        long blockedUntil = Math.max(
+                blockedUntil(byEmail, normalize(email), now),
+                blockedUntil(byIp, ipAddress, now));
+        if (blockedUntil > now) {
+            blocked.increment();
+            throw new TooManyRequestsException("登录失败次数过多，请稍后再试", (blockedUntil - now + 999) / 1000);
+        }
+    }
+
+    /**
+     * 记录一次登录失败
+     *
+     * @param email     邮箱
+     * @param ipAddress 客户端IP（可为空）
+     */
+    public void recordFailure(String email, String ipAddress) {
+        failures.increment();
+        long now = System.currentTimeMillis();
+        String emailKey = normalize(email);
+        if (emailKey != null) {
+            byEmail.computeIfAbsent(emailKey, key -> new SlidingWindow(maxFailuresPerEmail)).add(now);
+        }
+        if (ipAddress != null) {
+            byIp.computeIfAbsent(ipAddress, key -> new SlidingWindow(maxFailuresPerIp)).add(now);
+        }
+    }
+
+    /**
+     * 登录成功后清除该邮箱的失败记录（IP 记录保留，避免同一来源轮换账号）
+     *
+     * @param email 邮箱
+     */
+    public void recordSuccess(String email) {
+        String emailKey = normalize(email);
+        if (emailKey != null) {
+            byEmail.remove(emailKey);
+        }
+    }
+
+    /**
+     * 定时清理窗口外的记录
+     */
+    @Scheduled(fixedDelayString = "${login.limit.cleanup-interval-ms:60000}")
+    public void evictStale() {
+        long now = System.currentTimeMillis();
+        byEmail.values().removeIf(window -> window.isStale(now, windowMs));
+        byIp.values().removeIf(window -> window.isStale(now, windowMs));
+    }
+
+    /**
+     * 运行统计：被拦截次数、失败次数、跟踪中的邮箱数和IP数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "blocked", blocked.sum(),
+                "failures", failures.sum(),
+                "trackedEmails", (long) byEmail.size(),
+                "trackedIps", (long) byIp.size());
+    }
+
+    private long blockedUntil(ConcurrentHashMap<String, SlidingWindow> windows, String key, long now) {
+        if (key == null) {
+            return 0;
+        }
+        SlidingWindow window = windows.get(key);
+        return window != null ? window.blockedUntil(now, windowMs) : 0;
+    }
+
+    private static String normalize(String email) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) : null;
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 密码哈希专用线程池
+ * BCrypt 计算放到固定大小、有界队列的线程池中执行，请求线程只等待结果；
+ * 队列满或等待超时时立即返回 429，登录高峰或撞库时不会占满全部 CPU、拖慢其他接口。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PasswordHashingExecutor {
+
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${password.hashing.threads:0}")
+    private int threads;
+
+    @Value("${password.hashing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${password.hashing.timeout-ms:5000}")
+    private long timeoutMs;
+
+    @Value("${password.hashing.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    /**
+     * 与真实密码同等开销的假哈希，账号不存在时用于比对
+     */
+    private String dummyHash;
+
+    private final LongAdder hashes = new LongAdder();
+
+    private final LongAdder hashNanos = new LongAdder();
+
+    private final LongAdder waitNanos = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final AtomicLong maxHashMs = new AtomicLong();
+
+    /**
+     * 初始化线程池，线程数未配置时取 CPU 核数的一半，给普通请求保留算力
+     */
+    @PostConstruct
+    public void init() {
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + sequence.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+        log.info("密码哈希线程池: {} 线程，队列容量 {}", poolSize, queueCapacity);
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * 计算密码哈希
+     *
+     * @param rawPassword 明文密码
+     * @return 密码哈希
+     */
+    public String encode(String rawPassword) {
+        return execute(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * 校验密码
+     * 哈希为 null（账号不存在）时仍与假哈希比对一次并返回 false，耗时与真实校验一致
+     *
+     * @param rawPassword     明文密码
+     * @param encodedPassword 密码哈希，可为 null
+     * @return 是否匹配
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            execute(() -> passwordEncoder.matches(rawPassword, dummyHash));
+            return false;
+        }
+        return execute(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T execute(Callable<T> task) {
+        long submittedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                waitNanos.add(startedAt - submittedAt);
+                try {
+                    return task.call();
+                } finally {
+                    long elapsed = System.nanoTime() - startedAt;
+                    hashes.increment();
+                    hashNanos.add(elapsed);
+                    maxHashMs.accumulateAndGet(TimeUnit.NANOSECONDS.toMillis(elapsed), Math::max);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new TooManyRequestsException("登录请求过多，请稍后再试", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejected.increment();
+            throw new TooManyRequestsException("登录请求过多，请稍后再试", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new BusinessException("密码校验被中断");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("密码哈希计算失败", e.getCause());
+        }
+    }
+
+    /**
+     * 运行统计：队列深度、活跃线程数、累计哈希次数、平均/最大哈希耗时、平均排队时间、拒绝次数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        long count = hashes.sum();
+        return Map.of(
+                "queueDepth", (long) executor.getQueue().size(),
+                "activeThreads", (long) executor.getActiveCount(),
+                "hashes", count,
+                "avgHashMs", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(hashNanos.sum() / count),
+                "maxHashMs", maxHashMs.get(),
+                "avgWaitMs", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(waitNanos.sum() / count),
+                "rejected", rejected.sum());
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.common.CacheStats;
+import com.example.pos_backend.common.LocalCache;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * RBAC 权限引擎（内存编译）
+ * 启动时把 permissions 表编号为位序号，把每个启用角色编译成位图；用户首次检查时合并其角色位图得到有效权限掩码并缓存，
+ * 之后的权限检查只是一次哈希查找加一次位运算，替代 sp_check_user_permission / v_user_permissions 的四表连接。
+ * 定时比对角色、权限及关联表的指纹，有变更时重新编译并清空用户掩码；停用或删除用户时调用 {@link #invalidateUser}。
+ * 用户掩码放在 {@link LocalCache} 中（ConcurrentHashMap，读不加锁），最多保留 max-cached-users 个，
+ * 超出时先清理过期条目再批量淘汰；mask-ttl-ms 只是兜底，正常情况下由指纹比对和 {@link #invalidateUser} 失效。
+ * 商家账号（商家令牌主体）是门店所有者，拥有全部权限，但仅限自己名下的门店：带门店的检查由 {@link StoreAccess} 校验归属，
+ * 不带门店的检查只说明"有这项权限"，访问具体数据的服务仍需校验租户。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionEngine {
+
+    private static final String PERMISSIONS_SQL =
+            "SELECT permission_code, resource, action FROM permissions WHERE is_deleted = FALSE ORDER BY permission_code";
+
+    private static final String ROLE_GRANTS_SQL =
+            "SELECT rp.role_id, p.permission_code FROM role_permissions rp " +
+            "JOIN roles r ON rp.role_id = r.role_id AND r.is_active = TRUE AND r.is_deleted = FALSE " +
+            "JOIN permissions p ON rp.permission_id = p.permission_id AND p.is_deleted = FALSE";
+
+    private static final String USER_ROLES_SQL =
+            "SELECT DISTINCT ur.role_id FROM users u " +
+            "JOIN user_roles ur ON u.user_id = ur.user_id AND ur.is_active = TRUE " +
+            "WHERE u.user_id = ? AND u.status = 'ACTIVE' AND u.is_deleted = FALSE";
+
+    private static final String FINGERPRINT_SQL =
+            "SELECT CONCAT_WS(':', " +
+            "(SELECT COUNT(*) FROM roles), (SELECT MAX(updated_at) FROM roles), " +
+            "(SELECT COUNT(*) FROM permissions), (SELECT MAX(updated_at) FROM permissions), " +
+            "(SELECT COUNT(*) FROM role_permissions), " +
+            "(SELECT BIT_XOR(CRC32(CONCAT(role_id, permission_id))) FROM role_permissions), " +
+            "(SELECT COUNT(*) FROM user_roles), " +
+            "(SELECT BIT_XOR(CRC32(CONCAT(user_id, role_id, is_active))) FROM user_roles))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final StoreAccess storeAccess;
+
+    @Value("${security.permission.max-cached-users:50000}")
+    private int maxCachedUsers;
+
+    @Value("${security.permission.mask-ttl-ms:600000}")
+    private long maskTtlMs;
+
+    private volatile Catalog catalog = Catalog.EMPTY;
+
+    private volatile String fingerprint;
+
+    /**
+     * 用户ID -> 有效权限掩码
+     */
+    private LocalCache<String, UserMask> userMasks;
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder maskLoads = new LongAdder();
+
+    private final LongAdder reloads = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        this.userMasks = new LocalCache<>(maxCachedUsers, maskTtlMs, 0);
+    }
+
+    /**
+     * 应用启动完成后编译权限目录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        reload();
+        log.info("权限引擎编译完成，共 {} 个权限、{} 个角色", catalog.bitByCode.size(), catalog.roleMasks.size());
+    }
+
+    /**
+     * 定时检查角色与权限是否有变更
+     */
+    @Scheduled(fixedDelayString = "${security.permission.refresh-interval-ms:30000}",
+               initialDelayString = "${security.permission.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            if (!Objects.equals(fingerprint, queryFingerprint())) {
+                reload();
+                log.info("角色或权限已变更，权限引擎已重新编译");
+            }
+        } catch (Exception e) {
+            log.warn("权限引擎刷新失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 重新编译权限目录并清空用户掩码
+     */
+    public synchronized void reload() {
+        String current = queryFingerprint();
+        catalog = compile();
+        fingerprint = current;
+        userMasks.clear();
+        reloads.increment();
+    }
+
+    /**
+     * 使单个用户的掩码失效（用户角色分配变更、用户停用或删除时调用）
+     *
+     * @param userId 用户ID
+     */
+    public void invalidateUser(String userId) {
+        userMasks.invalidate(userId);
+    }
+
+    /**
+     * 判断主体是否拥有权限
+     *
+     * @param principal      已认证主体
+     * @param permissionCode 权限代码，如 order.create
+     * @return 是否拥有
+     */
+    public boolean hasPermission(AuthenticatedPrincipal principal, String permissionCode) {
+        checks.increment();
+        Catalog current = catalog;
+        Integer bit = current.bitByCode.get(permissionCode);
+        return bit != null && test(principal, current, bit);
+    }
+
+    /**
+     * 按资源和操作判断主体是否拥有权限（与 sp_check_user_permission 的参数一致）
+     *
+     * @param principal 已认证主体
+     * @param resource  资源标识，如 order
+     * @param action    操作标识，如 create
+     * @return 是否拥有
+     */
+    public boolean hasPermission(AuthenticatedPrincipal principal, String resource, String action) {
+        checks.increment();
+        Catalog current = catalog;
+        Map<String, Integer> actions = current.bitByResourceAction.get(resource);
+        Integer bit = actions != null ? actions.get(action) : null;
+        return bit != null && test(principal, current, bit);
+    }
+
+    /**
+     * 判断主体在指定门店是否拥有权限（商家须拥有该门店，员工须属于该门店）
+     *
+     * @param principal      已认证主体
+     * @param storeId        门店ID
+     * @param permissionCode 权限代码
+     * @return 是否拥有
+     */
+    public boolean hasStorePermission(AuthenticatedPrincipal principal, String storeId, String permissionCode) {
+        return storeAccess.canAccessStore(principal, storeId) && hasPermission(principal, permissionCode);
+    }
+
+    /**
+     * 运行统计：检查次数、掩码加载次数、掩码淘汰次数、重新编译次数、已缓存用户数、权限数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        CacheStats masks = userMasks.stats();
+        return Map.of(
+                "checks", checks.sum(),
+                "maskLoads", maskLoads.sum(),
+                "maskEvictions", masks.evictions(),
+                "reloads", reloads.sum(),
+                "cachedUsers", masks.size(),
+                "permissions", (long) catalog.bitByCode.size());
+    }
+
+    private boolean test(AuthenticatedPrincipal principal, Catalog current, int bit) {
+        if (principal == null) {
+            return false;
+        }
+        if (principal.isMerchant()) {
+            return true;
+        }
+        UserMask mask = userMasks.get(principal.id(), userId -> new UserMask(current, loadMask(userId, current)));
+        // 掩码按编译时的目录计算，目录重建后旧掩码作废
+        if (mask.catalog != current) {
+            userMasks.invalidate(principal.id());
+            mask = userMasks.get(principal.id(), userId -> new UserMask(current, loadMask(userId, current)));
+        }
+        return (mask.bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    private long[] loadMask(String userId, Catalog current) {
+        maskLoads.increment();
+        long[] bits = new long[current.words];
+        List<String> roleIds = jdbcTemplate.queryForList(USER_ROLES_SQL, String.class, userId);
+        for (String roleId : roleIds) {
+            long[] roleMask = current.roleMasks.get(roleId);
+            if (roleMask != null) {
+                for (int i = 0; i < bits.length; i++) {
+                    bits[i] |= roleMask[i];
+                }
+            }
+        }
+        return bits;
+    }
+
+    private Catalog compile() {
+        Map<String, Integer> bitByCode = new HashMap<>();
+        Map<String, Map<String, Integer>> bitByResourceAction = new HashMap<>();
+        jdbcTemplate.query(PERMISSIONS_SQL, rs -> {
+            int bit = bitByCode.size();
+            bitByCode.put(rs.getString("permission_code"), bit);
+            bitByResourceAction.computeIfAbsent(rs.getString("resource"), key -> new HashMap<>())
+                    .put(rs.getString("action"), bit);
+        });
+
+        int words = Math.max(1, (bitByCode.size() + 63) >>> 6);
+        Map<String, long[]> roleMasks = new HashMap<>();
+        jdbcTemplate.query(ROLE_GRANTS_SQL, rs -> {
+            Integer bit = bitByCode.get(rs.getString("permission_code"));
+            if (bit != null) {
+                long[] mask = roleMasks.computeIfAbsent(rs.getString("role_id"), key -> new long[words]);
+                mask[bit >>> 6] |= 1L << bit;
+            }
+        });
+        return new Catalog(bitByCode, bitByResourceAction, roleMasks, words);
+    }
+
+    private String queryFingerprint() {
+        return jdbcTemplate.queryForObject(FINGERPRINT_SQL, String.class);
+    }
+
+    /**
+     * 编译后的权限目录（不可变）
+     */
+    private record Catalog(Map<String, Integer> bitByCode,
+                           Map<String, Map<String, Integer>> bitByResourceAction,
+                           Map<String, long[]> roleMasks,
+                           int words) {
+
+        static final Catalog EMPTY = new Catalog(Map.of(), Map.of(), Map.of(), 1);
+    }
+
+    /**
+     * 用户有效权限掩码及其所属目录
+     */
+    private record UserMask(Catalog catalog, long[] bits) {
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.pos_backend.security;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * PIN 码哈希
+ * 4~6 位 PIN 的取值空间只有一百万，加盐慢哈希无法按值查找，也挡不住离线穷举；
+ * 这里改用服务端胡椒（不落库）做 HMAC-SHA256(pepper, storeId:pin)，结果确定，可直接作为门店内的查找键，
+ * 数据库泄露而胡椒未泄露时无法还原 PIN，在线猜测由登录侧的尝试次数限制兜底。
+ */
+@Slf4j
+@Component
+public class PinHasher {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Pattern PIN_PATTERN = Pattern.compile("\\d{4,6}");
+
+    @Value("${pin.pepper:}")
+    private String pepper;
+
+    @Value("${jwt.secret:" + SecurityConstants.JWT.SECRET + "}")
+    private String jwtSecret;
+
+    private ThreadLocal<Mac> mac;
+
+    /**
+     * 初始化 HMAC 密钥；未配置胡椒时由 JWT 密钥派生
+     */
+    @PostConstruct
+    public void init() throws GeneralSecurityException {
+        byte[] key;
+        if (StringUtils.hasText(pepper)) {
+            key = pepper.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.warn("未配置 pin.pepper，PIN 胡椒由 JWT 密钥派生，生产环境应单独配置");
+            Mac derive = Mac.getInstance(ALGORITHM);
+            derive.init(new SecretKeySpec(jwtSecret.getBytes(StandardCharsets.UTF_8), ALGORITHM));
+            key = derive.doFinal("pos-pin-pepper".getBytes(StandardCharsets.UTF_8));
+        }
+        SecretKeySpec keySpec = new SecretKeySpec(key, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(keySpec);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("无法初始化 PIN HMAC", e);
+            }
+        });
+    }
+
+    /**
+     * 计算门店内 PIN 的查找键
+     *
+     * @param storeId 门店ID
+     * @param pin     PIN 码
+     * @return 64 位十六进制 HMAC
+     */
+    public String hash(String storeId, String pin) {
+        Mac instance = mac.get();
+        instance.reset();
+        return HexFormat.of().formatHex(instance.doFinal((storeId + ":" + pin).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * 是否为旧版 BCrypt PIN 哈希（登录成功后会升级为 HMAC）
+     *
+     * @param pinHash 数据库中的 PIN 哈希
+     * @return 是否为旧版哈希
+     */
+    public static boolean isLegacyHash(String pinHash) {
+        return pinHash != null && pinHash.startsWith("$2");
+    }
+
+    /**
+     * PIN 格式校验：4~6 位数字
+     *
+     * @param pin PIN 码
+     * @return 是否合法
+     */
+    public static boolean isValidPin(String pin) {
+        return pin != null && PIN_PATTERN.matcher(pin).matches();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.pos_backend.security;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.PermissionEvaluator;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.io.Serializable;
+
+/**
+ * 方法级权限评估器，委托给 {@link PermissionEngine}
+ * 支持以下写法：
+ * <pre>
+ * &#64;PreAuthorize("hasPermission(null, 'order.create')")        // 权限代码
+ * &#64;PreAuthorize("hasPermission('payment', 'refund')")          // 资源 + 操作
+ * &#64;PreAuthorize("hasPermission(#orderId, 'order', 'edit')")    // 目标ID + 资源 + 操作
+ * &#64;PreAuthorize("hasPermission(#storeId, 'store', 'user.edit')") // 门店ID + 权限代码（限本租户门店）
+ * </pre>
+ */
+@Component
+@RequiredArgsConstructor
+public class RbacPermissionEvaluator implements PermissionEvaluator {
+
+    /**
+     * 目标类型为 store 时，目标ID是门店ID，权限参数是权限代码
+     */
+    private static final String STORE_TARGET = "store";
+
+    private final PermissionEngine permissionEngine;
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Object targetDomainObject, Object permission) {
+        AuthenticatedPrincipal principal = StoreAccess.principalOf(authentication);
+        if (principal == null || permission == null) {
+            return false;
+        }
+        if (targetDomainObject instanceof String resource) {
+            return permissionEngine.hasPermission(principal, resource, permission.toString());
+        }
+        return permissionEngine.hasPermission(principal, permission.toString());
+    }
+
+    @Override
+    public boolean hasPermission(Authentication authentication, Serializable targetId, String targetType, Object permission) {
+        AuthenticatedPrincipal principal = StoreAccess.principalOf(authentication);
+        if (principal == null || targetType == null || permission == null) {
+            return false;
+        }
+        if (STORE_TARGET.equals(targetType)) {
+            return targetId != null && permissionEngine.hasStorePermission(principal, targetId.toString(), permission.toString());
+        }
+        return permissionEngine.hasPermission(principal, targetType, permission.toString());
+    }
+}
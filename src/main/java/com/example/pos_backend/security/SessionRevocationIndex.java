@@ -0,0 +1,257 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.common.BloomFilter;
+import com.example.pos_backend.repository.MerchantSessionRepository;
+import com.example.pos_backend.repository.UserSessionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话吊销索引（节点本地）
+ * 以令牌摘要为键记录已注销、停用或删除的会话令牌，前置布隆过滤器，
+ * 认证过滤器在内存中即可判断令牌是否被吊销，请求路径上不再查询会话表。
+ * 启动时从 merchant_sessions / user_sessions 加载，之后按 updated_at 增量同步其他节点的吊销，
+ * 本节点的注销通过 {@link #revoke} 立即生效；令牌过期后条目自动清理。
+ * 首次加载完成之前（启动阶段或数据库不可用时）按已吊销处理，宁可拒绝请求也不放行已注销的令牌。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionRevocationIndex {
+
+    /**
+     * 增量同步回看窗口，覆盖事务提交延迟和节点间时钟偏差
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private final MerchantSessionRepository merchantSessionRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    @Value("${session.revocation.expected-entries:100000}")
+    private int expectedEntries;
+
+    @Value("${session.revocation.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    /**
+     * 已吊销令牌摘要 -> 令牌过期时间
+     */
+    private final ConcurrentHashMap<TokenDigest, Instant> revoked = new ConcurrentHashMap<>();
+
+    private volatile BloomFilter filter;
+
+    /**
+     * 重建中的布隆过滤器，重建期间的吊销同时写入新旧两个过滤器
+     */
+    private volatile BloomFilter pending;
+
+    private volatile boolean ready;
+
+    private volatile long filterCapacity;
+
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder filterPassed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder rejectedNotReady = new LongAdder();
+
+    /**
+     * 应用启动完成后从会话表加载吊销记录
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void bootstrap() {
+        if (ready) {
+            return;
+        }
+        try {
+            if (filter == null) {
+                this.filterCapacity = expectedEntries;
+                this.filter = BloomFilter.create(filterCapacity, falsePositiveRate);
+            }
+            int loaded = sync();
+            ready = true;
+            log.info("会话吊销索引加载完成，共 {} 个令牌", loaded);
+        } catch (Exception e) {
+            log.error("会话吊销索引加载失败，加载完成前拒绝所有令牌: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 判断令牌是否已被吊销（纯内存，无数据库访问）
+     *
+     * @param digest 令牌摘要
+     * @return 是否已吊销
+     */
+    public boolean isRevoked(TokenDigest digest) {
+        checks.increment();
+        if (!ready) {
+            rejectedNotReady.increment();
+            return true;
+        }
+        BloomFilter current = filter;
+        if (!current.mightContain(digest.word(0), digest.word(1))) {
+            return false;
+        }
+        filterPassed.increment();
+        if (revoked.containsKey(digest)) {
+            rejected.increment();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 吊销令牌（本节点立即生效）
+     *
+     * @param token     JWT 令牌
+     * @param expiresAt 令牌过期时间，过期后条目会被清理
+     */
+    public void revoke(String token, Instant expiresAt) {
+        if (token == null) {
+            return;
+        }
+        revoke(TokenDigest.of(token), expiresAt);
+    }
+
+    /**
+     * 吊销令牌摘要（本节点立即生效）
+     *
+     * @param digest    令牌摘要
+     * @param expiresAt 令牌过期时间，过期后条目会被清理
+     */
+    public void revoke(TokenDigest digest, Instant expiresAt) {
+        if (expiresAt != null && !expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        // 先写精确集合再读重建中的过滤器：compact() 先发布 pending 再遍历集合，两者之一必然包含该条目
+        revoked.put(digest, expiresAt != null ? expiresAt : Instant.MAX);
+        BloomFilter rebuilding = pending;
+        if (rebuilding != null) {
+            rebuilding.put(digest.word(0), digest.word(1));
+        }
+        BloomFilter current = filter;
+        if (current != null) {
+            current.put(digest.word(0), digest.word(1));
+        }
+        verifiedTokenCache.invalidate(digest);
+    }
+
+    /**
+     * 定时增量同步其他节点产生的吊销，并清理已过期条目
+     */
+    @Scheduled(fixedDelayString = "${session.revocation.sync-interval-ms:30000}",
+               initialDelayString = "${session.revocation.sync-interval-ms:30000}")
+    public void refresh() {
+        if (!ready) {
+            bootstrap();
+            return;
+        }
+        try {
+            int loaded = sync();
+            int purged = compact();
+            if (loaded > 0 || purged > 0) {
+                log.debug("会话吊销索引同步: 新增 {}，清理 {}，当前 {}", loaded, purged, revoked.size());
+            }
+        } catch (Exception e) {
+            log.warn("会话吊销索引同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 当前索引条目数
+     *
+     * @return 条目数
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * 运行统计：检查次数、通过布隆过滤器次数、拒绝次数、加载完成前拒绝次数、当前条目数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "checks", checks.sum(),
+                "filterPassed", filterPassed.sum(),
+                "rejected", rejected.sum(),
+                "rejectedNotReady", rejectedNotReady.sum(),
+                "size", (long) revoked.size());
+    }
+
+    /**
+     * 从会话表拉取 syncedUntil 之后发生的吊销
+     */
+    private int sync() {
+        Instant now = Instant.now();
+        Instant since = syncedUntil.equals(Instant.EPOCH) ? Instant.EPOCH : syncedUntil.minus(SYNC_OVERLAP);
+        int loaded = load(merchantSessionRepository.findRevokedTokensSince(since, now))
+                + load(userSessionRepository.findRevokedTokensSince(since, now));
+        syncedUntil = now;
+        return loaded;
+    }
+
+    private int load(List<Object[]> rows) {
+        int loaded = 0;
+        for (Object[] row : rows) {
+            loaded += loadToken((byte[]) row[0], (Instant) row[1]);
+            loaded += loadToken((byte[]) row[2], (Instant) row[3]);
+        }
+        return loaded;
+    }
+
+    private int loadToken(byte[] tokenHash, Instant expiresAt) {
+        if (tokenHash == null || tokenHash.length != TokenDigest.LENGTH) {
+            return 0;
+        }
+        TokenDigest digest = TokenDigest.fromBytes(tokenHash);
+        if (revoked.containsKey(digest)) {
+            return 0;
+        }
+        revoke(digest, expiresAt);
+        return 1;
+    }
+
+    /**
+     * 删除已过期条目；有删除或过滤器写入超出容量时重建布隆过滤器，使误判率保持在目标值附近。
+     * 新过滤器写满之后才替换旧过滤器，重建期间的检查仍由包含全部条目的旧过滤器回答。
+     */
+    private synchronized int compact() {
+        Instant now = Instant.now();
+        int purged = 0;
+        for (Iterator<Map.Entry<TokenDigest, Instant>> it = revoked.entrySet().iterator(); it.hasNext(); ) {
+            if (!it.next().getValue().isAfter(now)) {
+                it.remove();
+                purged++;
+            }
+        }
+        if (purged > 0 || filter.insertions() > filterCapacity) {
+            filterCapacity = Math.max(expectedEntries, revoked.size() * 2L);
+            BloomFilter rebuilt = BloomFilter.create(filterCapacity, falsePositiveRate);
+            pending = rebuilt;
+            revoked.keySet().forEach(digest -> rebuilt.put(digest.word(0), digest.word(1)));
+            filter = rebuilt;
+            pending = null;
+        }
+        return purged;
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.service.MerchantCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+/**
+ * 门店 / 商家租户范围检查
+ * 商家只能访问自己名下未删除的门店，员工只能访问令牌所属的门店；门店归属由 {@link MerchantCache} 缓存。
+ * 检查失败统一抛出 {@link AccessDeniedException}（403），不区分门店不存在和无权访问，避免探测其他租户的门店ID。
+ */
+@Component
+@RequiredArgsConstructor
+public class StoreAccess {
+
+    private final MerchantCache merchantCache;
+
+    /**
+     * 判断主体能否访问门店
+     *
+     * @param principal 已认证主体
+     * @param storeId   门店ID
+     * @return 是否可访问
+     */
+    public boolean canAccessStore(AuthenticatedPrincipal principal, String storeId) {
+        if (principal == null || storeId == null) {
+            return false;
+        }
+        if (principal.isMerchant()) {
+            return principal.merchantId() != null
+                    && merchantCache.getStoreMerchantId(storeId).map(principal.merchantId()::equals).orElse(false);
+        }
+        return storeId.equals(principal.storeId());
+    }
+
+    /**
+     * 要求主体能访问门店
+     *
+     * @param principal 已认证主体
+     * @param storeId   门店ID
+     * @throws AccessDeniedException 无权访问
+     */
+    public void requireStore(AuthenticatedPrincipal principal, String storeId) {
+        if (!canAccessStore(principal, storeId)) {
+            throw new AccessDeniedException("无权访问该门店");
+        }
+    }
+
+    /**
+     * 要求主体属于指定商家
+     *
+     * @param principal  已认证主体
+     * @param merchantId 商家ID
+     * @throws AccessDeniedException 不属于该商家
+     */
+    public void requireMerchant(AuthenticatedPrincipal principal, String merchantId) {
+        if (principal == null || principal.merchantId() == null || !principal.merchantId().equals(merchantId)) {
+            throw new AccessDeniedException("无权访问该商家的数据");
+        }
+    }
+
+    /**
+     * 要求主体是商家账号本身（同一商家的员工也不可执行，如删除商家）
+     *
+     * @param principal  已认证主体
+     * @param merchantId 商家ID
+     * @throws AccessDeniedException 不是该商家的商家账号
+     */
+    public void requireMerchantAccount(AuthenticatedPrincipal principal, String merchantId) {
+        requireMerchant(principal, merchantId);
+        if (!principal.isMerchant()) {
+            throw new AccessDeniedException("仅商家账号可执行该操作");
+        }
+    }
+
+    /**
+     * 当前请求的已认证主体
+     *
+     * @param authentication 认证信息
+     * @return 已认证主体，匿名或其他认证方式时返回 null
+     */
+    public static AuthenticatedPrincipal principalOf(Authentication authentication) {
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedPrincipal principal
+                ? principal : null;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.exception.TooManyRequestsException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 事件流一次性票据（节点本地）
+ * 浏览器 EventSource 无法设置 Authorization 头，如果把访问令牌放进查询参数，令牌会完整出现在代理和访问日志中。
+ * 客户端先用令牌换取绑定门店的短期票据，再以 ?ticket= 建立 SSE 连接；票据只能使用一次，过期即作废，
+ * 即使出现在日志中也无法再次使用。票据只在签发节点有效，多实例部署时需要粘性路由或在同一节点签发和订阅。
+ * 票据记录签发时的令牌摘要，订阅建立后按该令牌所属会话是否被吊销决定连接是否继续。
+ */
+@Component
+@RequiredArgsConstructor
+public class StreamTicketRegistry {
+
+    private final StoreAccess storeAccess;
+
+    @Value("${device.events.ticket-ttl-ms:30000}")
+    private long ticketTtlMs;
+
+    @Value("${device.events.max-tickets:10000}")
+    private int maxTickets;
+
+    @Value("${device.events.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ConcurrentHashMap<String, Ticket> tickets = new ConcurrentHashMap<>();
+
+    private final LongAdder issued = new LongAdder();
+
+    private final LongAdder redeemed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 签发门店事件流票据
+     *
+     * @param principal   已认证主体
+     * @param tokenDigest 签发请求所用令牌的摘要
+     * @param storeId     门店ID（必须是主体可访问的门店）
+     * @return 票据
+     */
+    public String issue(AuthenticatedPrincipal principal, TokenDigest tokenDigest, String storeId) {
+        storeAccess.requireStore(principal, storeId);
+        long now = System.currentTimeMillis();
+        if (tickets.size() >= maxTickets) {
+            evictExpired(now);
+            if (tickets.size() >= maxTickets) {
+                throw new TooManyRequestsException("订阅票据过多，请稍后重试", retryAfterSeconds);
+            }
+        }
+        byte[] bytes = new byte[24];
+        random.nextBytes(bytes);
+        String ticket = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        tickets.put(ticket, new Ticket(new Grant(principal, tokenDigest), storeId, now + ticketTtlMs));
+        issued.increment();
+        return ticket;
+    }
+
+    /**
+     * 使用票据（一次性）
+     *
+     * @param ticket  票据
+     * @param storeId 订阅的门店ID（必须与签发时一致）
+     * @return 签发票据的主体及其令牌摘要
+     * @throws AccessDeniedException 票据不存在、已使用、已过期或门店不符
+     */
+    public Grant redeem(String ticket, String storeId) {
+        Ticket entry = ticket != null ? tickets.remove(ticket) : null;
+        if (entry == null || entry.expiresAt() < System.currentTimeMillis() || !entry.storeId().equals(storeId)) {
+            rejected.increment();
+            throw new AccessDeniedException("订阅票据无效或已过期");
+        }
+        redeemed.increment();
+        return entry.grant();
+    }
+
+    /**
+     * 定时清理过期票据
+     */
+    @Scheduled(fixedDelayString = "${device.events.ticket-ttl-ms:30000}")
+    public void evictExpired() {
+        evictExpired(System.currentTimeMillis());
+    }
+
+    /**
+     * 运行统计：签发数、使用数、拒绝数、未使用票据数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "issued", issued.sum(),
+                "redeemed", redeemed.sum(),
+                "rejected", rejected.sum(),
+                "outstanding", (long) tickets.size());
+    }
+
+    private void evictExpired(long now) {
+        tickets.values().removeIf(ticket -> ticket.expiresAt() < now);
+    }
+
+    /**
+     * 票据授予的订阅身份
+     *
+     * @param principal   签发票据的主体
+     * @param tokenDigest 签发时所用令牌的摘要
+     */
+    public record Grant(AuthenticatedPrincipal principal, TokenDigest tokenDigest) {
+    }
+
+    private record Ticket(Grant grant, String storeId, long expiresAt) {
+    }
+}
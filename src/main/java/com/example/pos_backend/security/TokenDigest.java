@@ -0,0 +1,131 @@
+package com.example.pos_backend.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HexFormat;
+
+/**
+ * JWT 令牌摘要
+ * 对令牌原文做 SHA-256，得到固定 32 字节的值，用作缓存键和索引键，避免在内存中长期持有令牌原文
+ */
+public final class TokenDigest {
+
+    /**
+     * 摘要长度（字节）
+     */
+    public static final int LENGTH = 32;
+
+    /**
+     * MessageDigest 非线程安全，每个线程复用一个实例
+     */
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("当前 JVM 不支持 SHA-256", e);
+        }
+    });
+
+    private final byte[] bytes;
+
+    private final int hash;
+
+    private TokenDigest(byte[] bytes) {
+        this.bytes = bytes;
+        this.hash = Arrays.hashCode(bytes);
+    }
+
+    /**
+     * 计算令牌摘要
+     *
+     * @param token JWT 令牌
+     * @return 令牌摘要
+     */
+    public static TokenDigest of(String token) {
+        if (token == null) {
+            throw new IllegalArgumentException("令牌不能为空");
+        }
+        return new TokenDigest(sha256(token));
+    }
+
+    /**
+     * 从已有的摘要字节构造（例如从数据库读取）
+     *
+     * @param bytes 32 字节摘要
+     * @return 令牌摘要
+     */
+    public static TokenDigest fromBytes(byte[] bytes) {
+        if (bytes == null || bytes.length != LENGTH) {
+            throw new IllegalArgumentException("令牌摘要长度必须为 " + LENGTH + " 字节");
+        }
+        return new TokenDigest(bytes.clone());
+    }
+
+    /**
+     * 计算令牌的 SHA-256 原始字节
+     *
+     * @param token JWT 令牌
+     * @return 32 字节摘要
+     */
+    public static byte[] sha256(String token) {
+        MessageDigest digest = SHA256.get();
+        digest.reset();
+        return digest.digest(token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 获取摘要字节副本
+     *
+     * @return 32 字节摘要
+     */
+    public byte[] toBytes() {
+        return bytes.clone();
+    }
+
+    /**
+     * 按大端序读取摘要中的第 index 个 64 位字（0~3）
+     * SHA-256 输出本身分布均匀，可直接作为布隆过滤器等结构的哈希值
+     *
+     * @param index 字序号
+     * @return 64 位值
+     */
+    public long word(int index) {
+        long value = 0;
+        for (int i = index << 3, end = i + 8; i < end; i++) {
+            value = (value << 8) | (bytes[i] & 0xFFL);
+        }
+        return value;
+    }
+
+    /**
+     * 获取摘要的十六进制表示
+     *
+     * @return 十六进制字符串
+     */
+    public String toHex() {
+        return HexFormat.of().formatHex(bytes);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TokenDigest other)) {
+            return false;
+        }
+        return hash == other.hash && MessageDigest.isEqual(bytes, other.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return "TokenDigest[" + toHex().substring(0, 12) + "...]";
+    }
+}
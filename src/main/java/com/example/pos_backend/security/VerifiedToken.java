@@ -0,0 +1,39 @@
+package com.example.pos_backend.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+
+/**
+ * 已验证的 JWT 令牌
+ * 签名校验通过后得到的不可变结果，可以在令牌有效期内重复使用而无需再次解析
+ *
+ * @param digest    令牌摘要
+ * @param subject   主题（用户名或商家ID）
+ * @param claims    全部声明
+ * @param expiresAt 过期时间
+ */
+public record VerifiedToken(TokenDigest digest, String subject, Claims claims, Instant expiresAt) {
+
+    /**
+     * 判断令牌在指定时间点是否已过期
+     *
+     * @param now 当前时间
+     * @return 是否过期
+     */
+    public boolean isExpiredAt(Instant now) {
+        return expiresAt != null && !now.isBefore(expiresAt);
+    }
+
+    /**
+     * 获取指定声明
+     *
+     * @param key          声明键
+     * @param requiredType 声明类型
+     * @param <T>          声明类型
+     * @return 声明值
+     */
+    public <T> T getClaim(String key, Class<T> requiredType) {
+        return claims.get(key, requiredType);
+    }
+}
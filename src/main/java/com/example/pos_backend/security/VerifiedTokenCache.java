@@ -0,0 +1,120 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.common.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 已验证令牌缓存
+ * 以令牌 SHA-256 摘要为键缓存验签结果，条目在令牌 exp 到达时失效，
+ * 同一令牌在有效期内只需要做一次 HMAC 校验和 JSON 解析
+ */
+@Slf4j
+@Component
+public class VerifiedTokenCache {
+
+    @Value("${jwt.cache.max-size:10000}")
+    private int maxSize;
+
+    private final ConcurrentHashMap<TokenDigest, VerifiedToken> entries = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * 查询缓存，已过期的条目视为未命中并被移除
+     *
+     * @param digest 令牌摘要
+     * @return 已验证令牌，不存在或已过期时返回 null
+     */
+    public VerifiedToken get(TokenDigest digest) {
+        VerifiedToken cached = entries.get(digest);
+        if (cached == null) {
+            misses.increment();
+            return null;
+        }
+        if (cached.isExpiredAt(Instant.now())) {
+            if (entries.remove(digest, cached)) {
+                evictions.increment();
+            }
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return cached;
+    }
+
+    /**
+     * 放入缓存，容量已满时先清理过期条目，仍然不足则淘汰一部分条目
+     *
+     * @param token 已验证令牌
+     */
+    public void put(VerifiedToken token) {
+        if (entries.size() >= maxSize) {
+            shrink();
+        }
+        entries.put(token.digest(), token);
+    }
+
+    /**
+     * 使指定令牌的缓存失效（例如登出或吊销时）
+     *
+     * @param digest 令牌摘要
+     */
+    public void invalidate(TokenDigest digest) {
+        if (entries.remove(digest) != null) {
+            evictions.increment();
+        }
+    }
+
+    /**
+     * 清空缓存
+     */
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * 获取缓存统计
+     *
+     * @return 统计快照
+     */
+    public CacheStats stats() {
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), entries.size());
+    }
+
+    /**
+     * 回收空间：先删除已过期条目，仍超过 90% 容量时按迭代顺序淘汰到 90% 以下
+     */
+    private synchronized void shrink() {
+        if (entries.size() < maxSize) {
+            return;
+        }
+        Instant now = Instant.now();
+        int removed = 0;
+        for (Iterator<Map.Entry<TokenDigest, VerifiedToken>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+            if (it.next().getValue().isExpiredAt(now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        int target = maxSize - maxSize / 10;
+        for (Iterator<TokenDigest> it = entries.keySet().iterator(); it.hasNext() && entries.size() > target; ) {
+            it.next();
+            it.remove();
+            removed++;
+        }
+        evictions.add(removed);
+        log.debug("令牌缓存容量回收，淘汰 {} 条，当前 {} 条", removed, entries.size());
+    }
+}
@@ -0,0 +1,435 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 数据导出服务（流式）
+ * 直接用 JDBC 游标逐行读取（MySQL 下 fetchSize = Integer.MIN_VALUE 即逐行流式返回），每行写完即丢弃，
+ * 不经过 JPA 持久化上下文，也不在内存中拼装结果列表，导出行数再多堆内存占用也只有一个行缓冲和输出缓冲。
+ * 每个导出在整个传输期间占用一个数据库连接，因此限制同时进行的导出数量。
+ * 只有导出请求使用较长的异步超时（export.timeout-ms），其他异步请求仍使用容器默认超时。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DataExportService {
+
+    private static final String MERCHANTS_SQL =
+            "SELECT id, email, business_name, industry, currency, country, status, created_at, updated_at " +
+            "FROM merchants WHERE is_deleted = FALSE ORDER BY id";
+
+    private static final String STORES_SQL =
+            "SELECT id, merchant_id, store_name, address, timezone, status, tax_rate, currency, created_at, updated_at " +
+            "FROM stores WHERE is_deleted = FALSE ORDER BY id";
+
+    private static final String STORES_BY_MERCHANT_SQL =
+            "SELECT id, merchant_id, store_name, address, timezone, status, tax_rate, currency, created_at, updated_at " +
+            "FROM stores WHERE merchant_id = ? AND is_deleted = FALSE ORDER BY id";
+
+    /**
+     * 导出列（不含 password_hash 等敏感字段）
+     */
+    private static final List<Column> MERCHANT_COLUMNS = List.of(
+            Column.text("id"), Column.text("email"), Column.text("business_name"), Column.text("industry"),
+            Column.text("currency"), Column.text("country"), Column.text("status"),
+            Column.timestamp("created_at"), Column.timestamp("updated_at"));
+
+    private static final List<Column> STORE_COLUMNS = List.of(
+            Column.text("id"), Column.text("merchant_id"), Column.text("store_name"), Column.text("address"),
+            Column.text("timezone"), Column.text("status"), Column.decimal("tax_rate"), Column.text("currency"),
+            Column.timestamp("created_at"), Column.timestamp("updated_at"));
+
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+
+    @Value("${export.fetch-size:0}")
+    private int fetchSize;
+
+    @Value("${export.buffer-size:65536}")
+    private int bufferSize;
+
+    @Value("${export.max-concurrent:2}")
+    private int maxConcurrent;
+
+    @Value("${export.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    @Value("${export.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    private JdbcTemplate streamingJdbcTemplate;
+
+    private Semaphore permits;
+
+    private final LongAdder exports = new LongAdder();
+
+    private final LongAdder rowsExported = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 初始化流式查询模板，fetch-size 未配置时使用 MySQL 逐行流式模式
+     */
+    @PostConstruct
+    public void init() {
+        this.streamingJdbcTemplate = new JdbcTemplate(dataSource);
+        this.streamingJdbcTemplate.setFetchSize(fetchSize > 0 ? fetchSize : Integer.MIN_VALUE);
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * 导出全部有效商家
+     *
+     * @param format 导出格式
+     * @param gzip   是否 gzip 压缩
+     * @return 流式响应体
+     */
+    public StreamingResponseBody exportMerchants(Format format, boolean gzip) {
+        return open("merchants", format, gzip, MERCHANT_COLUMNS, MERCHANTS_SQL);
+    }
+
+    /**
+     * 导出门店，可按商家过滤
+     *
+     * @param merchantId 商家ID（为空时导出全部门店）
+     * @param format     导出格式
+     * @param gzip       是否 gzip 压缩
+     * @return 流式响应体
+     */
+    public StreamingResponseBody exportStores(String merchantId, Format format, boolean gzip) {
+        return merchantId != null
+                ? open("stores", format, gzip, STORE_COLUMNS, STORES_BY_MERCHANT_SQL, merchantId)
+                : open("stores", format, gzip, STORE_COLUMNS, STORES_SQL);
+    }
+
+    /**
+     * 运行统计：导出次数、导出行数、失败次数、因并发上限被拒绝次数、进行中的导出数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "exports", exports.sum(),
+                "rows", rowsExported.sum(),
+                "failures", failures.sum(),
+                "rejected", rejected.sum(),
+                "active", (long) (Math.max(1, maxConcurrent) - permits.availablePermits()));
+    }
+
+    /**
+     * 在请求线程中占用并发名额，并在当前请求上登记异步拦截器：
+     * 异步请求结束时（完成、超时、出错或客户端断开）都会释放名额，响应体没有被执行也不会泄漏
+     */
+    private StreamingResponseBody open(String name, Format format, boolean gzip,
+                                       List<Column> columns, String sql, Object... args) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new TooManyRequestsException("导出任务过多，请稍后再试", retryAfterSeconds);
+        }
+        ExportLease lease = new ExportLease();
+        try {
+            ServletRequestAttributes attributes = (ServletRequestAttributes) RequestContextHolder.currentRequestAttributes();
+            WebAsyncUtils.getAsyncManager(attributes.getRequest()).registerCallableInterceptor(lease, lease);
+        } catch (RuntimeException e) {
+            lease.release();
+            throw e;
+        }
+        return out -> {
+            long startedAt = System.currentTimeMillis();
+            try {
+                long rows = stream(out, format, gzip, columns, sql, args);
+                exports.increment();
+                log.info("Exported {} {} rows as {} in {} ms", rows, name, format, System.currentTimeMillis() - startedAt);
+            } catch (IOException | RuntimeException e) {
+                failures.increment();
+                log.warn("Export of {} failed after {} ms: {}", name, System.currentTimeMillis() - startedAt, e.getMessage());
+                throw e;
+            } finally {
+                lease.release();
+            }
+        };
+    }
+
+    private long stream(OutputStream out, Format format, boolean gzip,
+                        List<Column> columns, String sql, Object... args) throws IOException {
+        OutputStream target = gzip
+                ? new GZIPOutputStream(out, bufferSize)
+                : new BufferedOutputStream(out, bufferSize);
+        RowSink sink = format == Format.CSV ? new CsvSink(target, columns) : new NdjsonSink(target, columns);
+        LongAdder rows = new LongAdder();
+        try {
+            sink.begin();
+            streamingJdbcTemplate.query(sql, (RowCallbackHandler) rs -> {
+                try {
+                    sink.row(rs);
+                } catch (IOException e) {
+                    // 客户端断开时终止游标读取
+                    throw new UncheckedIOException(e);
+                }
+                rows.increment();
+            }, args);
+            sink.end();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            rowsExported.add(rows.sum());
+        }
+        if (target instanceof GZIPOutputStream gzipStream) {
+            gzipStream.finish();
+        }
+        target.flush();
+        return rows.sum();
+    }
+
+    /**
+     * 单个导出占用的并发名额
+     * 开始异步处理前把超时设为导出专用值，异步请求结束时释放名额；重复释放只生效一次
+     */
+    private final class ExportLease implements CallableProcessingInterceptor {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+            if (request instanceof AsyncWebRequest asyncRequest) {
+                asyncRequest.setTimeout(timeoutMs);
+            }
+        }
+
+        @Override
+        public <T> void afterCompletion(NativeWebRequest request, Callable<T> task) {
+            release();
+        }
+
+        void release() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * 导出格式
+     */
+    public enum Format {
+
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv;charset=UTF-8", "csv");
+
+        private final String contentType;
+
+        private final String extension;
+
+        Format(String contentType, String extension) {
+            this.contentType = contentType;
+            this.extension = extension;
+        }
+
+        public String getContentType() {
+            return contentType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        /**
+         * 解析格式参数
+         *
+         * @param value 格式名称（ndjson / csv，不区分大小写）
+         * @return 导出格式
+         */
+        public static Format of(String value) {
+            try {
+                return Format.valueOf(value.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw BusinessException.dataValidation("不支持的文件格式: " + value);
+            }
+        }
+    }
+
+    private enum Kind { TEXT, DECIMAL, TIMESTAMP }
+
+    /**
+     * 导出列定义
+     */
+    private record Column(String name, Kind kind) {
+
+        static Column text(String name) {
+            return new Column(name, Kind.TEXT);
+        }
+
+        static Column decimal(String name) {
+            return new Column(name, Kind.DECIMAL);
+        }
+
+        static Column timestamp(String name) {
+            return new Column(name, Kind.TIMESTAMP);
+        }
+
+        /**
+         * 读取列值，时间统一输出为 ISO-8601 UTC
+         */
+        String read(ResultSet rs) throws SQLException {
+            if (kind == Kind.TIMESTAMP) {
+                Timestamp value = rs.getTimestamp(name);
+                return value != null ? value.toInstant().toString() : null;
+            }
+            return rs.getString(name);
+        }
+    }
+
+    /**
+     * 行输出
+     */
+    private interface RowSink {
+
+        void begin() throws IOException;
+
+        void row(ResultSet rs) throws SQLException, IOException;
+
+        void end() throws IOException;
+    }
+
+    /**
+     * 每行一个 JSON 对象
+     */
+    private final class NdjsonSink implements RowSink {
+
+        private final JsonGenerator generator;
+
+        private final List<Column> columns;
+
+        NdjsonSink(OutputStream out, List<Column> columns) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.columns = columns;
+        }
+
+        @Override
+        public void begin() {
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (Column column : columns) {
+                String value = column.read(rs);
+                generator.writeFieldName(column.name());
+                if (value == null) {
+                    generator.writeNull();
+                } else if (column.kind() == Kind.DECIMAL) {
+                    generator.writeNumber(value);
+                } else {
+                    generator.writeString(value);
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void end() throws IOException {
+            generator.flush();
+        }
+    }
+
+    /**
+     * RFC 4180 CSV，首行为列名
+     */
+    private static final class CsvSink implements RowSink {
+
+        private final Writer writer;
+
+        private final List<Column> columns;
+
+        CsvSink(OutputStream out, List<Column> columns) {
+            this.writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            this.columns = columns;
+        }
+
+        @Override
+        public void begin() throws IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(columns.get(i).name());
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void row(ResultSet rs) throws SQLException, IOException {
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                String value = columns.get(i).read(rs);
+                if (value != null) {
+                    writeEscaped(value);
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            writer.flush();
+        }
+
+        private void writeEscaped(String value) throws IOException {
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
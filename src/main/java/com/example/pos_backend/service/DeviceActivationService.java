@@ -0,0 +1,174 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.DeviceCodeFormat;
+import com.example.pos_backend.constants.DeviceCodeConstants;
+import com.example.pos_backend.dto.DeviceActivationRequestDTO;
+import com.example.pos_backend.dto.DeviceCodeResponseDTO;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.DeviceActivationLimiter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备激活服务
+ * 激活是一条条件 UPDATE：仅当激活码为 UNUSED、未过期、尝试次数未用完且未指定其他设备指纹时，
+ * 同时完成尝试次数加一和 UNUSED -> BOUND 转换（按状态和尝试次数的比较并交换），不使用悲观锁，也不在事务中先读后写。
+ * 每台终端各自更新自己的激活码行（唯一索引等值条件，只锁一行且随语句提交释放），整店批量开通时互不等待。
+ * 更新成功后按激活码（唯一索引）回读一次整行，终端由此得知所属门店，首次激活与重试返回相同结构；
+ * 更新失败时同样读一次当前状态，区分不存在、已绑定、已过期、次数用完和设备不匹配；
+ * 同一设备重复激活（如响应丢失后重试）按成功返回。失败次数记入节点本地的按指纹 / IP 滑动窗口限流。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceActivationService {
+
+    private static final String BIND_SQL =
+            "UPDATE device_codes SET status = 'BOUND', activation_attempts = activation_attempts + 1, "
+                    + "device_fingerprint = ?, bound_at = ?, updated_at = ? "
+                    + "WHERE device_code = ? AND status = 'UNUSED' AND activation_attempts < max_attempts "
+                    + "AND (expired_at IS NULL OR expired_at > ?) "
+                    + "AND (device_fingerprint IS NULL OR device_fingerprint = ?) AND is_deleted = FALSE";
+
+    private static final String RECORD_ATTEMPT_SQL =
+            "UPDATE device_codes SET activation_attempts = activation_attempts + 1, updated_at = ? "
+                    + "WHERE device_code = ? AND status = 'UNUSED' AND activation_attempts < max_attempts "
+                    + "AND (expired_at IS NULL OR expired_at > ?) AND is_deleted = FALSE";
+
+    private static final String SELECT_SQL =
+            "SELECT device_code_id, device_code, device_id, store_id, device_fingerprint, status, activation_attempts, "
+                    + "max_attempts, issued_at, expired_at, bound_at, updated_at, is_deleted FROM device_codes WHERE device_code = ?";
+
+    private static final RowMapper<DeviceCodeResponseDTO> ROW_MAPPER = (rs, rowNum) -> DeviceCodeResponseDTO.builder()
+            .id(rs.getString("device_code_id"))
+            .deviceCode(rs.getString("device_code"))
+            .deviceId(rs.getString("device_id"))
+            .storeId(rs.getString("store_id"))
+            .deviceFingerprint(rs.getString("device_fingerprint"))
+            .status(rs.getString("status"))
+            .activationAttempts(rs.getInt("activation_attempts"))
+            .maxAttempts(rs.getInt("max_attempts"))
+            .issuedAt(toInstant(rs.getTimestamp("issued_at")))
+            .expiredAt(toInstant(rs.getTimestamp("expired_at")))
+            .boundAt(toInstant(rs.getTimestamp("bound_at")))
+            .updatedAt(toInstant(rs.getTimestamp("updated_at")))
+            .isDeleted(rs.getBoolean("is_deleted"))
+            .build();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DeviceActivationLimiter deviceActivationLimiter;
+
+    private final LongAdder activations = new LongAdder();
+
+    private final LongAdder repeatedActivations = new LongAdder();
+
+    private final LongAdder notFound = new LongAdder();
+
+    private final LongAdder alreadyBound = new LongAdder();
+
+    private final LongAdder expired = new LongAdder();
+
+    private final LongAdder attemptsExhausted = new LongAdder();
+
+    private final LongAdder fingerprintMismatches = new LongAdder();
+
+    /**
+     * 使用激活码激活设备
+     *
+     * @param requestDTO 激活请求
+     * @param ipAddress  客户端IP（可为空）
+     * @return 已绑定的激活码
+     */
+    public DeviceCodeResponseDTO activate(DeviceActivationRequestDTO requestDTO, String ipAddress) {
+        String fingerprint = requestDTO.getDeviceFingerprint();
+        deviceActivationLimiter.check(fingerprint, ipAddress);
+
+        // 校验位不对的码不查库
+        String code = DeviceCodeFormat.normalize(requestDTO.getActivationCode());
+        if (code == null || !DeviceCodeFormat.isValid(code)) {
+            notFound.increment();
+            throw fail(BusinessException.dataValidation("激活码无效，请检查输入"), fingerprint, ipAddress);
+        }
+
+        Timestamp now = Timestamp.from(Instant.now());
+        int updated = jdbcTemplate.update(BIND_SQL, fingerprint, now, now, code, now, fingerprint);
+        List<DeviceCodeResponseDTO> rows = jdbcTemplate.query(SELECT_SQL, ROW_MAPPER, code);
+        DeviceCodeResponseDTO current = rows.isEmpty() ? null : rows.get(0);
+        if (updated == 1 && current != null) {
+            activations.increment();
+            log.info("设备激活成功: code={}, fingerprint={}", code, fingerprint);
+            return current;
+        }
+        if (current != null && DeviceCodeConstants.Status.BOUND.equals(current.getStatus())
+                && Objects.equals(current.getDeviceFingerprint(), fingerprint)) {
+            // 同一设备重试（如响应丢失），幂等返回
+            repeatedActivations.increment();
+            return current;
+        }
+        throw fail(rejection(current, code, fingerprint, now), fingerprint, ipAddress);
+    }
+
+    /**
+     * 运行统计：激活成功数、重复激活数、各类失败数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "activations", activations.sum(),
+                "repeatedActivations", repeatedActivations.sum(),
+                "notFound", notFound.sum(),
+                "alreadyBound", alreadyBound.sum(),
+                "expired", expired.sum(),
+                "attemptsExhausted", attemptsExhausted.sum(),
+                "fingerprintMismatches", fingerprintMismatches.sum());
+    }
+
+    /**
+     * 条件 UPDATE 未命中时按当前状态给出拒绝原因
+     */
+    private BusinessException rejection(DeviceCodeResponseDTO current, String code, String fingerprint, Timestamp now) {
+        if (current == null || Boolean.TRUE.equals(current.getIsDeleted())
+                || DeviceCodeConstants.Status.POOLED.equals(current.getStatus())) {
+            notFound.increment();
+            return BusinessException.dataNotFound("激活码无效，请检查输入");
+        }
+        if (DeviceCodeConstants.Status.BOUND.equals(current.getStatus())) {
+            alreadyBound.increment();
+            return BusinessException.statusError("激活码已被使用");
+        }
+        if (DeviceCodeConstants.Status.EXPIRED.equals(current.getStatus())
+                || (current.getExpiredAt() != null && !current.getExpiredAt().isAfter(now.toInstant()))) {
+            expired.increment();
+            return BusinessException.statusError("激活码已过期");
+        }
+        if (current.getActivationAttempts() >= current.getMaxAttempts()) {
+            attemptsExhausted.increment();
+            return BusinessException.operationNotAllowed("激活码尝试次数已用完，请重新获取");
+        }
+        // 激活码指定了其他设备：计一次失败尝试
+        jdbcTemplate.update(RECORD_ATTEMPT_SQL, now, code, now);
+        fingerprintMismatches.increment();
+        return BusinessException.dataValidation("激活码与当前设备不匹配");
+    }
+
+    private BusinessException fail(BusinessException e, String fingerprint, String ipAddress) {
+        deviceActivationLimiter.recordFailure(fingerprint, ipAddress);
+        return e;
+    }
+
+    private static Instant toInstant(Timestamp timestamp) {
+        return timestamp != null ? timestamp.toInstant() : null;
+    }
+}
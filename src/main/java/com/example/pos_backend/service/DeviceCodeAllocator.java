@@ -0,0 +1,334 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.DeviceCodeFormat;
+import com.example.pos_backend.constants.DeviceCodeConstants;
+import com.example.pos_backend.dto.DeviceCodeResponseDTO;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.StoreAccess;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.SecureRandom;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备激活码池（节点本地）
+ * 后台批量预生成激活码并以 POOLED 状态写入 device_codes，发放时只需从内存队列取出一个码，
+ * 再用一条条件 UPDATE（WHERE status = 'POOLED'）把它转为 UNUSED，不在请求路径上生成随机码、查重或重试插入。
+ * 批量写入使用 INSERT IGNORE，与已有码冲突的行被唯一索引跳过，写入后按主键查回实际入库的行；
+ * 条件 UPDATE 保证同一个码只会被一个请求（或一个节点）发放，更新行数为 0 时直接取下一个码。
+ * 队列低于低水位时异步补充到目标容量；取空时在请求线程上同步补充。
+ * 进程退出时队列中的码留在库中，下次启动时认领超过认领时长的 POOLED 行。
+ * 激活码只能发放到操作人可访问的门店，发放时写入门店ID。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceCodeAllocator {
+
+    /**
+     * 单次发放时条件 UPDATE 失败后重新取码的最大轮数
+     */
+    private static final int MAX_ISSUE_ROUNDS = 5;
+
+    private static final String INSERT_SQL =
+            "INSERT IGNORE INTO device_codes (device_code_id, device_code, status, activation_attempts, max_attempts, "
+                    + "issued_at, created_at, updated_at, is_deleted) VALUES (?, ?, 'POOLED', 0, ?, NULL, ?, ?, FALSE)";
+
+    private static final String INSERTED_SQL =
+            "SELECT device_code_id, device_code FROM device_codes WHERE device_code_id IN (:ids)";
+
+    private static final String ORPHANED_SQL =
+            "SELECT device_code_id, device_code FROM device_codes "
+                    + "WHERE status = 'POOLED' AND is_deleted = FALSE AND created_at < ? LIMIT ?";
+
+    private static final String ISSUE_SQL =
+            "UPDATE device_codes SET status = 'UNUSED', store_id = ?, issued_at = ?, expired_at = ?, activation_attempts = 0, "
+                    + "device_fingerprint = ?, updated_at = ?, updated_by = ? WHERE device_code_id = ? AND status = 'POOLED'";
+
+    private static final RowMapper<PooledCode> POOLED_CODE_MAPPER =
+            (rs, rowNum) -> new PooledCode(rs.getString("device_code_id"), rs.getString("device_code"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    private final DeviceCodeExpiryScheduler deviceCodeExpiryScheduler;
+
+    private final StoreAccess storeAccess;
+
+    @Value("${device-code.pool.target-size:2000}")
+    private int targetSize;
+
+    @Value("${device-code.pool.low-watermark:500}")
+    private int lowWatermark;
+
+    @Value("${device-code.pool.batch-size:500}")
+    private int batchSize;
+
+    @Value("${device-code.pool.adopt-after-ms:600000}")
+    private long adoptAfterMs;
+
+    @Value("${device-code.ttl-ms:900000}")
+    private long ttlMs;
+
+    @Value("${device-code.max-attempts:3}")
+    private int maxAttempts;
+
+    @Value("${device-code.max-issue-count:1000}")
+    private int maxIssueCount;
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final ConcurrentLinkedQueue<PooledCode> pool = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger poolSize = new AtomicInteger();
+
+    private final AtomicBoolean refilling = new AtomicBoolean();
+
+    private final ExecutorService refillExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "device-code-refill");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final LongAdder issued = new LongAdder();
+
+    private final LongAdder generated = new LongAdder();
+
+    private final LongAdder collisions = new LongAdder();
+
+    private final LongAdder claimConflicts = new LongAdder();
+
+    private final LongAdder adopted = new LongAdder();
+
+    private final LongAdder refills = new LongAdder();
+
+    private final LongAdder syncRefills = new LongAdder();
+
+    private final LongAdder refillFailures = new LongAdder();
+
+    /**
+     * 应用启动完成后认领遗留的 POOLED 行并补满队列
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        try {
+            List<PooledCode> orphaned = jdbcTemplate.query(ORPHANED_SQL, POOLED_CODE_MAPPER,
+                    Timestamp.from(Instant.now().minusMillis(adoptAfterMs)), targetSize);
+            offer(orphaned);
+            adopted.add(orphaned.size());
+            refill();
+            log.info("设备码池初始化完成，认领遗留码 {} 个，当前 {} 个", orphaned.size(), poolSize.get());
+        } catch (Exception e) {
+            log.warn("设备码池初始化失败，首次发放时同步补充: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 发放激活码
+     *
+     * @param count             发放数量
+     * @param storeId           发放门店ID（必须是操作人可访问的门店）
+     * @param deviceFingerprint 限定激活设备的指纹（可为空，为空时任意设备可用）
+     * @param operator          操作人
+     * @return 已发放的激活码
+     */
+    public List<DeviceCodeResponseDTO> issue(int count, String storeId, String deviceFingerprint, AuthenticatedPrincipal operator) {
+        if (count < 1 || count > maxIssueCount) {
+            throw BusinessException.dataValidation("发放数量必须在 1 到 " + maxIssueCount + " 之间");
+        }
+        storeAccess.requireStore(operator, storeId);
+        // updated_by 外键指向 users，只记录员工操作人；商家账号不是 users 中的行，不写入
+        String issuedBy = operator.type() == AuthenticatedPrincipal.Type.USER ? operator.id() : null;
+        Instant now = Instant.now();
+        Instant expiredAt = now.plusMillis(ttlMs);
+        List<DeviceCodeResponseDTO> result = new ArrayList<>(count);
+        for (int round = 0; round < MAX_ISSUE_ROUNDS && result.size() < count; round++) {
+            List<PooledCode> claimed = take(count - result.size());
+            int[] updated = jdbcTemplate.batchUpdate(ISSUE_SQL, claimed.stream()
+                    .map(code -> new Object[]{storeId, Timestamp.from(now), Timestamp.from(expiredAt), deviceFingerprint,
+                            Timestamp.from(now), issuedBy, code.id()})
+                    .toList());
+            for (int i = 0; i < claimed.size(); i++) {
+                if (updated[i] == 1) {
+                    deviceCodeExpiryScheduler.register(claimed.get(i).id(), expiredAt);
+                    result.add(toResponseDTO(claimed.get(i), storeId, now, expiredAt, deviceFingerprint, issuedBy));
+                } else {
+                    // 已被其他节点认领发放
+                    claimConflicts.increment();
+                }
+            }
+        }
+        if (result.size() < count) {
+            throw new BusinessException("设备码发放失败，请稍后重试");
+        }
+        issued.add(count);
+        maybeRefillAsync();
+        return result;
+    }
+
+    /**
+     * 定时检查水位，兜底补充
+     */
+    @Scheduled(fixedDelayString = "${device-code.pool.check-interval-ms:10000}",
+               initialDelayString = "${device-code.pool.check-interval-ms:10000}")
+    public void maintain() {
+        maybeRefillAsync();
+    }
+
+    /**
+     * 运行统计：队列中可发放数、已发放数、生成数、唯一索引冲突数、发放冲突数、认领遗留数、补充次数、同步补充次数、补充失败次数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "pooled", (long) poolSize.get(),
+                "issued", issued.sum(),
+                "generated", generated.sum(),
+                "collisions", collisions.sum(),
+                "claimConflicts", claimConflicts.sum(),
+                "adopted", adopted.sum(),
+                "refills", refills.sum(),
+                "syncRefills", syncRefills.sum(),
+                "refillFailures", refillFailures.sum());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refillExecutor.shutdownNow();
+    }
+
+    /**
+     * 从队列取出最多 n 个码，不足时同步补充
+     */
+    private List<PooledCode> take(int n) {
+        List<PooledCode> taken = new ArrayList<>(n);
+        drain(taken, n);
+        if (taken.size() < n) {
+            syncRefills.increment();
+            fill(Math.max(batchSize, n - taken.size()));
+            drain(taken, n);
+        }
+        if (taken.isEmpty()) {
+            throw new BusinessException("设备码池暂无可用码，请稍后重试");
+        }
+        return taken;
+    }
+
+    private void drain(List<PooledCode> target, int n) {
+        PooledCode code;
+        while (target.size() < n && (code = pool.poll()) != null) {
+            poolSize.decrementAndGet();
+            target.add(code);
+        }
+    }
+
+    private void maybeRefillAsync() {
+        if (poolSize.get() >= lowWatermark || !refilling.compareAndSet(false, true)) {
+            return;
+        }
+        refillExecutor.execute(() -> {
+            try {
+                refill();
+            } catch (Exception e) {
+                refillFailures.increment();
+                log.warn("设备码池补充失败: {}", e.getMessage());
+            } finally {
+                refilling.set(false);
+            }
+        });
+    }
+
+    /**
+     * 按批补充到目标容量
+     */
+    private void refill() {
+        while (poolSize.get() < targetSize) {
+            if (fill(Math.min(batchSize, targetSize - poolSize.get())) == 0) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 生成一批码写入数据库并放入队列
+     *
+     * @return 实际入池数
+     */
+    private synchronized int fill(int n) {
+        Map<String, String> batch = new LinkedHashMap<>(n * 4 / 3 + 1);
+        Set<String> codes = new HashSet<>(n * 4 / 3 + 1);
+        while (codes.size() < n) {
+            String code = DeviceCodeFormat.generate(random);
+            if (codes.add(code)) {
+                batch.put(UUID.randomUUID().toString(), code);
+            }
+        }
+        Timestamp now = Timestamp.from(Instant.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch.entrySet().stream()
+                .map(e -> new Object[]{e.getKey(), e.getValue(), maxAttempts, now, now})
+                .toList());
+        // 开启 rewriteBatchedStatements 后多值 INSERT 不返回逐行结果，按主键查回实际写入的行
+        List<PooledCode> inserted = namedParameterJdbcTemplate.query(INSERTED_SQL,
+                Map.of("ids", batch.keySet()), POOLED_CODE_MAPPER);
+        offer(inserted);
+        generated.add(n);
+        collisions.add(n - inserted.size());
+        refills.increment();
+        return inserted.size();
+    }
+
+    private void offer(List<PooledCode> codes) {
+        for (PooledCode code : codes) {
+            pool.offer(code);
+            poolSize.incrementAndGet();
+        }
+    }
+
+    private DeviceCodeResponseDTO toResponseDTO(PooledCode code, String storeId, Instant issuedAt, Instant expiredAt,
+                                                String deviceFingerprint, String issuedBy) {
+        return DeviceCodeResponseDTO.builder()
+                .id(code.id())
+                .deviceCode(code.code())
+                .storeId(storeId)
+                .deviceFingerprint(deviceFingerprint)
+                .activationAttempts(0)
+                .maxAttempts(maxAttempts)
+                .status(DeviceCodeConstants.Status.UNUSED)
+                .issuedAt(issuedAt)
+                .expiredAt(expiredAt)
+                .updatedAt(issuedAt)
+                .updatedBy(issuedBy)
+                .isDeleted(false)
+                .build();
+    }
+
+    private record PooledCode(String id, String code) {
+    }
+}
@@ -0,0 +1,201 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.HierarchicalTimingWheel;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 设备激活码过期调度（节点本地）
+ * 启动时先把已过期的 UNUSED 码分批置为 EXPIRED，再把未过期的 UNUSED 码按过期时间放入分层时间轮；
+ * 之后本节点发放的码在发放时登记，其他节点发放的码按 issued_at 增量同步（只扫描最近发放的索引范围）。
+ * 每个刻度取出到期的码，按主键分批执行条件 UPDATE（仍为 UNUSED 且已到过期时间才改为 EXPIRED），
+ * 已绑定的码不受影响，不再按 expired_at 定期扫描整表。过期延迟不超过一个刻度加一次调度间隔。
+ * 激活时的条件 UPDATE 自身校验过期时间，状态转换稍有延迟也不会放行过期码。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceCodeExpiryScheduler {
+
+    /**
+     * 增量同步回看窗口，覆盖事务提交延迟和节点间时钟偏差
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String EXPIRE_OVERDUE_SQL =
+            "UPDATE device_codes SET status = 'EXPIRED', updated_at = ? "
+                    + "WHERE status = 'UNUSED' AND expired_at <= ? AND is_deleted = FALSE LIMIT ?";
+
+    private static final String LOAD_SQL =
+            "SELECT device_code_id, expired_at FROM device_codes "
+                    + "WHERE status = 'UNUSED' AND expired_at > ? AND is_deleted = FALSE";
+
+    private static final String CHANGES_SQL =
+            "SELECT device_code_id, expired_at FROM device_codes "
+                    + "WHERE issued_at >= ? AND status = 'UNUSED' AND expired_at IS NOT NULL AND is_deleted = FALSE";
+
+    private static final String EXPIRE_SQL =
+            "UPDATE device_codes SET status = 'EXPIRED', updated_at = :now "
+                    + "WHERE device_code_id IN (:ids) AND status = 'UNUSED' AND expired_at <= :now AND is_deleted = FALSE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Value("${device-code.expiry.tick-ms:1000}")
+    private long tickMs;
+
+    @Value("${device-code.expiry.wheel-size:64}")
+    private int wheelSize;
+
+    @Value("${device-code.expiry.batch-size:500}")
+    private int batchSize;
+
+    private HierarchicalTimingWheel<String> wheel;
+
+    private volatile boolean loaded;
+
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    /**
+     * 上一轮更新失败、待重试的码（仅在调度线程访问）
+     */
+    private final List<String> retry = new ArrayList<>();
+
+    private final LongAdder registered = new LongAdder();
+
+    private final LongAdder synced = new LongAdder();
+
+    private final LongAdder due = new LongAdder();
+
+    private final LongAdder expired = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        this.wheel = new HierarchicalTimingWheel<>(tickMs, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * 应用启动完成后处理已过期的码并加载未过期的码
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        Instant now = Instant.now();
+        int limit = Math.max(1, batchSize);
+        long overdue = 0;
+        int updated;
+        do {
+            updated = jdbcTemplate.update(EXPIRE_OVERDUE_SQL, Timestamp.from(now), Timestamp.from(now), limit);
+            overdue += updated;
+        } while (updated == limit);
+        expired.add(overdue);
+
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            wheel.add(rs.getString("device_code_id"), rs.getTimestamp("expired_at").getTime());
+        }, Timestamp.from(now));
+        syncedUntil = now;
+        loaded = true;
+        log.info("设备码过期调度初始化完成，已过期 {} 个，待过期 {} 个", overdue, wheel.size());
+    }
+
+    /**
+     * 登记新发放的码
+     *
+     * @param deviceCodeId 设备码ID
+     * @param expiredAt    过期时间
+     */
+    public void register(String deviceCodeId, Instant expiredAt) {
+        wheel.add(deviceCodeId, expiredAt.toEpochMilli());
+        registered.increment();
+    }
+
+    /**
+     * 推进时间轮，分批过期到期的码
+     */
+    @Scheduled(fixedDelayString = "${device-code.expiry.tick-ms:1000}",
+               initialDelayString = "${device-code.expiry.tick-ms:1000}")
+    public void tick() {
+        if (!loaded) {
+            return;
+        }
+        // 同步增量与登记可能重复，按ID去重
+        LinkedHashSet<String> ids = new LinkedHashSet<>(retry);
+        retry.clear();
+        due.add(wheel.advance(System.currentTimeMillis(), ids::add));
+        if (ids.isEmpty()) {
+            return;
+        }
+        List<String> pending = new ArrayList<>(ids);
+        for (int from = 0; from < pending.size(); from += batchSize) {
+            List<String> batch = pending.subList(from, Math.min(from + batchSize, pending.size()));
+            try {
+                expired.add(namedParameterJdbcTemplate.update(EXPIRE_SQL,
+                        Map.of("ids", batch, "now", Timestamp.from(Instant.now()))));
+                batches.increment();
+            } catch (Exception e) {
+                failures.increment();
+                retry.addAll(batch);
+                log.warn("设备码过期更新失败，{} 个码下一刻度重试: {}", batch.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 定时同步其他节点发放的码
+     */
+    @Scheduled(fixedDelayString = "${device-code.expiry.sync-interval-ms:30000}",
+               initialDelayString = "${device-code.expiry.sync-interval-ms:30000}")
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            Instant now = Instant.now();
+            jdbcTemplate.query(CHANGES_SQL, rs -> {
+                wheel.add(rs.getString("device_code_id"), rs.getTimestamp("expired_at").getTime());
+                synced.increment();
+            }, Timestamp.from(syncedUntil.minus(SYNC_OVERLAP)));
+            syncedUntil = now;
+        } catch (Exception e) {
+            log.warn("设备码过期调度同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 运行统计：时间轮中待过期数、层数、登记数、同步数、到期数、实际置为过期数、UPDATE 批次数、失败批次数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "pending", (long) wheel.size(),
+                "levels", (long) wheel.levelCount(),
+                "registered", registered.sum(),
+                "synced", synced.sum(),
+                "due", due.sum(),
+                "expired", expired.sum(),
+                "batches", batches.sum(),
+                "failures", failures.sum());
+    }
+}
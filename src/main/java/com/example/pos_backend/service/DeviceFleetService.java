@@ -0,0 +1,89 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.CursorPage;
+import com.example.pos_backend.common.PageCursor;
+import com.example.pos_backend.constants.DeviceConstants;
+import com.example.pos_backend.dto.DeviceView;
+import com.example.pos_backend.entity.Device;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.repository.DeviceRepository;
+import com.example.pos_backend.repository.DeviceSpecifications;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.StoreAccess;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 设备列表查询服务
+ * 查询限定在调用方可访问的单个门店内，类型、状态、最后在线时间区间、名称前缀按需组合为一个 Specification，
+ * 按 last_online DESC, device_id DESC 键集分页，每页只读取 size + 1 行投影，翻页不使用 OFFSET。
+ */
+@Service
+@RequiredArgsConstructor
+public class DeviceFleetService {
+
+    /**
+     * 名称前缀最大长度（devices.device_name 列宽）
+     */
+    private static final int MAX_NAME_PREFIX_LENGTH = 100;
+
+    private final DeviceRepository deviceRepository;
+
+    private final StoreAccess storeAccess;
+
+    /**
+     * 组合条件查询设备（键集分页）
+     *
+     * @param storeId        门店ID（必须是调用方可访问的门店）
+     * @param deviceType     设备类型（可为空）
+     * @param status         在线状态 ONLINE / OFFLINE（可为空）
+     * @param lastOnlineFrom 最后在线时间下限，含（可为空）
+     * @param lastOnlineTo   最后在线时间上限，不含（可为空）
+     * @param namePrefix     设备名称前缀（可为空）
+     * @param cursor         分页游标，第一页为空
+     * @param size           页大小
+     * @param principal      已认证主体
+     * @return 设备投影分页
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<DeviceView> search(String storeId, String deviceType, String status,
+                                         Instant lastOnlineFrom, Instant lastOnlineTo, String namePrefix,
+                                         String cursor, Integer size, AuthenticatedPrincipal principal) {
+        storeAccess.requireStore(principal, storeId);
+        if (status != null && !DeviceConstants.Status.ONLINE.equals(status) && !DeviceConstants.Status.OFFLINE.equals(status)) {
+            throw BusinessException.dataValidation("设备状态只能为 ONLINE 或 OFFLINE");
+        }
+        if (lastOnlineFrom != null && lastOnlineTo != null && !lastOnlineFrom.isBefore(lastOnlineTo)) {
+            throw BusinessException.dataValidation("最后在线时间下限必须早于上限");
+        }
+        if (namePrefix != null && namePrefix.length() > MAX_NAME_PREFIX_LENGTH) {
+            throw BusinessException.dataValidation("名称前缀长度不能超过" + MAX_NAME_PREFIX_LENGTH + "个字符");
+        }
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.resolvePageSize(size);
+
+        Specification<Device> filter = Specification.allOf(
+                DeviceSpecifications.notDeleted(),
+                DeviceSpecifications.inStore(storeId),
+                DeviceSpecifications.hasStatus(status),
+                DeviceSpecifications.lastOnlineFrom(lastOnlineFrom),
+                DeviceSpecifications.lastOnlineBefore(lastOnlineTo),
+                DeviceSpecifications.hasType(emptyToNull(deviceType)),
+                DeviceSpecifications.nameStartsWith(emptyToNull(namePrefix)),
+                after != null ? DeviceSpecifications.after(after.time(), after.id()) : null);
+
+        List<DeviceView> rows = deviceRepository.findFleetPage(filter, pageSize + 1);
+        return PageCursor.toPage(rows, pageSize, DeviceView::lastOnline, DeviceView::id, Function.identity());
+    }
+
+    private static String emptyToNull(String value) {
+        return StringUtils.hasText(value) ? value.trim() : null;
+    }
+}
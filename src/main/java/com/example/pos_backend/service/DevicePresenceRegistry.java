@@ -0,0 +1,616 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.LocalCache;
+import com.example.pos_backend.constants.DeviceConstants;
+import com.example.pos_backend.dto.DevicePresenceDTO;
+import com.example.pos_backend.dto.StoreDeviceStatusDTO;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.StoreAccess;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * 设备在线状态表（节点本地，写回合并）
+ * 心跳只更新内存中 deviceId -> 最后心跳时间 / 来源IP，不产生行写入；
+ * 清扫任务把静默超过阈值的设备标记为 OFFLINE，写回任务按批把状态变化和 last_online 更新到 devices，
+ * 同一台在线设备的 last_online 在写回间隔内只写一次。在线 / 离线 / 长时间未上线查询直接读内存，不扫描设备表。
+ * 启动时加载全部设备，定时与设备表对账：补充新设备、移除已删除设备、吸收其他节点写回的更新心跳。
+ * 状态变化和心跳推送给订阅了所属门店的客户端（DeviceStatusBroadcaster）。
+ * 心跳和查询都限定在调用方可访问的门店内（商家名下门店 / 员工令牌所属门店），设备不存在与无权访问不作区分；
+ * 不存在的设备ID短时间负缓存，反复上报不会每次查库。
+ * 写回带 last_online 条件，只在库中的 last_online 没有被其他节点推进时才覆盖，避免把刚上线的设备写回离线。
+ * 其他节点只能从库中看到心跳，写回间隔加写回周期必须小于离线阈值（启动时校验）：
+ * 否则持有心跳的节点还没推进 last_online，其他节点的清扫就已把设备判为离线，OFFLINE 的条件写回会成功，库中状态来回翻转。
+ * 多实例部署时其他节点收到的心跳最多延迟一个写回间隔加一个对账间隔可见，建议按设备ID粘性路由心跳。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DevicePresenceRegistry {
+
+    private static final String LOAD_SQL =
+            "SELECT device_id, store_id, status, last_online, ip_address FROM devices WHERE is_deleted = FALSE";
+
+    private static final String LOAD_ONE_SQL =
+            "SELECT device_id, store_id, status, last_online, ip_address FROM devices "
+                    + "WHERE device_id = ? AND is_deleted = FALSE";
+
+    private static final String UPDATE_SQL =
+            "UPDATE devices SET status = ?, last_online = ?, ip_address = COALESCE(?, ip_address), updated_at = updated_at "
+                    + "WHERE device_id = ? AND is_deleted = FALSE AND (last_online IS NULL OR last_online <= ?)";
+
+    /**
+     * devices.ip_address 列宽，超长（IPv6）的地址只保留在内存中
+     */
+    private static final int IP_ADDRESS_COLUMN_LENGTH = 15;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DeviceStatusBroadcaster deviceStatusBroadcaster;
+
+    private final StoreAccess storeAccess;
+
+    @Value("${device.presence.offline-after-ms:45000}")
+    private long offlineAfterMs;
+
+    @Value("${device.presence.persist-interval-ms:15000}")
+    private long persistIntervalMs;
+
+    @Value("${device.presence.flush-interval-ms:10000}")
+    private long flushIntervalMs;
+
+    @Value("${device.presence.batch-size:500}")
+    private int batchSize;
+
+    @Value("${device.presence.max-cached-lookups:10000}")
+    private int maxCachedLookups;
+
+    @Value("${device.presence.unknown-device-ttl-ms:60000}")
+    private long unknownDeviceTtlMs;
+
+    /**
+     * 本节点尚未跟踪的设备ID的查库结果，不存在的设备负缓存
+     */
+    private LocalCache<String, Presence> deviceLookups;
+
+    private final ConcurrentHashMap<String, Presence> presences = new ConcurrentHashMap<>();
+
+    /**
+     * 门店ID -> 设备ID，用于门店快照和门店在线数
+     */
+    private final ConcurrentHashMap<String, Set<String>> devicesByStore = new ConcurrentHashMap<>();
+
+    private final AtomicInteger onlineCount = new AtomicInteger();
+
+    private volatile boolean loaded;
+
+    private final LongAdder heartbeats = new LongAdder();
+
+    private final LongAdder lookups = new LongAdder();
+
+    private final LongAdder wentOnline = new LongAdder();
+
+    private final LongAdder wentOffline = new LongAdder();
+
+    private final LongAdder rowsWritten = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    private final LongAdder staleWrites = new LongAdder();
+
+    /**
+     * 校验写回间隔并初始化设备查库缓存
+     */
+    @PostConstruct
+    public void init() {
+        // 在线设备的 last_online 最晚在写回间隔加一个写回周期后落库，必须早于其他节点按离线阈值判定离线
+        if (persistIntervalMs + flushIntervalMs >= offlineAfterMs) {
+            throw new IllegalStateException("device.presence.persist-interval-ms + flush-interval-ms ("
+                    + persistIntervalMs + " + " + flushIntervalMs + ") 必须小于 offline-after-ms (" + offlineAfterMs
+                    + ")，否则其他节点会把仍在心跳的设备写回离线");
+        }
+        this.deviceLookups = new LocalCache<>(maxCachedLookups, unknownDeviceTtlMs, unknownDeviceTtlMs);
+    }
+
+    /**
+     * 应用启动完成后加载全部设备
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        reconcile();
+        loaded = true;
+        log.info("设备在线状态表加载完成，共 {} 台设备，{} 台在线", presences.size(), onlineCount.get());
+    }
+
+    /**
+     * 记录设备心跳
+     *
+     * @param deviceId  设备ID
+     * @param ipAddress 来源IP（连接地址，可为空）
+     * @param principal 上报心跳的已认证主体（须能访问设备所属门店）
+     * @return 心跳后的在线状态
+     */
+    public DevicePresenceDTO heartbeat(String deviceId, String ipAddress, AuthenticatedPrincipal principal) {
+        heartbeats.increment();
+        Presence presence = presences.get(deviceId);
+        if (presence == null) {
+            // 本节点尚未加载的新设备查一次库（不存在时负缓存），之后只走内存
+            presence = load(deviceId);
+        }
+        if (presence == null || !storeAccess.canAccessStore(principal, presence.storeId)) {
+            throw BusinessException.dataNotFound("设备不存在");
+        }
+        DevicePresenceDTO result;
+        if (presence.beat(System.currentTimeMillis(), ipAddress)) {
+            onlineCount.incrementAndGet();
+            wentOnline.increment();
+            result = presence.toDTO(deviceId);
+            publishTransition(result);
+        } else {
+            result = presence.toDTO(deviceId);
+            deviceStatusBroadcaster.publish(result.getStoreId(), DeviceConstants.Event.HEARTBEAT, result);
+        }
+        return result;
+    }
+
+    /**
+     * 获取设备在线状态
+     *
+     * @param deviceId  设备ID
+     * @param principal 已认证主体
+     * @return 在线状态，设备不存在或无权访问时返回 null
+     */
+    public DevicePresenceDTO get(String deviceId, AuthenticatedPrincipal principal) {
+        Presence presence = presences.get(deviceId);
+        return presence != null && storeAccess.canAccessStore(principal, presence.storeId) ? presence.toDTO(deviceId) : null;
+    }
+
+    /**
+     * 门店设备在线状态
+     *
+     * @param storeId        门店ID
+     * @param includeDevices 是否包含每台设备的状态
+     * @return 门店在线数、设备总数（及设备列表）
+     */
+    public StoreDeviceStatusDTO getStoreStatus(String storeId, boolean includeDevices) {
+        List<DevicePresenceDTO> devices = new ArrayList<>();
+        for (String deviceId : devicesByStore.getOrDefault(storeId, Set.of())) {
+            Presence presence = presences.get(deviceId);
+            if (presence != null) {
+                devices.add(presence.toDTO(deviceId));
+            }
+        }
+        int online = (int) devices.stream()
+                .filter(device -> DeviceConstants.Status.ONLINE.equals(device.getStatus()))
+                .count();
+        return StoreDeviceStatusDTO.builder()
+                .storeId(storeId)
+                .onlineDevices(online)
+                .totalDevices(devices.size())
+                .devices(includeDevices ? devices : null)
+                .build();
+    }
+
+    /**
+     * 门店在线设备（按最后心跳时间倒序）
+     *
+     * @param storeId   门店ID
+     * @param limit     最大返回数
+     * @param principal 已认证主体
+     * @return 在线设备
+     */
+    public List<DevicePresenceDTO> findOnline(String storeId, int limit, AuthenticatedPrincipal principal) {
+        return find(storeId, presence -> presence.online, limit, principal);
+    }
+
+    /**
+     * 门店离线设备（按最后心跳时间倒序）
+     *
+     * @param storeId   门店ID
+     * @param limit     最大返回数
+     * @param principal 已认证主体
+     * @return 离线设备
+     */
+    public List<DevicePresenceDTO> findOffline(String storeId, int limit, AuthenticatedPrincipal principal) {
+        return find(storeId, presence -> !presence.online, limit, principal);
+    }
+
+    /**
+     * 门店内自指定时间以来没有心跳的设备（含从未上线的设备）
+     *
+     * @param storeId   门店ID
+     * @param threshold 时间阈值
+     * @param limit     最大返回数
+     * @param principal 已认证主体
+     * @return 设备列表
+     */
+    public List<DevicePresenceDTO> findNotSeenSince(String storeId, Instant threshold, int limit, AuthenticatedPrincipal principal) {
+        long thresholdMs = threshold.toEpochMilli();
+        return find(storeId, presence -> presence.lastSeen < thresholdMs, limit, principal);
+    }
+
+    /**
+     * 定时把静默超过阈值的在线设备标记为离线
+     */
+    @Scheduled(fixedDelayString = "${device.presence.sweep-interval-ms:5000}",
+               initialDelayString = "${device.presence.sweep-interval-ms:5000}")
+    public void sweep() {
+        if (!loaded) {
+            return;
+        }
+        long silentBefore = System.currentTimeMillis() - offlineAfterMs;
+        for (Map.Entry<String, Presence> entry : presences.entrySet()) {
+            Presence presence = entry.getValue();
+            if (presence.online && presence.lastSeen < silentBefore && presence.expire(silentBefore)) {
+                onlineCount.decrementAndGet();
+                wentOffline.increment();
+                publishTransition(presence.toDTO(entry.getKey()));
+            }
+        }
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${device.presence.flush-interval-ms:10000}",
+               initialDelayString = "${device.presence.flush-interval-ms:10000}")
+    public void scheduledFlush() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("设备在线状态写回失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 定时与设备表对账
+     */
+    @Scheduled(fixedDelayString = "${device.presence.reconcile-interval-ms:300000}",
+               initialDelayString = "${device.presence.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        if (!loaded) {
+            return;
+        }
+        try {
+            flush();
+            reconcile();
+        } catch (Exception e) {
+            log.warn("设备在线状态对账失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余的状态变化
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (loaded) {
+            int written = flush();
+            log.info("应用关闭，写回设备在线状态 {} 条", written);
+        }
+    }
+
+    /**
+     * 把状态变化和到期的 last_online 批量写回设备表
+     *
+     * @return 写回条数
+     */
+    public synchronized int flush() {
+        List<Object[]> batch = new ArrayList<>();
+        List<Presence> flushed = new ArrayList<>();
+        int written = 0;
+        for (Map.Entry<String, Presence> entry : presences.entrySet()) {
+            Object[] row = entry.getValue().drain(entry.getKey(), persistIntervalMs);
+            if (row == null) {
+                continue;
+            }
+            batch.add(row);
+            flushed.add(entry.getValue());
+            if (batch.size() >= batchSize) {
+                written += executeBatch(batch, flushed);
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += executeBatch(batch, flushed);
+        }
+        flushes.increment();
+        return written;
+    }
+
+    /**
+     * 运行统计：心跳次数、新设备查库次数、上线 / 离线转换次数、写回行数、因库中更新而跳过的写回数、写回轮次、跟踪设备数、在线设备数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "heartbeats", heartbeats.sum(),
+                "lookups", lookups.sum(),
+                "wentOnline", wentOnline.sum(),
+                "wentOffline", wentOffline.sum(),
+                "rowsWritten", rowsWritten.sum(),
+                "staleWrites", staleWrites.sum(),
+                "flushes", flushes.sum(),
+                "tracked", (long) presences.size(),
+                "online", (long) onlineCount.get());
+    }
+
+    private int executeBatch(List<Object[]> batch, List<Presence> flushed) {
+        int size = batch.size();
+        try {
+            // 更新行数为 0：库中 last_online 已被其他节点推进，下次对账时吸收库中的状态
+            for (int updated : jdbcTemplate.batchUpdate(UPDATE_SQL, batch)) {
+                if (updated == 0) {
+                    staleWrites.increment();
+                }
+            }
+        } catch (RuntimeException e) {
+            // 写回失败时恢复为待写状态，下一轮重试
+            flushed.forEach(Presence::markDirty);
+            throw e;
+        } finally {
+            batch.clear();
+            flushed.clear();
+        }
+        rowsWritten.add(size);
+        return size;
+    }
+
+    /**
+     * @return 设备状态，设备不存在时返回 null
+     */
+    private Presence load(String deviceId) {
+        Presence loadedPresence = deviceLookups.get(deviceId, id -> {
+            lookups.increment();
+            List<Presence> rows = jdbcTemplate.query(LOAD_ONE_SQL, (rs, rowNum) -> Presence.fromRow(rs.getString("store_id"),
+                    rs.getString("status"), rs.getTimestamp("last_online"), rs.getString("ip_address")), id);
+            return rows.isEmpty() ? null : rows.get(0);
+        });
+        if (loadedPresence == null) {
+            return null;
+        }
+        // 只负缓存不存在的设备，存在的设备以 presences 为准
+        deviceLookups.invalidate(deviceId);
+        Presence existing = presences.putIfAbsent(deviceId, loadedPresence);
+        if (existing != null) {
+            return existing;
+        }
+        index(deviceId, null, loadedPresence.storeId);
+        if (loadedPresence.online) {
+            onlineCount.incrementAndGet();
+        }
+        return loadedPresence;
+    }
+
+    /**
+     * 全量对账：补充新设备、移除已删除设备，其他节点写回的更新心跳覆盖本地记录
+     */
+    private synchronized void reconcile() {
+        long startedAt = System.currentTimeMillis();
+        Set<String> existing = new HashSet<>();
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            String deviceId = rs.getString("device_id");
+            existing.add(deviceId);
+            Presence fromDb = Presence.fromRow(rs.getString("store_id"),
+                    rs.getString("status"), rs.getTimestamp("last_online"), rs.getString("ip_address"));
+            Presence current = presences.putIfAbsent(deviceId, fromDb);
+            if (current == null) {
+                index(deviceId, null, fromDb.storeId);
+                if (fromDb.online) {
+                    onlineCount.incrementAndGet();
+                }
+                return;
+            }
+            String previousStoreId = current.storeId;
+            if (!fromDb.storeId.equals(previousStoreId)) {
+                current.storeId = fromDb.storeId;
+                index(deviceId, previousStoreId, fromDb.storeId);
+            }
+            int delta = current.absorb(fromDb);
+            if (delta != 0) {
+                onlineCount.addAndGet(delta);
+                publishTransition(current.toDTO(deviceId));
+            }
+        });
+        // 只移除对账开始前就存在的条目，期间新查库加入的设备保留
+        presences.entrySet().removeIf(entry -> {
+            if (existing.contains(entry.getKey()) || entry.getValue().registeredAt >= startedAt) {
+                return false;
+            }
+            if (entry.getValue().online) {
+                onlineCount.decrementAndGet();
+            }
+            index(entry.getKey(), entry.getValue().storeId, null);
+            return true;
+        });
+    }
+
+    /**
+     * 维护门店索引：从旧门店移除、加入新门店（在 compute 中完成，空集合的删除与并发加入互斥）
+     */
+    private void index(String deviceId, String fromStoreId, String toStoreId) {
+        if (fromStoreId != null) {
+            devicesByStore.computeIfPresent(fromStoreId, (key, deviceIds) -> {
+                deviceIds.remove(deviceId);
+                return deviceIds.isEmpty() ? null : deviceIds;
+            });
+        }
+        if (toStoreId != null) {
+            devicesByStore.compute(toStoreId, (key, deviceIds) -> {
+                Set<String> target = deviceIds != null ? deviceIds : ConcurrentHashMap.newKeySet();
+                target.add(deviceId);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * 推送设备上线 / 离线及门店在线数变化（门店没有订阅者时跳过）
+     */
+    private void publishTransition(DevicePresenceDTO device) {
+        String storeId = device.getStoreId();
+        if (!deviceStatusBroadcaster.hasSubscribers(storeId)) {
+            return;
+        }
+        deviceStatusBroadcaster.publish(storeId, DeviceConstants.Event.DEVICE_STATUS, device);
+        deviceStatusBroadcaster.publish(storeId, DeviceConstants.Event.STORE_STATUS, getStoreStatus(storeId, false));
+    }
+
+    private List<DevicePresenceDTO> find(String storeId, Predicate<Presence> filter, int limit, AuthenticatedPrincipal principal) {
+        storeAccess.requireStore(principal, storeId);
+        List<DevicePresenceDTO> devices = new ArrayList<>();
+        for (String deviceId : devicesByStore.getOrDefault(storeId, Set.of())) {
+            Presence presence = presences.get(deviceId);
+            if (presence != null && filter.test(presence)) {
+                devices.add(presence.toDTO(deviceId));
+            }
+        }
+        return devices.stream()
+                .sorted(Comparator.comparing(DevicePresenceDTO::getLastSeenAt, Comparator.nullsLast(Comparator.reverseOrder())))
+                .limit(limit)
+                .toList();
+    }
+
+    /**
+     * 单台设备的在线状态；字段可被查询线程无锁读取，修改在实例锁内进行
+     */
+    private static final class Presence {
+
+        private final long registeredAt = System.currentTimeMillis();
+
+        private volatile String storeId;
+
+        private volatile long lastSeen;
+
+        private volatile String ipAddress;
+
+        private volatile boolean online;
+
+        /**
+         * 设备表中已写入的状态和最后在线时间
+         */
+        private boolean persistedOnline;
+
+        private long persistedLastSeen;
+
+        private static Presence fromRow(String storeId, String status, Timestamp lastOnline, String ipAddress) {
+            Presence presence = new Presence();
+            presence.storeId = storeId;
+            presence.lastSeen = lastOnline != null ? lastOnline.getTime() : 0;
+            presence.ipAddress = ipAddress;
+            presence.online = DeviceConstants.Status.ONLINE.equals(status);
+            presence.persistedOnline = presence.online;
+            presence.persistedLastSeen = presence.lastSeen;
+            return presence;
+        }
+
+        /**
+         * @return 是否由离线转为在线
+         */
+        synchronized boolean beat(long now, String ip) {
+            lastSeen = Math.max(lastSeen, now);
+            if (ip != null) {
+                ipAddress = ip;
+            }
+            if (online) {
+                return false;
+            }
+            online = true;
+            return true;
+        }
+
+        /**
+         * @return 是否由在线转为离线
+         */
+        synchronized boolean expire(long silentBefore) {
+            if (!online || lastSeen >= silentBefore) {
+                return false;
+            }
+            online = false;
+            return true;
+        }
+
+        /**
+         * 合并设备表中的记录（其他节点写回的心跳更新时覆盖本地）
+         *
+         * @return 在线设备数的变化量
+         */
+        synchronized int absorb(Presence fromDb) {
+            if (fromDb.lastSeen <= lastSeen) {
+                return 0;
+            }
+            boolean wasOnline = online;
+            lastSeen = fromDb.lastSeen;
+            ipAddress = fromDb.ipAddress;
+            online = fromDb.online;
+            persistedOnline = fromDb.online;
+            persistedLastSeen = fromDb.lastSeen;
+            return Boolean.compare(online, wasOnline);
+        }
+
+        /**
+         * 需要写回时返回 UPDATE 参数并记为已写回：状态有变化，或在线设备的 last_online 已超过写回间隔
+         */
+        synchronized Object[] drain(String deviceId, long persistIntervalMs) {
+            boolean statusChanged = online != persistedOnline;
+            boolean lastOnlineDue = online && lastSeen - persistedLastSeen >= persistIntervalMs;
+            if (!statusChanged && !lastOnlineDue) {
+                return null;
+            }
+            persistedOnline = online;
+            persistedLastSeen = lastSeen;
+            String ip = ipAddress != null && ipAddress.length() <= IP_ADDRESS_COLUMN_LENGTH ? ipAddress : null;
+            Timestamp lastOnline = lastSeen > 0 ? new Timestamp(lastSeen) : null;
+            return new Object[]{
+                    online ? DeviceConstants.Status.ONLINE : DeviceConstants.Status.OFFLINE,
+                    lastOnline,
+                    ip,
+                    deviceId,
+                    lastOnline};
+        }
+
+        /**
+         * 写回失败后恢复为待写
+         */
+        synchronized void markDirty() {
+            persistedOnline = !online;
+            persistedLastSeen = 0;
+        }
+
+        DevicePresenceDTO toDTO(String deviceId) {
+            long seen = lastSeen;
+            return DevicePresenceDTO.builder()
+                    .deviceId(deviceId)
+                    .storeId(storeId)
+                    .status(online ? DeviceConstants.Status.ONLINE : DeviceConstants.Status.OFFLINE)
+                    .lastSeenAt(seen > 0 ? Instant.ofEpochMilli(seen) : null)
+                    .ipAddress(ipAddress)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.constants.DeviceConstants;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.SessionRevocationIndex;
+import com.example.pos_backend.security.StoreAccess;
+import com.example.pos_backend.security.TokenDigest;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 门店设备状态推送（SSE）
+ * 订阅按门店分组，连接由 Servlet 异步请求承载，不占用请求线程。
+ * 发布方只把事件放入每个订阅者的有界队列（事件只序列化一次，所有订阅者共享同一帧），不做任何网络写入；
+ * 少量发送线程按需排空队列。队列已满说明客户端读得太慢，直接断开该订阅，由客户端重连后重新获取快照，
+ * 慢连接不会拖住发布方或其他订阅者。定时发送注释帧保活，同时发现已断开的连接。
+ * 鉴权只在订阅时进行，保活时复查订阅令牌所属会话是否已被吊销、主体是否仍可访问门店，
+ * 注销、停用、删除商家或门店后连接最晚在一个保活间隔内关闭，不会一直推送到连接超时。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DeviceStatusBroadcaster {
+
+    private final ObjectMapper objectMapper;
+
+    private final SessionRevocationIndex sessionRevocationIndex;
+
+    private final StoreAccess storeAccess;
+
+    @Value("${device.events.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${device.events.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${device.events.timeout-ms:1800000}")
+    private long timeoutMs;
+
+    @Value("${device.events.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${device.events.retry-after-seconds:5}")
+    private long retryAfterSeconds;
+
+    private final ConcurrentHashMap<String, Set<Subscriber>> subscribersByStore = new ConcurrentHashMap<>();
+
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final AtomicLong eventSequence = new AtomicLong();
+
+    private ExecutorService sender;
+
+    private final LongAdder subscriptions = new LongAdder();
+
+    private final LongAdder published = new LongAdder();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder evicted = new LongAdder();
+
+    private final LongAdder disconnected = new LongAdder();
+
+    private final LongAdder revoked = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(Math.max(1, senderThreads), r -> {
+            Thread thread = new Thread(r, "device-events-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sender.shutdownNow();
+        subscribersByStore.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * 订阅门店设备状态
+     *
+     * @param storeId     门店ID
+     * @param principal   订阅的主体（调用方已检查可访问门店）
+     * @param tokenDigest 订阅所用令牌的摘要，保活时据此检查会话是否被吊销
+     * @param snapshot    门店快照（先登记订阅再取快照，期间的变化不会丢失）
+     * @return SSE 连接
+     */
+    public SseEmitter subscribe(String storeId, AuthenticatedPrincipal principal, TokenDigest tokenDigest, Supplier<?> snapshot) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new TooManyRequestsException("设备状态订阅数已达上限，请稍后重试", retryAfterSeconds);
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(storeId, principal, tokenDigest, emitter, bufferSize);
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribersByStore.compute(storeId, (key, subscribers) -> {
+            Set<Subscriber> target = subscribers != null ? subscribers : ConcurrentHashMap.newKeySet();
+            target.add(subscriber);
+            return target;
+        });
+        subscriptions.increment();
+        enqueue(subscriber, frame(DeviceConstants.Event.SNAPSHOT, snapshot.get()));
+        return emitter;
+    }
+
+    /**
+     * 门店是否有订阅者（没有订阅者时发布方可跳过事件构造）
+     *
+     * @param storeId 门店ID
+     * @return 是否有订阅者
+     */
+    public boolean hasSubscribers(String storeId) {
+        Set<Subscriber> subscribers = storeId != null ? subscribersByStore.get(storeId) : null;
+        return subscribers != null && !subscribers.isEmpty();
+    }
+
+    /**
+     * 向门店的全部订阅者发布事件（不阻塞）
+     *
+     * @param storeId   门店ID
+     * @param eventName 事件名
+     * @param data      事件数据（序列化为 JSON）
+     */
+    public void publish(String storeId, String eventName, Object data) {
+        Set<Subscriber> subscribers = storeId != null ? subscribersByStore.get(storeId) : null;
+        if (subscribers == null || subscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> frame = frame(eventName, data);
+        published.increment();
+        for (Subscriber subscriber : subscribers) {
+            enqueue(subscriber, frame);
+        }
+    }
+
+    /**
+     * 定时保活：注释帧不会触发客户端事件，写入失败说明连接已断开；
+     * 令牌所属会话已被吊销或主体已无权访问门店的订阅直接关闭
+     */
+    @Scheduled(fixedDelayString = "${device.events.keepalive-interval-ms:20000}",
+               initialDelayString = "${device.events.keepalive-interval-ms:20000}")
+    public void keepalive() {
+        Set<DataWithMediaType> ping = SseEmitter.event().comment("ping").build();
+        subscribersByStore.values().forEach(subscribers -> subscribers.forEach(subscriber -> {
+            if (isRevoked(subscriber)) {
+                revoked.increment();
+                close(subscriber);
+            } else {
+                enqueue(subscriber, ping);
+            }
+        }));
+    }
+
+    /**
+     * 运行统计：当前订阅数、订阅门店数、累计订阅数、发布事件数、送达帧数、慢消费者断开数、连接断开数、因吊销关闭数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "subscribers", (long) subscriberCount.get(),
+                "stores", (long) subscribersByStore.size(),
+                "subscriptions", subscriptions.sum(),
+                "published", published.sum(),
+                "delivered", delivered.sum(),
+                "evicted", evicted.sum(),
+                "disconnected", disconnected.sum(),
+                "revoked", revoked.sum());
+    }
+
+    private boolean isRevoked(Subscriber subscriber) {
+        return (subscriber.tokenDigest != null && sessionRevocationIndex.isRevoked(subscriber.tokenDigest))
+                || !storeAccess.canAccessStore(subscriber.principal, subscriber.storeId);
+    }
+
+    private Set<DataWithMediaType> frame(String eventName, Object data) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(data);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("设备状态事件序列化失败", e);
+        }
+        return SseEmitter.event()
+                .id(Long.toString(eventSequence.incrementAndGet()))
+                .name(eventName)
+                .data(json, MediaType.APPLICATION_JSON)
+                .build();
+    }
+
+    private void enqueue(Subscriber subscriber, Set<DataWithMediaType> frame) {
+        if (subscriber.closed) {
+            return;
+        }
+        if (!subscriber.queue.offer(frame)) {
+            // 队列已满：客户端读取跟不上，断开后由客户端重连并重新获取快照
+            evicted.increment();
+            close(subscriber);
+            return;
+        }
+        if (subscriber.scheduled.compareAndSet(false, true)) {
+            sender.execute(() -> drain(subscriber));
+        }
+    }
+
+    /**
+     * 发送线程排空订阅者队列；排空后再次检查，避免与并发入队之间丢失调度
+     */
+    private void drain(Subscriber subscriber) {
+        do {
+            Set<DataWithMediaType> frame;
+            while (!subscriber.closed && (frame = subscriber.queue.poll()) != null) {
+                try {
+                    subscriber.emitter.send(frame);
+                    delivered.increment();
+                } catch (Exception e) {
+                    disconnected.increment();
+                    subscriber.closed = true;
+                    remove(subscriber);
+                    subscriber.emitter.completeWithError(e);
+                    return;
+                }
+            }
+            subscriber.scheduled.set(false);
+        } while (!subscriber.closed && !subscriber.queue.isEmpty() && subscriber.scheduled.compareAndSet(false, true));
+    }
+
+    private void close(Subscriber subscriber) {
+        subscriber.closed = true;
+        remove(subscriber);
+        sender.execute(subscriber.emitter::complete);
+    }
+
+    private void remove(Subscriber subscriber) {
+        subscriber.closed = true;
+        // 在 compute 中移除，空集合的删除与并发订阅互斥
+        subscribersByStore.computeIfPresent(subscriber.storeId, (key, subscribers) -> {
+            if (subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private static final class Subscriber {
+
+        private final String storeId;
+
+        private final AuthenticatedPrincipal principal;
+
+        private final TokenDigest tokenDigest;
+
+        private final SseEmitter emitter;
+
+        private final ArrayBlockingQueue<Set<DataWithMediaType>> queue;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private volatile boolean closed;
+
+        private Subscriber(String storeId, AuthenticatedPrincipal principal, TokenDigest tokenDigest,
+                           SseEmitter emitter, int bufferSize) {
+            this.storeId = storeId;
+            this.principal = principal;
+            this.tokenDigest = tokenDigest;
+            this.emitter = emitter;
+            this.queue = new ArrayBlockingQueue<>(Math.max(1, bufferSize));
+        }
+    }
+}
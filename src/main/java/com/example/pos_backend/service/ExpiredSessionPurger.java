@@ -0,0 +1,213 @@
+package com.example.pos_backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 过期会话清理器（分块删除）
+ * 替代每小时一次全表 DELETE 的 ev_cleanup_expired_sessions 事件：沿 (刷新令牌过期时间, 访问令牌过期时间) 索引按序取一批主键，
+ * 再按主键删除，每块一条语句、一个事务，块之间按配置暂停，单轮有块数上限，避免清理时长时间持有大范围锁。
+ * 只删除访问令牌和刷新令牌都已过期超过保留时长的会话，无论会话是否已停用：已吊销会话的行是其他节点启动时
+ * 加载吊销索引的来源，令牌仍在有效期内时删除会让已注销的令牌在新节点上重新可用。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExpiredSessionPurger {
+
+    private static final List<PurgeTarget> TARGETS = List.of(
+            PurgeTarget.refreshExpired("merchant_sessions"),
+            PurgeTarget.accessOnlyExpired("merchant_sessions"),
+            PurgeTarget.refreshExpired("user_sessions"),
+            PurgeTarget.accessOnlyExpired("user_sessions"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @Value("${session.purge.enabled:true}")
+    private boolean enabled;
+
+    @Value("${session.purge.chunk-size:5000}")
+    private int chunkSize;
+
+    @Value("${session.purge.pause-ms:200}")
+    private long pauseMs;
+
+    @Value("${session.purge.max-chunks-per-run:100}")
+    private int maxChunksPerRun;
+
+    @Value("${session.purge.expired-retention-ms:86400000}")
+    private long expiredRetentionMs;
+
+    @Value("${session.purge.backlog-probe-limit:100000}")
+    private int backlogProbeLimit;
+
+    private final LongAdder rowsPurged = new LongAdder();
+
+    private final LongAdder chunks = new LongAdder();
+
+    private final LongAdder chunkNanos = new LongAdder();
+
+    private final LongAdder runs = new LongAdder();
+
+    private final AtomicLong maxChunkMs = new AtomicLong();
+
+    private final AtomicLong lastRunRows = new AtomicLong();
+
+    private final AtomicLong backlog = new AtomicLong();
+
+    /**
+     * 定时清理
+     */
+    @Scheduled(fixedDelayString = "${session.purge.interval-ms:300000}",
+               initialDelayString = "${session.purge.initial-delay-ms:60000}")
+    public void scheduledPurge() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            purge();
+        } catch (Exception e) {
+            log.warn("过期会话清理失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 执行一轮清理，块数达到上限时剩余部分留到下一轮
+     *
+     * @return 本轮删除的行数
+     */
+    public synchronized int purge() {
+        Timestamp cutoff = Timestamp.from(Instant.now().minusMillis(expiredRetentionMs));
+        int purged = 0;
+        int chunkBudget = maxChunksPerRun;
+        long remaining = 0;
+        for (PurgeTarget target : TARGETS) {
+            boolean drained = false;
+            while (chunkBudget > 0) {
+                chunkBudget--;
+                int[] result = purgeChunk(target, cutoff);
+                purged += result[1];
+                if (result[0] < chunkSize) {
+                    drained = true;
+                    break;
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+            if (!drained) {
+                remaining += countBacklog(target, cutoff);
+            }
+        }
+        backlog.set(remaining);
+        lastRunRows.set(purged);
+        runs.increment();
+        if (purged > 0 || remaining > 0) {
+            log.info("过期会话清理: 删除 {} 行，剩余约 {} 行", purged, remaining);
+        }
+        return purged;
+    }
+
+    /**
+     * 清理一块：按索引顺序取一批主键，再按主键删除（删除时复核条件）
+     *
+     * @return [选中行数, 删除行数]
+     */
+    private int[] purgeChunk(PurgeTarget target, Timestamp cutoff) {
+        long start = System.nanoTime();
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("limit", chunkSize);
+        List<String> ids = jdbcTemplate.queryForList(target.selectSql(), params, String.class);
+        int deleted = 0;
+        if (!ids.isEmpty()) {
+            deleted = jdbcTemplate.update(target.deleteSql(), params.addValue("ids", ids));
+            rowsPurged.add(deleted);
+        }
+        long elapsed = System.nanoTime() - start;
+        chunks.increment();
+        chunkNanos.add(elapsed);
+        maxChunkMs.accumulateAndGet(TimeUnit.NANOSECONDS.toMillis(elapsed), Math::max);
+        return new int[]{ids.size(), deleted};
+    }
+
+    /**
+     * 估算剩余待清理行数（最多统计 backlogProbeLimit 行）
+     */
+    private long countBacklog(PurgeTarget target, Timestamp cutoff) {
+        MapSqlParameterSource params = new MapSqlParameterSource()
+                .addValue("cutoff", cutoff)
+                .addValue("limit", backlogProbeLimit);
+        Long count = jdbcTemplate.queryForObject(target.backlogSql(), params, Long.class);
+        return count != null ? count : 0;
+    }
+
+    private boolean pause() {
+        if (pauseMs <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(pauseMs);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * 运行统计：累计删除行数、块数、平均/最大块耗时、上一轮删除行数、剩余积压、轮次
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        long chunkCount = chunks.sum();
+        return Map.of(
+                "rowsPurged", rowsPurged.sum(),
+                "chunks", chunkCount,
+                "avgChunkMs", chunkCount == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(chunkNanos.sum() / chunkCount),
+                "maxChunkMs", maxChunkMs.get(),
+                "lastRunRows", lastRunRows.get(),
+                "backlog", backlog.get(),
+                "runs", runs.sum());
+    }
+
+    /**
+     * 清理目标：一张会话表上的一类过期条件
+     * 会话在刷新令牌过期后才可清理，两类条件都落在 (refresh_token_expires_at, access_token_expires_at) 索引上：
+     * 有刷新令牌的会话按刷新令牌过期时间范围扫描，扫描到的行都已过期，不会越过仍可刷新的会话；
+     * 没有刷新令牌的会话以 refresh_token_expires_at IS NULL 为等值前缀，再按访问令牌过期时间范围扫描。
+     */
+    private record PurgeTarget(String selectSql, String deleteSql, String backlogSql) {
+
+        static PurgeTarget refreshExpired(String table) {
+            return of(table, "refresh_token_expires_at < :cutoff " +
+                    "AND (access_token_expires_at IS NULL OR access_token_expires_at < :cutoff)", "refresh_token_expires_at");
+        }
+
+        static PurgeTarget accessOnlyExpired(String table) {
+            return of(table, "refresh_token_expires_at IS NULL AND access_token_expires_at < :cutoff", "access_token_expires_at");
+        }
+
+        private static PurgeTarget of(String table, String condition, String orderColumn) {
+            return new PurgeTarget(
+                    "SELECT session_id FROM " + table + " WHERE " + condition +
+                    " ORDER BY " + orderColumn + " LIMIT :limit",
+                    "DELETE FROM " + table + " WHERE session_id IN (:ids) AND " + condition,
+                    "SELECT COUNT(*) FROM (SELECT 1 FROM " + table + " WHERE " + condition + " LIMIT :limit) t");
+        }
+    }
+}
@@ -1,12 +1,20 @@
 package com.example.pos_backend.service;
 
+import com.example.pos_backend.common.IdGenerator;
+import com.example.pos_backend.constants.GlobalConstants;
+import com.example.pos_backend.security.JwtProvider;
+import com.example.pos_backend.security.SecurityConstants;
+import com.example.pos_backend.security.VerifiedToken;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Date;
 import java.util.HashMap;
@@ -19,9 +27,14 @@ import java.util.UUID;
  */
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class JwtService {
 
-    @Value("${jwt.secret:mySecretKey123456789012345678901234567890}")
+    private final JwtProvider jwtProvider;
+    private final IdGenerator idGenerator;
+
+    // 与 JwtProvider 使用同一默认密钥，保证签发的令牌能被统一的 verify 校验
+    @Value("${jwt.secret:" + SecurityConstants.JWT.SECRET + "}")
     private String jwtSecret;
 
     @Value("${jwt.access-token-expiration:3600}") // 1小时
@@ -30,19 +43,50 @@ public class JwtService {
     @Value("${jwt.refresh-token-expiration:2592000}") // 30天
     private Long refreshTokenExpiration;
 
+    /**
+     * 签名密钥，启动时构建一次
+     */
+    private SecretKey signingKey;
+
+    /**
+     * 初始化签名密钥
+     */
+    @PostConstruct
+    public void init() {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
+    }
+
     /**
      * 生成Access Token
+     * 令牌携带会话ID，认证时可直接定位会话而无需按令牌查询会话表
      */
-    public String generateAccessToken(String merchantId, String email, String businessName) {
+    public String generateAccessToken(String merchantId, String email, String businessName, String sessionId) {
         Map<String, Object> claims = new HashMap<>();
         claims.put("merchant_id", merchantId);
         claims.put("email", email);
         claims.put("business_name", businessName);
+        claims.put("session_id", sessionId);
         claims.put("token_type", "access");
 
         return createToken(claims, merchantId, accessTokenExpiration);
     }
 
+    /**
+     * 生成员工Access Token（PIN 登录）
+     * 主体为用户ID，带 user_id 声明，认证过滤器据此按员工会话记录活跃时间；merchant_id / store_id 用于租户范围检查
+     */
+    public String generateUserAccessToken(String userId, String username, String merchantId, String storeId, String sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("user_id", userId);
+        claims.put("username", username);
+        claims.put("merchant_id", merchantId);
+        claims.put("store_id", storeId);
+        claims.put("session_id", sessionId);
+        claims.put("token_type", "access");
+
+        return createToken(claims, userId, accessTokenExpiration);
+    }
+
     /**
      * 生成Refresh Token
      */
@@ -87,6 +131,14 @@ public class JwtService {
         return claims.get("email", String.class);
     }
 
+    /**
+     * 从令牌中提取会话ID
+     */
+    public String getSessionIdFromToken(String token) {
+        Claims claims = getClaimsFromToken(token);
+        return claims.get("session_id", String.class);
+    }
+
     /**
      * 从令牌中提取令牌类型
      */
@@ -103,13 +155,19 @@ public class JwtService {
         return claims.getExpiration();
     }
 
+    /**
+     * 验证令牌并返回验证结果（带缓存，同一令牌只验签一次）
+     */
+    public VerifiedToken verify(String token) {
+        return jwtProvider.verify(token);
+    }
+
     /**
      * 验证令牌是否有效
      */
     public boolean isTokenValid(String token) {
         try {
-            getClaimsFromToken(token);
-            return !isTokenExpired(token);
+            return !verify(token).isExpiredAt(Instant.now());
         } catch (JwtException | IllegalArgumentException e) {
             log.warn("Invalid JWT token: {}", e.getMessage());
             return false;
@@ -120,8 +178,7 @@ public class JwtService {
      * 验证令牌是否过期
      */
     public boolean isTokenExpired(String token) {
-        Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
+        return verify(token).isExpiredAt(Instant.now());
     }
 
     /**
@@ -152,26 +209,21 @@ public class JwtService {
      * 从令牌中获取Claims
      */
     private Claims getClaimsFromToken(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        return verify(token).claims();
     }
 
     /**
      * 获取签名密钥
      */
     private SecretKey getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+        return signingKey;
     }
 
     /**
      * 生成会话ID
      */
     public String generateSessionId() {
-        return "SES-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+        return idGenerator.next(GlobalConstants.IdPrefix.SESSION);
     }
 
     /**
@@ -0,0 +1,153 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.CacheStats;
+import com.example.pos_backend.common.LocalCache;
+import com.example.pos_backend.common.TransactionHooks;
+import com.example.pos_backend.dto.MerchantView;
+import com.example.pos_backend.dto.StoreView;
+import com.example.pos_backend.repository.MerchantRepository;
+import com.example.pos_backend.repository.StoreRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 商家 / 门店读穿缓存（节点本地）
+ * 按商家ID、邮箱、商家默认门店、门店所属商家缓存查询结果，不存在的键做短时负缓存；
+ * 本节点修改、删除商家时立即失效并在事务提交后再失效一次，其他节点的变更最多在 TTL 后可见。
+ * 缓存的是只读投影（不含密码哈希），不是受管实体，需要修改商家时由调用方另行加载实体。
+ */
+@Component
+@RequiredArgsConstructor
+public class MerchantCache {
+
+    private final MerchantRepository merchantRepository;
+    private final StoreRepository storeRepository;
+
+    @Value("${merchant.cache.max-size:10000}")
+    private int maxSize;
+
+    @Value("${merchant.cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${merchant.cache.negative-ttl-ms:10000}")
+    private long negativeTtlMs;
+
+    private LocalCache<String, MerchantView> merchantsById;
+
+    private LocalCache<String, String> merchantIdsByEmail;
+
+    private LocalCache<String, StoreView> defaultStores;
+
+    private LocalCache<String, String> storeMerchantIds;
+
+    /**
+     * 按配置创建缓存
+     */
+    @PostConstruct
+    public void init() {
+        this.merchantsById = new LocalCache<>(maxSize, ttlMs, negativeTtlMs);
+        this.merchantIdsByEmail = new LocalCache<>(maxSize, ttlMs, negativeTtlMs);
+        this.defaultStores = new LocalCache<>(maxSize, ttlMs, negativeTtlMs);
+        this.storeMerchantIds = new LocalCache<>(maxSize, ttlMs, negativeTtlMs);
+    }
+
+    /**
+     * 按ID获取商家（含已软删除的商家，由调用方判断）
+     *
+     * @param merchantId 商家ID
+     * @return 商家
+     */
+    public Optional<MerchantView> getMerchant(String merchantId) {
+        return Optional.ofNullable(merchantsById.get(merchantId, id -> merchantRepository.findViewById(id).orElse(null)));
+    }
+
+    /**
+     * 按邮箱获取未删除的商家
+     *
+     * @param email 邮箱（不区分大小写）
+     * @return 商家
+     */
+    public Optional<MerchantView> getMerchantByEmail(String email) {
+        String merchantId = merchantIdsByEmail.get(normalize(email),
+                key -> merchantRepository.findViewByEmail(key).map(MerchantView::id).orElse(null));
+        if (merchantId == null) {
+            return Optional.empty();
+        }
+        return getMerchant(merchantId).filter(merchant -> !Boolean.TRUE.equals(merchant.isDeleted()));
+    }
+
+    /**
+     * 获取商家的默认门店（最早创建的未删除门店）
+     *
+     * @param merchantId 商家ID
+     * @return 默认门店
+     */
+    public Optional<StoreView> getDefaultStore(String merchantId) {
+        return Optional.ofNullable(defaultStores.get(merchantId,
+                id -> storeRepository.findDefaultStoreByMerchantId(id).orElse(null)));
+    }
+
+    /**
+     * 获取未删除门店所属的商家ID
+     *
+     * @param storeId 门店ID
+     * @return 商家ID
+     */
+    public Optional<String> getStoreMerchantId(String storeId) {
+        return Optional.ofNullable(storeMerchantIds.get(storeId,
+                id -> storeRepository.findMerchantIdById(id).orElse(null)));
+    }
+
+    /**
+     * 使门店归属缓存失效（门店删除后调用）
+     *
+     * @param storeId 门店ID
+     */
+    public void evictStore(String storeId) {
+        storeMerchantIds.invalidate(storeId);
+    }
+
+    /**
+     * 使商家相关缓存失效：立即失效一次，事务提交后再失效一次，防止提交前的并发读取写回旧值
+     *
+     * @param merchantId 商家ID
+     * @param emails     商家新旧邮箱
+     */
+    public void evictMerchant(String merchantId, String... emails) {
+        evictNow(merchantId, emails);
+        TransactionHooks.afterCommit(() -> evictNow(merchantId, emails));
+    }
+
+    /**
+     * 运行统计
+     *
+     * @return 各缓存的命中、未命中、淘汰次数和条目数
+     */
+    public Map<String, CacheStats> stats() {
+        return Map.of(
+                "merchants", merchantsById.stats(),
+                "emails", merchantIdsByEmail.stats(),
+                "defaultStores", defaultStores.stats(),
+                "storeMerchants", storeMerchantIds.stats());
+    }
+
+    private void evictNow(String merchantId, String... emails) {
+        merchantsById.invalidate(merchantId);
+        defaultStores.invalidate(merchantId);
+        for (String email : emails) {
+            if (email != null) {
+                merchantIdsByEmail.invalidate(normalize(email));
+            }
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
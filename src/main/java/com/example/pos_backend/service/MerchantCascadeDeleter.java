@@ -0,0 +1,115 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.TransactionHooks;
+import com.example.pos_backend.repository.DeviceRepository;
+import com.example.pos_backend.repository.MerchantSessionRepository;
+import com.example.pos_backend.repository.StoreRepository;
+import com.example.pos_backend.repository.UserRepository;
+import com.example.pos_backend.repository.UserSessionRepository;
+import com.example.pos_backend.security.PermissionEngine;
+import com.example.pos_backend.security.SessionRevocationIndex;
+import com.example.pos_backend.security.TokenDigest;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 商家级联软删除
+ * 按依赖表逐表执行集合式 UPDATE（每条语句最多 batch-size 行，直到影响行数不足一批），
+ * 删除一个多门店商家只需要每张表一到数条语句，而不是逐行加载、修改、保存。
+ * 在调用方事务内执行，与商家本身的软删除一起提交或回滚；提交后立即吊销本节点上该商家及其员工的令牌，
+ * 并清除员工权限掩码、门店名册和门店归属缓存。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantCascadeDeleter {
+
+    private static final String SOFT_DELETE_PRODUCTS_SQL =
+            "UPDATE products SET is_deleted = TRUE, is_active = FALSE, updated_by = ? " +
+            "WHERE merchant_id = ? AND is_deleted = FALSE LIMIT ?";
+
+    private final StoreRepository storeRepository;
+    private final UserRepository userRepository;
+    private final DeviceRepository deviceRepository;
+    private final MerchantSessionRepository merchantSessionRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final SessionRevocationIndex sessionRevocationIndex;
+    private final PinAuthService pinAuthService;
+    private final MerchantCache merchantCache;
+    private final PermissionEngine permissionEngine;
+
+    @Value("${merchant.cascade.batch-size:5000}")
+    private int batchSize;
+
+    /**
+     * 软删除商家的全部从属数据
+     *
+     * @param merchantId 商家ID
+     * @param deletedBy  操作人ID
+     * @return 各表影响行数（按执行顺序）
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public Map<String, Long> cascade(String merchantId, String deletedBy) {
+        Instant now = Instant.now();
+        List<Object[]> tokens = new ArrayList<>(merchantSessionRepository.findActiveTokensByMerchantId(merchantId, now));
+        tokens.addAll(userSessionRepository.findActiveTokensByMerchantId(merchantId, now));
+        List<String> storeIds = storeRepository.findIdsByMerchantId(merchantId);
+        List<String> userIds = userRepository.findIdsByMerchantId(merchantId);
+
+        Map<String, Long> affected = new LinkedHashMap<>();
+        // 设备和员工会话通过门店 / 员工子查询定位，不依赖其 is_deleted，执行顺序不影响结果
+        affected.put("merchant_sessions", run(limit -> merchantSessionRepository.softDeleteByMerchantId(merchantId, deletedBy, limit)));
+        affected.put("user_sessions", run(limit -> userSessionRepository.softDeleteByMerchantId(merchantId, deletedBy, limit)));
+        affected.put("devices", run(limit -> deviceRepository.softDeleteByMerchantId(merchantId, deletedBy, limit)));
+        affected.put("users", run(limit -> userRepository.softDeleteByMerchantId(merchantId, deletedBy, limit)));
+        affected.put("products", run(limit -> jdbcTemplate.update(SOFT_DELETE_PRODUCTS_SQL, deletedBy, merchantId, limit)));
+        affected.put("stores", run(limit -> storeRepository.softDeleteByMerchantId(merchantId, deletedBy, limit)));
+
+        TransactionHooks.afterCommit(() -> {
+            tokens.forEach(this::revoke);
+            storeIds.forEach(pinAuthService::invalidateStore);
+            storeIds.forEach(merchantCache::evictStore);
+            userIds.forEach(permissionEngine::invalidateUser);
+        });
+        log.info("Cascade soft-delete for merchant {}: {}", merchantId, affected);
+        return affected;
+    }
+
+    /**
+     * 重复执行一条带 LIMIT 的 UPDATE，直到影响行数不足一批
+     */
+    private long run(IntUnaryOperator batch) {
+        int limit = Math.max(1, batchSize);
+        long total = 0;
+        int updated;
+        do {
+            updated = batch.applyAsInt(limit);
+            total += updated;
+        } while (updated == limit);
+        return total;
+    }
+
+    private void revoke(Object[] row) {
+        revoke((byte[]) row[0], (Instant) row[1]);
+        revoke((byte[]) row[2], (Instant) row[3]);
+    }
+
+    private void revoke(byte[] tokenHash, Instant expiresAt) {
+        if (tokenHash != null && tokenHash.length == TokenDigest.LENGTH) {
+            sessionRevocationIndex.revoke(TokenDigest.fromBytes(tokenHash), expiresAt);
+        }
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.TransactionHooks;
+import com.example.pos_backend.entity.Merchant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商家计数器（节点本地）
+ * 按状态、行业、国家维护未删除商家的数量，统计接口直接读内存，不再对 merchants 做 COUNT / GROUP BY。
+ * 本节点的注册、修改、软删除在事务提交后调整计数；其他节点的变更及提交与回调之间的极小误差，
+ * 由定时对账（一次三列 GROUP BY）整体校正。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantCounters {
+
+    private static final String RECONCILE_SQL =
+            "SELECT status, industry, country, COUNT(*) AS total FROM merchants " +
+            "WHERE is_deleted = FALSE GROUP BY status, industry, country";
+
+    /**
+     * 空值分组在内部使用的键（ConcurrentHashMap 不允许 null 键），对外输出时还原为 null，
+     * 与 GROUP BY 的 NULL 分组一致，也不会与真实取值冲突
+     */
+    private static final String NULL_KEY = "\u0000";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private volatile Counts counts;
+
+    private final LongAdder deltas = new LongAdder();
+
+    private final LongAdder reconciliations = new LongAdder();
+
+    private final AtomicLong lastDrift = new AtomicLong();
+
+    /**
+     * 应用启动完成后从数据库加载计数
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        reconcile();
+        log.info("商家计数器加载完成，共 {} 个状态、{} 个行业、{} 个国家",
+                counts.byStatus.size(), counts.byIndustry.size(), counts.byCountry.size());
+    }
+
+    /**
+     * 计数器是否已可用（启动加载完成前调用方应回退到数据库查询）
+     *
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return counts != null;
+    }
+
+    /**
+     * 取商家的计数维度快照（修改前调用，用于计算差值）
+     *
+     * @param merchant 商家
+     * @return 维度快照，已删除商家返回 null
+     */
+    public Profile profileOf(Merchant merchant) {
+        if (Boolean.TRUE.equals(merchant.getIsDeleted())) {
+            return null;
+        }
+        return new Profile(merchant.getStatus(), merchant.getIndustry(), merchant.getCountry());
+    }
+
+    /**
+     * 事务提交后按修改前后的快照调整计数
+     *
+     * @param before 修改前快照（新建时为 null）
+     * @param after  修改后快照（软删除时为 null）
+     */
+    public void applyAfterCommit(Profile before, Profile after) {
+        if (Objects.equals(before, after)) {
+            return;
+        }
+        TransactionHooks.afterCommit(() -> {
+            Counts current = counts;
+            if (current == null) {
+                return;
+            }
+            if (before != null) {
+                current.add(before, -1);
+            }
+            if (after != null) {
+                current.add(after, 1);
+            }
+            deltas.increment();
+        });
+    }
+
+    /**
+     * 指定状态的商家数量
+     *
+     * @param status 状态
+     * @return 数量
+     */
+    public long countByStatus(String status) {
+        return sum(counts.byStatus.get(key(status)));
+    }
+
+    /**
+     * 各行业商家数量（按行业名排序，未填写行业的分组键为 null，排在最前）
+     *
+     * @return 行业 -> 数量
+     */
+    public Map<String, Long> countByIndustry() {
+        return snapshot(counts.byIndustry);
+    }
+
+    /**
+     * 各国家商家数量（按国家代码排序，未填写国家的分组键为 null，排在最前）
+     *
+     * @return 国家 -> 数量
+     */
+    public Map<String, Long> countByCountry() {
+        return snapshot(counts.byCountry);
+    }
+
+    /**
+     * 定时与数据库对账
+     */
+    @Scheduled(fixedDelayString = "${merchant.counters.reconcile-interval-ms:300000}",
+               initialDelayString = "${merchant.counters.reconcile-interval-ms:300000}")
+    public void scheduledReconcile() {
+        if (counts == null) {
+            return;
+        }
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.warn("商家计数器对账失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 从数据库重新统计并替换计数，记录与内存计数的偏差
+     */
+    public synchronized void reconcile() {
+        Counts fresh = new Counts();
+        jdbcTemplate.query(RECONCILE_SQL, rs -> {
+            fresh.add(new Profile(rs.getString("status"), rs.getString("industry"), rs.getString("country")),
+                    rs.getLong("total"));
+        });
+        Counts previous = counts;
+        counts = fresh;
+        reconciliations.increment();
+        if (previous != null) {
+            long drift = drift(previous.byStatus, fresh.byStatus)
+                    + drift(previous.byIndustry, fresh.byIndustry)
+                    + drift(previous.byCountry, fresh.byCountry);
+            lastDrift.set(drift);
+            if (drift > 0) {
+                log.info("商家计数器对账校正，偏差 {}", drift);
+            }
+        }
+    }
+
+    /**
+     * 运行统计：增量调整次数、对账次数、最近一次对账偏差
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "deltas", deltas.sum(),
+                "reconciliations", reconciliations.sum(),
+                "lastDrift", lastDrift.get());
+    }
+
+    private static long drift(Map<String, LongAdder> memory, Map<String, LongAdder> database) {
+        Set<String> keys = new HashSet<>(memory.keySet());
+        keys.addAll(database.keySet());
+        long drift = 0;
+        for (String key : keys) {
+            drift += Math.abs(sum(memory.get(key)) - sum(database.get(key)));
+        }
+        return drift;
+    }
+
+    private static Map<String, Long> snapshot(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        counters.forEach((key, adder) -> {
+            long value = adder.sum();
+            if (value > 0) {
+                result.put(NULL_KEY.equals(key) ? null : key, value);
+            }
+        });
+        return result;
+    }
+
+    private static long sum(LongAdder adder) {
+        return adder != null ? adder.sum() : 0L;
+    }
+
+    private static String key(String value) {
+        return value != null ? value : NULL_KEY;
+    }
+
+    /**
+     * 商家计数维度
+     */
+    public record Profile(String status, String industry, String country) {
+    }
+
+    /**
+     * 一组计数（对账时整体替换）
+     */
+    private static final class Counts {
+
+        private final ConcurrentHashMap<String, LongAdder> byStatus = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, LongAdder> byIndustry = new ConcurrentHashMap<>();
+
+        private final ConcurrentHashMap<String, LongAdder> byCountry = new ConcurrentHashMap<>();
+
+        void add(Profile profile, long delta) {
+            byStatus.computeIfAbsent(key(profile.status()), k -> new LongAdder()).add(delta);
+            byIndustry.computeIfAbsent(key(profile.industry()), k -> new LongAdder()).add(delta);
+            byCountry.computeIfAbsent(key(profile.country()), k -> new LongAdder()).add(delta);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.ScalableBloomFilter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 商家邮箱存在性过滤器（节点本地）
+ * 以规范化邮箱（去空白、小写）构建可扩容布隆过滤器，注册和修改邮箱时先查过滤器，
+ * 只有"可能存在"时才查库确认；"一定不存在"直接放行，最终唯一性由 merchants.email 唯一约束保证。
+ * 启动时从 merchants 加载，本节点写入时立即加入；其他节点的新邮箱由商家搜索索引的增量同步顺带加入，
+ * 两者共用一次 updated_at 轮询（见 {@link MerchantSearchIndex}）。
+ * 布隆过滤器不支持删除，已删除或改掉的旧邮箱只会增加误判，定时整体重建清除。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantEmailFilter {
+
+    /**
+     * 重建后补齐的回看窗口，覆盖事务提交延迟和节点间时钟偏差
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM merchants WHERE is_deleted = FALSE";
+
+    private static final String LOAD_SQL = "SELECT email FROM merchants WHERE is_deleted = FALSE";
+
+    private static final String CHANGES_SQL =
+            "SELECT email FROM merchants WHERE updated_at >= ? AND is_deleted = FALSE";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${merchant.email-filter.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    private volatile ScalableBloomFilter filter;
+
+    private final LongAdder checks = new LongAdder();
+
+    private final LongAdder skipped = new LongAdder();
+
+    private final LongAdder falsePositives = new LongAdder();
+
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * 应用启动完成后加载全部邮箱
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        rebuild();
+        log.info("商家邮箱过滤器加载完成，共 {} 个邮箱，{} 位", filter.insertions(), filter.bitSize());
+    }
+
+    /**
+     * 判断邮箱是否已被占用：过滤器判定一定不存在时直接返回 false，否则执行精确查询
+     *
+     * @param email      邮箱
+     * @param exactCheck 精确查询（数据库）
+     * @return 是否已被占用
+     */
+    public boolean isTaken(String email, BooleanSupplier exactCheck) {
+        checks.increment();
+        ScalableBloomFilter current = filter;
+        if (current != null && !current.mightContain(normalize(email))) {
+            skipped.increment();
+            return false;
+        }
+        boolean taken = exactCheck.getAsBoolean();
+        if (current != null && !taken) {
+            falsePositives.increment();
+        }
+        return taken;
+    }
+
+    /**
+     * 记录新写入的邮箱（注册或修改邮箱时调用，事务回滚只会多一个误判，不影响正确性）
+     *
+     * @param email 邮箱
+     */
+    public void add(String email) {
+        ScalableBloomFilter current = filter;
+        if (current != null && email != null) {
+            current.put(normalize(email));
+        }
+    }
+
+    /**
+     * 定时重建，清除已删除或已修改的旧邮箱
+     */
+    @Scheduled(fixedDelayString = "${merchant.email-filter.rebuild-interval-ms:3600000}",
+               initialDelayString = "${merchant.email-filter.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (filter == null) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.warn("商家邮箱过滤器重建失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 运行统计：检查次数、免查库次数、误判次数、实测误判率与理论误判率（百万分比）、元素数、位数、层数、重建次数
+     * 实测误判率 = 误判次数 / (误判次数 + 免查库次数)，即对实际不存在的邮箱，过滤器仍要求查库的比例
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        ScalableBloomFilter current = filter;
+        long negatives = falsePositives.sum() + skipped.sum();
+        return Map.of(
+                "checks", checks.sum(),
+                "skipped", skipped.sum(),
+                "falsePositives", falsePositives.sum(),
+                "observedFalsePositivePpm", negatives == 0 ? 0 : falsePositives.sum() * 1_000_000 / negatives,
+                "expectedFalsePositivePpm", current != null ? Math.round(current.expectedFalsePositiveRate() * 1_000_000) : 0L,
+                "elements", current != null ? current.insertions() : 0L,
+                "bits", current != null ? current.bitSize() : 0L,
+                "layers", current != null ? (long) current.layerCount() : 0L,
+                "rebuilds", rebuilds.sum());
+    }
+
+    /**
+     * 全量构建新过滤器后替换，再补齐构建期间的变更（只在重建时查询一次，日常同步由搜索索引完成）
+     */
+    private synchronized void rebuild() {
+        Instant startedAt = Instant.now();
+        Long expected = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        // 预留一倍余量，正常增长不触发扩容
+        ScalableBloomFilter rebuilt = new ScalableBloomFilter(
+                Math.max(1, expected != null ? expected : 0) * 2, falsePositiveRate);
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            String email = rs.getString("email");
+            if (email != null) {
+                rebuilt.put(normalize(email));
+            }
+        });
+        filter = rebuilt;
+        rebuilds.increment();
+        jdbcTemplate.query(CHANGES_SQL, rs -> {
+            String email = rs.getString("email");
+            if (email != null) {
+                rebuilt.put(normalize(email));
+            }
+        }, Timestamp.from(startedAt.minus(SYNC_OVERLAP)));
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,728 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.CsvReader;
+import com.example.pos_backend.common.IdGenerator;
+import com.example.pos_backend.constants.GlobalConstants;
+import com.example.pos_backend.dto.MerchantImportJobDTO;
+import com.example.pos_backend.dto.MerchantRequestDTO;
+import com.example.pos_backend.entity.Merchant;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.exception.TooManyRequestsException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * 商家批量导入服务
+ * 接收 CSV / NDJSON 文件（先落盘为临时文件再由后台任务处理），按块（chunk-size 条商家）执行：
+ * 校验 → 一次 IN 查询排除已存在邮箱 → 在有界线程池中并行计算密码哈希 → 单个事务内 JdbcTemplate.batchUpdate 批量写入商家和门店。
+ * 单条记录的错误只记入任务结果，不中断整个导入；批量写入失败（如与在线注册并发撞邮箱）时退回逐条写入以定位失败行。
+ * 导入不创建会话、不签发令牌，与逐个调用注册接口相比省去了每个商家的会话写入和令牌生成。
+ * <p>
+ * CSV 表头：email,password,business_name,industry,currency,country,store_name,address,timezone，
+ * 邮箱相同的连续多行视为同一商家的多个门店（商家字段取第一行）。
+ * NDJSON 每行一个与注册接口相同结构的对象，多个门店可放在 stores 数组中。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MerchantImportService {
+
+    private static final String INSERT_MERCHANT_SQL =
+            "INSERT INTO merchants (id, email, password_hash, business_name, industry, currency, country, status, " +
+            "created_at, created_by, updated_at, is_deleted) VALUES (?, ?, ?, ?, ?, ?, ?, 'ACTIVE', ?, ?, ?, FALSE)";
+
+    private static final String INSERT_STORE_SQL =
+            "INSERT INTO stores (id, merchant_id, store_name, address, timezone, status, currency, " +
+            "created_at, created_by, updated_at, is_deleted) VALUES (?, ?, ?, ?, ?, 'ACTIVE', 'USD', ?, ?, ?, FALSE)";
+
+    /**
+     * 邮箱唯一约束覆盖已软删除的商家，因此不按 is_deleted 过滤
+     */
+    private static final String EXISTING_EMAILS_SQL = "SELECT email FROM merchants WHERE email IN (:emails)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final PasswordEncoder passwordEncoder;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final IdGenerator idGenerator;
+    private final MerchantEmailFilter merchantEmailFilter;
+    private final MerchantSearchIndex merchantSearchIndex;
+    private final MerchantCounters merchantCounters;
+    private final MerchantCache merchantCache;
+
+    @Value("${merchant.import.chunk-size:500}")
+    private int chunkSize;
+
+    @Value("${merchant.import.hash-threads:0}")
+    private int hashThreads;
+
+    @Value("${merchant.import.max-concurrent:1}")
+    private int maxConcurrent;
+
+    @Value("${merchant.import.max-errors:1000}")
+    private int maxErrors;
+
+    @Value("${merchant.import.retained-jobs:20}")
+    private int retainedJobs;
+
+    @Value("${merchant.import.retry-after-seconds:60}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor hashPool;
+
+    private ExecutorService jobRunner;
+
+    private Semaphore permits;
+
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+
+    private final LongAdder merchantsImported = new LongAdder();
+
+    private final LongAdder storesImported = new LongAdder();
+
+    private final LongAdder recordsFailed = new LongAdder();
+
+    private final LongAdder jobsCompleted = new LongAdder();
+
+    private final LongAdder jobsFailed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 初始化哈希线程池和任务线程池
+     * 哈希线程数未配置时取 CPU 核数的一半；队列容量为一个块，块内任务超出时由导入线程自己计算（CallerRuns），
+     * 不会无限堆积，也不占用登录用的密码哈希线程池。
+     */
+    @PostConstruct
+    public void init() {
+        int poolSize = hashThreads > 0 ? hashThreads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger hashSequence = new AtomicInteger();
+        this.hashPool = new ThreadPoolExecutor(
+                poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, chunkSize)),
+                runnable -> daemon(runnable, "import-hash-" + hashSequence.incrementAndGet()),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicInteger jobSequence = new AtomicInteger();
+        this.jobRunner = Executors.newFixedThreadPool(Math.max(1, maxConcurrent),
+                runnable -> daemon(runnable, "merchant-import-" + jobSequence.incrementAndGet()));
+        this.permits = new Semaphore(Math.max(1, maxConcurrent));
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        log.info("商家导入: 哈希线程 {}，块大小 {}，并发任务数 {}", poolSize, chunkSize, Math.max(1, maxConcurrent));
+    }
+
+    /**
+     * 关闭线程池
+     */
+    @PreDestroy
+    public void shutdown() {
+        jobRunner.shutdownNow();
+        hashPool.shutdownNow();
+    }
+
+    /**
+     * 提交导入任务：请求体先写入临时文件，随后由后台线程处理
+     *
+     * @param body      请求体
+     * @param format    文件格式
+     * @param gzip      请求体是否为 gzip 压缩
+     * @param createdBy 操作人ID（取自已认证主体；为空时以商家自身为创建人，与注册一致）
+     * @return 任务快照
+     */
+    public MerchantImportJobDTO submit(InputStream body, DataExportService.Format format, boolean gzip, String createdBy) {
+        if (!permits.tryAcquire()) {
+            rejected.increment();
+            throw new TooManyRequestsException("导入任务进行中，请稍后再试", retryAfterSeconds);
+        }
+        Path file;
+        try {
+            file = Files.createTempFile("merchant-import-", "." + format.getExtension() + (gzip ? ".gz" : ""));
+            Files.copy(body, file, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            permits.release();
+            throw new BusinessException("读取导入文件失败: " + e.getMessage());
+        }
+
+        ImportJob job = new ImportJob(UUID.randomUUID().toString(), format, maxErrors);
+        jobs.put(job.id, job);
+        trimJobs();
+        jobRunner.execute(() -> {
+            try {
+                run(job, file, format, gzip, createdBy);
+            } finally {
+                permits.release();
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    log.warn("删除导入临时文件失败: {}", file);
+                }
+            }
+        });
+        return job.snapshot();
+    }
+
+    /**
+     * 查询导入任务
+     *
+     * @param jobId 任务ID
+     * @return 任务快照
+     */
+    public MerchantImportJobDTO getJob(String jobId) {
+        ImportJob job = jobs.get(jobId);
+        if (job == null) {
+            throw BusinessException.dataNotFound("导入任务不存在: " + jobId);
+        }
+        return job.snapshot();
+    }
+
+    /**
+     * 最近的导入任务（按创建时间倒序）
+     *
+     * @return 任务快照列表
+     */
+    public List<MerchantImportJobDTO> listJobs() {
+        return jobs.values().stream()
+                .sorted(Comparator.comparing((ImportJob job) -> job.createdAt).reversed())
+                .map(ImportJob::snapshot)
+                .toList();
+    }
+
+    /**
+     * 运行统计：完成 / 失败任务数、导入商家数、导入门店数、失败记录数、因并发上限被拒绝次数、进行中的任务数、哈希队列深度
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "jobsCompleted", jobsCompleted.sum(),
+                "jobsFailed", jobsFailed.sum(),
+                "merchants", merchantsImported.sum(),
+                "stores", storesImported.sum(),
+                "failedRecords", recordsFailed.sum(),
+                "rejected", rejected.sum(),
+                "active", (long) (Math.max(1, maxConcurrent) - permits.availablePermits()),
+                "hashQueueDepth", (long) hashPool.getQueue().size());
+    }
+
+    private void run(ImportJob job, Path file, DataExportService.Format format, boolean gzip, String createdBy) {
+        job.start();
+        long startedAt = System.currentTimeMillis();
+        try (InputStream in = open(file, gzip);
+             Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 65536)) {
+            RecordSource source = format == DataExportService.Format.CSV ? new CsvSource(reader) : new NdjsonSource(reader);
+            Set<String> seenEmails = new HashSet<>();
+            List<ImportRecord> chunk = new ArrayList<>(chunkSize);
+            ImportRecord record;
+            while ((record = source.next()) != null) {
+                chunk.add(record);
+                if (chunk.size() >= chunkSize) {
+                    importChunk(job, chunk, seenEmails, createdBy);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                importChunk(job, chunk, seenEmails, createdBy);
+            }
+            job.complete(null);
+            jobsCompleted.increment();
+            MerchantImportJobDTO result = job.snapshot();
+            log.info("Merchant import {} finished in {} ms: {} merchants, {} stores, {} failed",
+                    job.id, System.currentTimeMillis() - startedAt,
+                    result.getImportedMerchants(), result.getImportedStores(), result.getFailedRecords());
+        } catch (IOException | RuntimeException e) {
+            job.complete(e.getMessage());
+            jobsFailed.increment();
+            log.warn("Merchant import {} failed after {} ms: {}", job.id, System.currentTimeMillis() - startedAt, e.getMessage());
+        }
+    }
+
+    private static InputStream open(Path file, boolean gzip) throws IOException {
+        InputStream in = Files.newInputStream(file);
+        return gzip ? new GZIPInputStream(in, 65536) : in;
+    }
+
+    /**
+     * 导入一个块：校验、查重、并行哈希、批量写入
+     */
+    private void importChunk(ImportJob job, List<ImportRecord> records, Set<String> seenEmails, String createdBy) {
+        List<ImportRecord> valid = new ArrayList<>(records.size());
+        for (ImportRecord record : records) {
+            String error = validate(record);
+            if (error == null && !seenEmails.add(normalize(record.merchant().getEmail()))) {
+                error = "文件中邮箱重复: " + record.merchant().getEmail();
+            }
+            if (error != null) {
+                reject(job, record, error);
+            } else {
+                valid.add(record);
+            }
+        }
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        Set<String> existing = existingEmails(valid);
+        valid.removeIf(record -> {
+            if (existing.contains(normalize(record.merchant().getEmail()))) {
+                reject(job, record, "邮箱已存在: " + record.merchant().getEmail());
+                return true;
+            }
+            return false;
+        });
+        if (valid.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = hashAll(valid);
+        Instant now = Instant.now();
+        List<PreparedMerchant> prepared = new ArrayList<>(valid.size());
+        for (int i = 0; i < valid.size(); i++) {
+            prepared.add(prepare(valid.get(i), hashes.get(i), now, createdBy));
+        }
+
+        try {
+            insert(prepared);
+            prepared.forEach(merchant -> imported(job, merchant));
+        } catch (DataAccessException e) {
+            // 批内有行冲突时整批回滚，逐条重试以定位失败行
+            log.debug("Batch insert failed, retrying row by row: {}", e.getMessage());
+            for (PreparedMerchant merchant : prepared) {
+                try {
+                    insert(List.of(merchant));
+                    imported(job, merchant);
+                } catch (DuplicateKeyException duplicate) {
+                    reject(job, merchant.record(), "邮箱已存在: " + merchant.merchant().getEmail());
+                } catch (DataAccessException rowFailure) {
+                    reject(job, merchant.record(), "写入失败: " + rowFailure.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * 与注册接口相同的校验规则
+     */
+    private String validate(ImportRecord record) {
+        if (record.error() != null) {
+            return record.error();
+        }
+        MerchantRequestDTO merchant = record.merchant();
+        merchant.setStore(record.stores().isEmpty() ? null : record.stores().get(0));
+        Set<ConstraintViolation<MerchantRequestDTO>> violations = validator.validate(merchant);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+        for (int i = 1; i < record.stores().size(); i++) {
+            Set<ConstraintViolation<MerchantRequestDTO.StoreInfo>> storeViolations = validator.validate(record.stores().get(i));
+            if (!storeViolations.isEmpty()) {
+                return storeViolations.iterator().next().getMessage();
+            }
+        }
+        return null;
+    }
+
+    private Set<String> existingEmails(List<ImportRecord> records) {
+        List<String> emails = records.stream().map(record -> record.merchant().getEmail()).toList();
+        Set<String> existing = new HashSet<>();
+        namedParameterJdbcTemplate.queryForList(EXISTING_EMAILS_SQL, Map.of("emails", emails), String.class)
+                .forEach(email -> existing.add(normalize(email)));
+        return existing;
+    }
+
+    /**
+     * 在导入专用线程池中并行计算一个块的密码哈希，结果顺序与输入一致
+     */
+    private List<String> hashAll(List<ImportRecord> records) {
+        List<CompletableFuture<String>> futures = records.stream()
+                .map(record -> CompletableFuture.supplyAsync(
+                        () -> passwordEncoder.encode(record.merchant().getPassword()), hashPool))
+                .toList();
+        return futures.stream().map(CompletableFuture::join).toList();
+    }
+
+    private PreparedMerchant prepare(ImportRecord record, String passwordHash, Instant now, String createdBy) {
+        MerchantRequestDTO request = record.merchant();
+        String merchantId = idGenerator.next(GlobalConstants.IdPrefix.MERCHANT);
+        Merchant merchant = Merchant.builder()
+                .id(merchantId)
+                .email(request.getEmail())
+                .passwordHash(passwordHash)
+                .businessName(request.getBusinessName())
+                .industry(request.getIndustry())
+                .currency(request.getCurrency())
+                .country(request.getCountry())
+                .status("ACTIVE")
+                .createdAt(now)
+                .createdBy(StringUtils.hasText(createdBy) ? createdBy : merchantId)
+                .updatedAt(now)
+                .isDeleted(false)
+                .build();
+        List<String> storeIds = new ArrayList<>(record.stores().size());
+        for (int i = 0; i < record.stores().size(); i++) {
+            storeIds.add(idGenerator.next(GlobalConstants.IdPrefix.LOCATION));
+        }
+        return new PreparedMerchant(record, merchant, storeIds);
+    }
+
+    /**
+     * 在一个事务内批量写入商家及其门店
+     */
+    private void insert(List<PreparedMerchant> merchants) {
+        List<Object[]> merchantRows = new ArrayList<>(merchants.size());
+        List<Object[]> storeRows = new ArrayList<>();
+        for (PreparedMerchant prepared : merchants) {
+            Merchant merchant = prepared.merchant();
+            Timestamp now = Timestamp.from(merchant.getCreatedAt());
+            merchantRows.add(new Object[]{
+                    merchant.getId(), merchant.getEmail(), merchant.getPasswordHash(), merchant.getBusinessName(),
+                    merchant.getIndustry(), merchant.getCurrency(), merchant.getCountry(),
+                    now, merchant.getCreatedBy(), now});
+            List<MerchantRequestDTO.StoreInfo> stores = prepared.record().stores();
+            for (int i = 0; i < stores.size(); i++) {
+                MerchantRequestDTO.StoreInfo store = stores.get(i);
+                storeRows.add(new Object[]{
+                        prepared.storeIds().get(i), merchant.getId(), store.getStoreName(), store.getAddress(),
+                        store.getTimezone(), now, merchant.getCreatedBy(), now});
+            }
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT_MERCHANT_SQL, merchantRows);
+            jdbcTemplate.batchUpdate(INSERT_STORE_SQL, storeRows);
+        });
+    }
+
+    /**
+     * 记录导入成功并更新本节点的邮箱过滤器、搜索索引、计数器和缓存（已在事务外，立即生效）
+     */
+    private void imported(ImportJob job, PreparedMerchant prepared) {
+        Merchant merchant = prepared.merchant();
+        merchantEmailFilter.add(merchant.getEmail());
+        merchantSearchIndex.indexAfterCommit(merchant);
+        merchantCounters.applyAfterCommit(null, merchantCounters.profileOf(merchant));
+        merchantCache.evictMerchant(merchant.getId(), merchant.getEmail());
+        job.imported(prepared.storeIds().size());
+        merchantsImported.increment();
+        storesImported.add(prepared.storeIds().size());
+    }
+
+    private void reject(ImportJob job, ImportRecord record, String message) {
+        job.reject(new MerchantImportJobDTO.RowError(record.line(),
+                record.merchant() != null ? record.merchant().getEmail() : null, message));
+        recordsFailed.increment();
+    }
+
+    private void trimJobs() {
+        int excess = jobs.size() - Math.max(1, retainedJobs);
+        if (excess <= 0) {
+            return;
+        }
+        jobs.values().stream()
+                .filter(ImportJob::isFinished)
+                .sorted(Comparator.comparing((ImportJob job) -> job.createdAt))
+                .limit(excess)
+                .forEach(job -> jobs.remove(job.id));
+    }
+
+    private static String normalize(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * 导入任务状态（进度字段由导入线程写入、查询线程读取，统一加锁）
+     */
+    private static final class ImportJob {
+
+        private final String id;
+
+        private final DataExportService.Format format;
+
+        private final int maxErrors;
+
+        private final Instant createdAt = Instant.now();
+
+        private final List<MerchantImportJobDTO.RowError> errors = new ArrayList<>();
+
+        private String status = "QUEUED";
+
+        private Instant startedAt;
+
+        private Instant finishedAt;
+
+        private String failureReason;
+
+        private long merchants;
+
+        private long stores;
+
+        private long failed;
+
+        private boolean truncated;
+
+        ImportJob(String id, DataExportService.Format format, int maxErrors) {
+            this.id = id;
+            this.format = format;
+            this.maxErrors = maxErrors;
+        }
+
+        synchronized void start() {
+            status = "RUNNING";
+            startedAt = Instant.now();
+        }
+
+        synchronized void complete(String reason) {
+            status = reason == null ? "COMPLETED" : "FAILED";
+            failureReason = reason;
+            finishedAt = Instant.now();
+        }
+
+        synchronized void imported(int storeCount) {
+            merchants++;
+            stores += storeCount;
+        }
+
+        synchronized void reject(MerchantImportJobDTO.RowError error) {
+            failed++;
+            if (errors.size() < maxErrors) {
+                errors.add(error);
+            } else {
+                truncated = true;
+            }
+        }
+
+        synchronized boolean isFinished() {
+            return finishedAt != null;
+        }
+
+        synchronized MerchantImportJobDTO snapshot() {
+            return MerchantImportJobDTO.builder()
+                    .jobId(id)
+                    .status(status)
+                    .format(format.name())
+                    .processedRecords(merchants + failed)
+                    .importedMerchants(merchants)
+                    .importedStores(stores)
+                    .failedRecords(failed)
+                    .errors(List.copyOf(errors))
+                    .errorsTruncated(truncated)
+                    .failureReason(failureReason)
+                    .createdAt(createdAt)
+                    .startedAt(startedAt)
+                    .finishedAt(finishedAt)
+                    .build();
+        }
+    }
+
+    /**
+     * 一条商家记录（含其全部门店），解析失败时 error 非空
+     */
+    private record ImportRecord(long line, MerchantRequestDTO merchant, List<MerchantRequestDTO.StoreInfo> stores,
+                                String error) {
+
+        static ImportRecord invalid(long line, String email, String error) {
+            return new ImportRecord(line, MerchantRequestDTO.builder().email(email).build(), List.of(), error);
+        }
+    }
+
+    /**
+     * 已分配ID和密码哈希、待写入的商家
+     */
+    private record PreparedMerchant(ImportRecord record, Merchant merchant, List<String> storeIds) {
+    }
+
+    /**
+     * 记录来源
+     */
+    private interface RecordSource {
+
+        /**
+         * @return 下一条商家记录，已到末尾时返回 null
+         */
+        ImportRecord next() throws IOException;
+    }
+
+    /**
+     * CSV 来源：首行为表头，邮箱相同的连续行合并为一个商家
+     */
+    private static final class CsvSource implements RecordSource {
+
+        private final CsvReader csv;
+
+        private final Map<String, Integer> columns = new HashMap<>();
+
+        private List<String> pending;
+
+        private long pendingLine;
+
+        CsvSource(Reader reader) throws IOException {
+            this.csv = new CsvReader(reader);
+            List<String> header = csv.next();
+            if (header == null) {
+                throw new IOException("CSV 文件为空");
+            }
+            for (int i = 0; i < header.size(); i++) {
+                columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+            }
+            if (!columns.containsKey("email")) {
+                throw new IOException("CSV 表头缺少 email 列");
+            }
+            advance();
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            if (pending == null) {
+                return null;
+            }
+            List<String> first = pending;
+            long line = pendingLine;
+            MerchantRequestDTO merchant = MerchantRequestDTO.builder()
+                    .email(value(first, "email", null))
+                    .password(value(first, "password", null))
+                    .businessName(value(first, "business_name", null))
+                    .industry(value(first, "industry", null))
+                    .currency(value(first, "currency", "USD"))
+                    .country(value(first, "country", "US"))
+                    .build();
+            List<MerchantRequestDTO.StoreInfo> stores = new ArrayList<>();
+            stores.add(store(first));
+            advance();
+            String email = merchant.getEmail();
+            while (pending != null && email != null && email.equalsIgnoreCase(value(pending, "email", null))) {
+                stores.add(store(pending));
+                advance();
+            }
+            return new ImportRecord(line, merchant, stores, null);
+        }
+
+        private MerchantRequestDTO.StoreInfo store(List<String> row) {
+            return MerchantRequestDTO.StoreInfo.builder()
+                    .storeName(value(row, "store_name", null))
+                    .address(value(row, "address", null))
+                    .timezone(value(row, "timezone", "Asia/Tokyo"))
+                    .build();
+        }
+
+        private String value(List<String> row, String column, String defaultValue) {
+            Integer index = columns.get(column);
+            if (index == null || index >= row.size() || row.get(index).isBlank()) {
+                return defaultValue;
+            }
+            return row.get(index).trim();
+        }
+
+        /**
+         * 读取下一条非空行
+         */
+        private void advance() throws IOException {
+            do {
+                pending = csv.next();
+            } while (pending != null && pending.size() == 1 && pending.get(0).isBlank());
+            pendingLine = csv.recordLine();
+        }
+    }
+
+    /**
+     * NDJSON 来源：每行一个商家对象，结构与注册请求相同，另可用 stores 数组携带多个门店
+     */
+    private final class NdjsonSource implements RecordSource {
+
+        private final BufferedReader reader;
+
+        private long line;
+
+        NdjsonSource(Reader reader) {
+            this.reader = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+        }
+
+        @Override
+        public ImportRecord next() throws IOException {
+            String text;
+            do {
+                text = reader.readLine();
+                line++;
+            } while (text != null && text.isBlank());
+            if (text == null) {
+                return null;
+            }
+            try {
+                JsonNode node = objectMapper.readTree(text);
+                if (!(node instanceof ObjectNode object)) {
+                    return ImportRecord.invalid(line, null, "记录必须是 JSON 对象");
+                }
+                JsonNode storesNode = object.remove("stores");
+                MerchantRequestDTO merchant = objectMapper.treeToValue(object, MerchantRequestDTO.class);
+                List<MerchantRequestDTO.StoreInfo> stores = new ArrayList<>();
+                if (merchant.getStore() != null) {
+                    stores.add(merchant.getStore());
+                }
+                if (storesNode != null && storesNode.isArray()) {
+                    for (JsonNode storeNode : storesNode) {
+                        stores.add(objectMapper.treeToValue(storeNode, MerchantRequestDTO.StoreInfo.class));
+                    }
+                }
+                return new ImportRecord(line, merchant, stores, null);
+            } catch (JsonProcessingException e) {
+                return ImportRecord.invalid(line, null, "JSON 解析失败: " + e.getOriginalMessage());
+            }
+        }
+    }
+}
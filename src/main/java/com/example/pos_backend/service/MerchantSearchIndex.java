@@ -0,0 +1,222 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.TransactionHooks;
+import com.example.pos_backend.common.TrigramIndex;
+import com.example.pos_backend.entity.Merchant;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 商家搜索索引（节点本地）
+ * 对 business_name / email 建三元组倒排索引，替代 LIKE '%keyword%' 的两列全表扫描。
+ * 启动时全量加载；本节点的注册、修改、删除在事务提交后立即写入索引，其他节点的变更按 updated_at 增量同步，
+ * 同步拉到的邮箱同时加入邮箱过滤器，商家表只有这一处定时变更轮询；
+ * 删除标记超过一定比例时整体重建，重建期间的变更由重建后的增量同步补齐。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class MerchantSearchIndex {
+
+    /**
+     * 增量同步回看窗口，覆盖事务提交延迟和节点间时钟偏差
+     */
+    private static final Duration SYNC_OVERLAP = Duration.ofSeconds(5);
+
+    private static final String LOAD_SQL =
+            "SELECT id, business_name, email, created_at FROM merchants WHERE is_deleted = FALSE";
+
+    private static final String CHANGES_SQL =
+            "SELECT id, business_name, email, created_at, is_deleted FROM merchants WHERE updated_at >= ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final MerchantEmailFilter merchantEmailFilter;
+
+    @Value("${merchant.search.rebuild-tombstone-ratio:0.2}")
+    private double rebuildTombstoneRatio;
+
+    private volatile TrigramIndex index;
+
+    private volatile Instant syncedUntil = Instant.EPOCH;
+
+    private final LongAdder searches = new LongAdder();
+
+    private final LongAdder searchNanos = new LongAdder();
+
+    private final LongAdder updates = new LongAdder();
+
+    private final LongAdder rebuilds = new LongAdder();
+
+    /**
+     * 应用启动完成后全量构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void bootstrap() {
+        long startedAt = System.currentTimeMillis();
+        rebuild();
+        log.info("商家搜索索引构建完成，共 {} 个商家、{} 个三元组，耗时 {} ms",
+                index.size(), index.trigramCount(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * 索引是否已可用（启动构建完成前调用方应回退到数据库查询）
+     *
+     * @return 是否可用
+     */
+    public boolean isReady() {
+        return index != null;
+    }
+
+    /**
+     * 搜索商家
+     *
+     * @param keyword 关键词（匹配企业名称或邮箱，不区分大小写）
+     * @param limit   最多返回条数
+     * @return 按相关度排序的商家ID
+     */
+    public List<String> search(String keyword, int limit) {
+        long startedAt = System.nanoTime();
+        try {
+            return index.search(keyword, limit).keys();
+        } finally {
+            searches.increment();
+            searchNanos.add(System.nanoTime() - startedAt);
+        }
+    }
+
+    /**
+     * 事务提交后写入或更新商家（无事务时立即写入）
+     *
+     * @param merchant 商家
+     */
+    public void indexAfterCommit(Merchant merchant) {
+        String id = merchant.getId();
+        String businessName = merchant.getBusinessName();
+        String email = merchant.getEmail();
+        long createdAt = merchant.getCreatedAt() != null ? merchant.getCreatedAt().toEpochMilli() : 0L;
+        TransactionHooks.afterCommit(() -> upsert(id, businessName, email, createdAt));
+    }
+
+    /**
+     * 事务提交后从索引中删除商家（无事务时立即删除）
+     *
+     * @param merchantId 商家ID
+     */
+    public void removeAfterCommit(String merchantId) {
+        TransactionHooks.afterCommit(() -> {
+            TrigramIndex current = index;
+            if (current != null && current.remove(merchantId)) {
+                updates.increment();
+            }
+        });
+    }
+
+    /**
+     * 定时增量同步其他节点的变更，删除标记过多时重建
+     */
+    @Scheduled(fixedDelayString = "${merchant.search.sync-interval-ms:30000}",
+               initialDelayString = "${merchant.search.sync-interval-ms:30000}")
+    public void refresh() {
+        TrigramIndex current = index;
+        if (current == null) {
+            return;
+        }
+        try {
+            int total = current.size() + current.tombstones();
+            if (total > 0 && (double) current.tombstones() / total > rebuildTombstoneRatio) {
+                rebuild();
+                log.info("商家搜索索引已重建，共 {} 个商家", index.size());
+            } else {
+                int changed = sync();
+                if (changed > 0) {
+                    log.debug("商家搜索索引同步 {} 条变更", changed);
+                }
+            }
+        } catch (Exception e) {
+            log.warn("商家搜索索引同步失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 运行统计：搜索次数、平均搜索耗时（微秒）、增量更新次数、重建次数、商家数、删除标记数、三元组数、倒排条目数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        TrigramIndex current = index;
+        long count = searches.sum();
+        return Map.of(
+                "searches", count,
+                "avgSearchMicros", count == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(searchNanos.sum() / count),
+                "updates", updates.sum(),
+                "rebuilds", rebuilds.sum(),
+                "documents", current != null ? (long) current.size() : 0L,
+                "tombstones", current != null ? (long) current.tombstones() : 0L,
+                "trigrams", current != null ? (long) current.trigramCount() : 0L,
+                "postings", current != null ? current.postingCount() : 0L);
+    }
+
+    /**
+     * 全量构建新索引后替换，再补齐构建期间的变更
+     */
+    private synchronized void rebuild() {
+        Instant startedAt = Instant.now();
+        Integer expected = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM merchants WHERE is_deleted = FALSE", Integer.class);
+        TrigramIndex rebuilt = new TrigramIndex(expected != null ? expected : 0);
+        jdbcTemplate.query(LOAD_SQL, rs -> {
+            Timestamp createdAt = rs.getTimestamp("created_at");
+            rebuilt.upsert(rs.getString("id"), rs.getString("business_name"), rs.getString("email"),
+                    createdAt != null ? createdAt.getTime() : 0L);
+        });
+        index = rebuilt;
+        syncedUntil = startedAt;
+        rebuilds.increment();
+        sync();
+    }
+
+    /**
+     * 拉取 syncedUntil 之后变更的商家，未删除商家的邮箱同时加入邮箱过滤器
+     */
+    private synchronized int sync() {
+        Instant now = Instant.now();
+        TrigramIndex current = index;
+        int[] changed = {0};
+        jdbcTemplate.query(CHANGES_SQL, rs -> {
+            String id = rs.getString("id");
+            if (rs.getBoolean("is_deleted")) {
+                current.remove(id);
+            } else {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                String email = rs.getString("email");
+                current.upsert(id, rs.getString("business_name"), email,
+                        createdAt != null ? createdAt.getTime() : 0L);
+                merchantEmailFilter.add(email);
+            }
+            changed[0]++;
+        }, Timestamp.from(syncedUntil.minus(SYNC_OVERLAP)));
+        syncedUntil = now;
+        return changed[0];
+    }
+
+    private void upsert(String id, String businessName, String email, long createdAt) {
+        TrigramIndex current = index;
+        if (current != null) {
+            current.upsert(id, businessName, email, createdAt);
+            updates.increment();
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.example.pos_backend.service;
 
+import com.example.pos_backend.common.CursorPage;
+import com.example.pos_backend.common.IdGenerator;
+import com.example.pos_backend.common.PageCursor;
+import com.example.pos_backend.common.ResourceVersion;
+import com.example.pos_backend.constants.GlobalConstants;
 import com.example.pos_backend.dto.*;
 import com.example.pos_backend.entity.Merchant;
 import com.example.pos_backend.entity.Store;
@@ -8,16 +13,26 @@ import com.example.pos_backend.repository.MerchantRepository;
 import com.example.pos_backend.repository.StoreRepository;
 import com.example.pos_backend.repository.MerchantSessionRepository;
 import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.LoginAttemptLimiter;
+import com.example.pos_backend.security.PasswordHashingExecutor;
+import com.example.pos_backend.security.SessionRevocationIndex;
+import com.example.pos_backend.security.StoreAccess;
+import com.example.pos_backend.security.TokenDigest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
 
 import java.time.Instant;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Random;
-import java.util.stream.Collectors;
+import java.util.Map;
 
 /**
  * 商家服务类
@@ -31,40 +46,57 @@ public class MerchantService {
     private final MerchantRepository merchantRepository;
     private final StoreRepository storeRepository;
     private final MerchantSessionRepository merchantSessionRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptLimiter loginAttemptLimiter;
     private final JwtService jwtService;
-    private static final Random RANDOM = new Random();
+    private final SessionRevocationIndex sessionRevocationIndex;
+    private final IdGenerator idGenerator;
+    private final MerchantSearchIndex merchantSearchIndex;
+    private final MerchantCounters merchantCounters;
+    private final MerchantCache merchantCache;
+    private final MerchantCascadeDeleter merchantCascadeDeleter;
+    private final MerchantEmailFilter merchantEmailFilter;
+    private final TransactionTemplate transactionTemplate;
+    private final StoreAccess storeAccess;
 
     /**
      * 商家注册 - 自动登录版本
      */
-    @Transactional
     public MerchantLoginResponseDTO registerMerchant(MerchantRequestDTO requestDTO) {
         return registerMerchant(requestDTO, null, null);
     }
 
     /**
      * 商家注册 - 带设备信息的自动登录版本
+     * 先检查邮箱是否已存在，重复注册不再花费一次密码哈希；密码哈希在事务外计算，等待哈希线程池期间不占用数据库连接
      */
-    @Transactional
     public MerchantLoginResponseDTO registerMerchant(MerchantRequestDTO requestDTO, String ipAddress, String userAgent) {
-        // 1. 验证邮箱是否已存在
-        if (merchantRepository.existsByEmailAndIsDeleted(requestDTO.getEmail(), false)) {
-            throw new BusinessException("邮箱已存在: " + requestDTO.getEmail());
+        // 过滤器判定一定不存在时免查库，检查之后的并发注册由唯一索引兜底
+        String email = requestDTO.getEmail();
+        if (merchantEmailFilter.isTaken(email, () -> merchantRepository.existsByEmailAndIsDeleted(email, false))) {
+            throw new BusinessException("邮箱已存在: " + email);
         }
+        String passwordHash = passwordHashingExecutor.encode(requestDTO.getPassword());
+        return transactionTemplate.execute(status -> createMerchant(requestDTO, passwordHash, ipAddress, userAgent));
+    }
 
-        // 2. 创建商家实体
+    private MerchantLoginResponseDTO createMerchant(MerchantRequestDTO requestDTO, String passwordHash, String ipAddress, String userAgent) {
+        // 1. 创建商家实体
         Merchant merchant = MerchantMapper.toEntity(requestDTO);
         merchant.setId(generateMerchantId());
-        merchant.setPasswordHash(passwordEncoder.encode(requestDTO.getPassword()));
+        merchant.setPasswordHash(passwordHash);
         merchant.setCreatedAt(Instant.now());
         merchant.setCreatedBy(merchant.getId()); // 自己创建自己
 
-        // 3. 保存商家
-        Merchant savedMerchant = merchantRepository.save(merchant);
+        // 2. 保存商家（邮箱已在哈希前检查，并发注册由唯一索引兜底）
+        Merchant savedMerchant = saveUniqueEmail(merchant, "邮箱已存在: " + requestDTO.getEmail());
+        merchantEmailFilter.add(savedMerchant.getEmail());
+        merchantSearchIndex.indexAfterCommit(savedMerchant);
+        merchantCounters.applyAfterCommit(null, merchantCounters.profileOf(savedMerchant));
+        merchantCache.evictMerchant(savedMerchant.getId(), savedMerchant.getEmail());
         log.info("Created merchant: {} with ID: {}", savedMerchant.getBusinessName(), savedMerchant.getId());
 
-        // 4. 创建默认门店
+        // 3. 创建默认门店
         Store defaultStore = MerchantMapper.toStoreEntity(requestDTO.getStore(), savedMerchant.getId());
         defaultStore.setId(generateLocationId());
         defaultStore.setCreatedAt(Instant.now());
@@ -73,51 +105,81 @@ public class MerchantService {
         Store savedStore = storeRepository.save(defaultStore);
         log.info("Created default store: {} with ID: {}", savedStore.getStoreName(), savedStore.getId());
 
-        // 5. 自动登录 - 生成令牌和会话
-        return performLogin(savedMerchant, savedStore, ipAddress, userAgent);
+        // 4. 自动登录 - 生成令牌和会话
+        return performLogin(savedMerchant, savedStore.getId(), ipAddress, userAgent);
     }
 
     /**
      * 根据ID获取商家
      */
     public MerchantResponseDTO getMerchantById(String merchantId) {
-        Merchant merchant = merchantRepository.findById(merchantId)
+        MerchantView merchant = merchantCache.getMerchant(merchantId)
                 .orElseThrow(() -> new BusinessException("商家不存在: " + merchantId));
         
-        if (merchant.getIsDeleted()) {
+        if (Boolean.TRUE.equals(merchant.isDeleted())) {
             throw new BusinessException("商家已被删除: " + merchantId);
         }
 
         return MerchantMapper.toResponseDTO(merchant);
     }
 
+    /**
+     * 获取商家资源版本（条件 GET），从商家缓存的只读投影计算，不加载实体
+     */
+    public ResourceVersion getMerchantVersion(String merchantId) {
+        MerchantView merchant = merchantCache.getMerchant(merchantId)
+                .filter(view -> !Boolean.TRUE.equals(view.isDeleted()))
+                .orElseThrow(() -> new BusinessException("商家不存在: " + merchantId));
+
+        return versionOf(merchant);
+    }
+
+    /**
+     * 根据邮箱获取商家资源版本（条件 GET）
+     */
+    public ResourceVersion getMerchantVersionByEmail(String email) {
+        MerchantView merchant = merchantCache.getMerchantByEmail(email)
+                .orElseThrow(() -> new BusinessException("商家不存在: " + email));
+
+        return versionOf(merchant);
+    }
+
     /**
      * 根据邮箱获取商家
      */
     public MerchantResponseDTO getMerchantByEmail(String email) {
-        Merchant merchant = merchantRepository.findByEmailAndIsDeleted(email, false)
+        MerchantView merchant = merchantCache.getMerchantByEmail(email)
                 .orElseThrow(() -> new BusinessException("商家不存在: " + email));
 
         return MerchantMapper.toResponseDTO(merchant);
     }
 
     /**
-     * 获取所有活跃商家
+     * 分页获取活跃商家（键集分页）
      */
-    public List<MerchantResponseDTO> getAllActiveMerchants() {
-        return merchantRepository.findActiveMerchants().stream()
-                .map(MerchantMapper::toResponseDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<MerchantResponseDTO> getActiveMerchants(String cursor, Integer size) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.resolvePageSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<MerchantView> rows = after == null
+                ? merchantRepository.findActivePage(limit)
+                : merchantRepository.findActivePageAfter(after.time(), after.id(), limit);
+        return PageCursor.toPage(rows, pageSize, MerchantView::createdAt, MerchantView::id, MerchantMapper::toResponseDTO);
     }
 
     /**
-     * 根据行业获取商家
+     * 分页获取指定行业的商家（键集分页）
      */
-    public List<MerchantResponseDTO> getMerchantsByIndustry(String industry) {
-        return merchantRepository.findByIndustry(industry).stream()
-                .filter(merchant -> !merchant.getIsDeleted())
-                .map(MerchantMapper::toResponseDTO)
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public CursorPage<MerchantResponseDTO> getMerchantsByIndustry(String industry, String cursor, Integer size) {
+        PageCursor after = PageCursor.decode(cursor);
+        int pageSize = PageCursor.resolvePageSize(size);
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        List<MerchantView> rows = after == null
+                ? merchantRepository.findByIndustryPage(industry, limit)
+                : merchantRepository.findByIndustryPageAfter(industry, after.time(), after.id(), limit);
+        return PageCursor.toPage(rows, pageSize, MerchantView::createdAt, MerchantView::id, MerchantMapper::toResponseDTO);
     }
 
     /**
@@ -133,26 +195,40 @@ public class MerchantService {
         }
 
         // 检查邮箱是否被其他商家使用
-        if (updateDTO.getEmail() != null && 
-            !updateDTO.getEmail().equals(merchant.getEmail()) &&
-            merchantRepository.existsByEmailAndIdNot(updateDTO.getEmail(), merchantId)) {
+        String newEmail = updateDTO.getEmail();
+        if (newEmail != null && 
+            !newEmail.equals(merchant.getEmail()) &&
+            merchantEmailFilter.isTaken(newEmail, () -> merchantRepository.existsByEmailAndIdNot(newEmail, merchantId))) {
             throw new BusinessException("邮箱已被其他商家使用: " + updateDTO.getEmail());
         }
 
+        MerchantCounters.Profile before = merchantCounters.profileOf(merchant);
+        String previousEmail = merchant.getEmail();
         MerchantMapper.updateEntityFromDTO(updateDTO, merchant);
         merchant.setUpdatedAt(Instant.now());
 
-        Merchant updatedMerchant = merchantRepository.save(merchant);
+        Merchant updatedMerchant = saveUniqueEmail(merchant, "邮箱已被其他商家使用: " + updateDTO.getEmail());
+        merchantEmailFilter.add(updatedMerchant.getEmail());
+        merchantSearchIndex.indexAfterCommit(updatedMerchant);
+        merchantCounters.applyAfterCommit(before, merchantCounters.profileOf(updatedMerchant));
+        merchantCache.evictMerchant(merchantId, previousEmail, updatedMerchant.getEmail());
         log.info("Updated merchant: {} with ID: {}", updatedMerchant.getBusinessName(), updatedMerchant.getId());
 
         return MerchantMapper.toResponseDTO(updatedMerchant);
     }
 
     /**
-     * 删除商家（软删除）
+     * 删除商家（软删除），返回各从属表的影响行数
+     * 只有商家账号本身可以删除，操作人取自已认证主体
+     *
+     * @param merchantId 商家ID
+     * @param operator   已认证主体
+     * @return 各表影响行数
      */
     @Transactional
-    public void deleteMerchant(String merchantId, String deletedBy) {
+    public Map<String, Long> deleteMerchant(String merchantId, AuthenticatedPrincipal operator) {
+        storeAccess.requireMerchantAccount(operator, merchantId);
+        String deletedBy = operator.id();
         Merchant merchant = merchantRepository.findById(merchantId)
                 .orElseThrow(() -> new BusinessException("商家不存在: " + merchantId));
 
@@ -160,67 +236,67 @@ public class MerchantService {
             throw new BusinessException("商家已被删除: " + merchantId);
         }
 
+        MerchantCounters.Profile before = merchantCounters.profileOf(merchant);
         merchant.setIsDeleted(true);
         merchant.setStatus("INACTIVE");
         merchant.setUpdatedAt(Instant.now());
         merchant.setUpdatedBy(deletedBy);
 
         merchantRepository.save(merchant);
+        merchantSearchIndex.removeAfterCommit(merchantId);
+        merchantCounters.applyAfterCommit(before, null);
+        merchantCache.evictMerchant(merchantId, merchant.getEmail());
         log.info("Deleted merchant: {} with ID: {}", merchant.getBusinessName(), merchant.getId());
 
-        // 同时软删除该商家下的所有门店
-        List<Store> stores = storeRepository.findByMerchantIdAndIsDeleted(merchantId, false);
-        stores.forEach(store -> {
-            store.setIsDeleted(true);
-            store.setStatus("INACTIVE");
-            store.setUpdatedAt(Instant.now());
-            store.setUpdatedBy(deletedBy);
-        });
-        storeRepository.saveAll(stores);
-        log.info("Deleted {} stores for merchant: {}", stores.size(), merchantId);
+        // 门店、员工、设备、商品及会话按表批量软删除
+        return merchantCascadeDeleter.cascade(merchantId, deletedBy);
     }
 
     /**
      * 商家认证（登录）- OAuth2版本
      */
-    @Transactional
     public MerchantLoginResponseDTO authenticateMerchant(String email, String password) {
         return authenticateMerchant(email, password, null, null);
     }
 
     /**
      * 商家认证（登录）- 带设备信息的OAuth2版本
+     * 查询商家与密码比对都在事务外完成，只有创建会话时才开启事务
      */
-    @Transactional
     public MerchantLoginResponseDTO authenticateMerchant(String email, String password, String ipAddress, String userAgent) {
-        Merchant merchant = merchantRepository.findByEmailAndIsDeleted(email, false)
-                .orElseThrow(() -> new BusinessException("邮箱或密码错误"));
-
-        if (!passwordEncoder.matches(password, merchant.getPasswordHash())) {
+        // 失败次数超限时直接拒绝，不进入密码哈希
+        loginAttemptLimiter.check(email, ipAddress);
+
+        // 邮箱不存在时也与假哈希比对一次，响应耗时不暴露邮箱是否已注册
+        Merchant merchant = merchantRepository.findByEmailAndIsDeleted(email, false).orElse(null);
+        boolean matched = passwordHashingExecutor.matches(password, merchant != null ? merchant.getPasswordHash() : null);
+        if (merchant == null || !matched) {
+            loginAttemptLimiter.recordFailure(email, ipAddress);
             throw new BusinessException("邮箱或密码错误");
         }
+        loginAttemptLimiter.recordSuccess(email);
 
         if (!"ACTIVE".equals(merchant.getStatus())) {
             throw new BusinessException("商家账户已被禁用");
         }
 
         // 获取默认门店
-        Store defaultStore = storeRepository.findDefaultStoreByMerchantId(merchant.getId()).orElse(null);
+        String locationId = merchantCache.getDefaultStore(merchant.getId()).map(StoreView::id).orElse(null);
 
         log.info("Merchant authenticated: {} with ID: {}", merchant.getBusinessName(), merchant.getId());
-        return performLogin(merchant, defaultStore, ipAddress, userAgent);
+        return transactionTemplate.execute(status -> performLogin(merchant, locationId, ipAddress, userAgent));
     }
 
     /**
      * 执行登录流程 - 生成令牌和创建会话
      */
-    private MerchantLoginResponseDTO performLogin(Merchant merchant, Store store, String ipAddress, String userAgent) {
+    private MerchantLoginResponseDTO performLogin(Merchant merchant, String locationId, String ipAddress, String userAgent) {
         Instant now = Instant.now();
         
-        // 1. 生成JWT令牌
-        String accessToken = jwtService.generateAccessToken(merchant.getId(), merchant.getEmail(), merchant.getBusinessName());
-        String refreshToken = jwtService.generateRefreshToken(merchant.getId());
+        // 1. 生成会话ID和JWT令牌
         String sessionId = jwtService.generateSessionId();
+        String accessToken = jwtService.generateAccessToken(merchant.getId(), merchant.getEmail(), merchant.getBusinessName(), sessionId);
+        String refreshToken = jwtService.generateRefreshToken(merchant.getId());
 
         // 2. 计算过期时间
         Long accessTokenExpiration = jwtService.getAccessTokenExpiration();
@@ -232,8 +308,8 @@ public class MerchantService {
         MerchantSession session = MerchantSession.builder()
                 .sessionId(sessionId)
                 .merchantId(merchant.getId()) // 商家ID
-                .accessToken(accessToken)
-                .refreshToken(refreshToken)
+                .accessTokenHash(TokenDigest.sha256(accessToken))
+                .refreshTokenHash(TokenDigest.sha256(refreshToken))
                 .accessTokenExpiresAt(accessTokenExpiresAt)
                 .refreshTokenExpiresAt(refreshTokenExpiresAt)
                 .ipAddress(ipAddress)
@@ -251,7 +327,7 @@ public class MerchantService {
         // 4. 返回OAuth2风格的响应
         return MerchantMapper.toLoginResponseDTO(
                 merchant, 
-                store, 
+                locationId, 
                 accessToken, 
                 refreshToken,
                 accessTokenExpiration,
@@ -261,43 +337,129 @@ public class MerchantService {
     }
 
     /**
-     * 搜索商家
+     * 商家登出 - 停用会话并吊销其令牌
      */
-    public List<MerchantResponseDTO> searchMerchants(String keyword) {
-        return merchantRepository.findByBusinessNameOrEmailContaining(keyword).stream()
+    @Transactional
+    public void logout(String accessToken) {
+        MerchantSession session = merchantSessionRepository.findByAccessTokenAndIsDeleted(accessToken, false)
+                .orElseThrow(() -> new BusinessException("会话不存在或已失效"));
+
+        if (!"ACTIVE".equals(session.getStatus())) {
+            throw new BusinessException("会话已失效");
+        }
+
+        session.setStatus("INACTIVE");
+        session.setUpdatedAt(Instant.now());
+        session.setUpdatedBy(session.getMerchantId());
+        merchantSessionRepository.save(session);
+
+        // 本节点立即生效，其他节点通过吊销索引的增量同步获取
+        sessionRevocationIndex.revoke(accessToken, session.getAccessTokenExpiresAt());
+        if (session.getRefreshTokenHash() != null) {
+            sessionRevocationIndex.revoke(TokenDigest.fromBytes(session.getRefreshTokenHash()), session.getRefreshTokenExpiresAt());
+        }
+        log.info("Merchant logged out, session: {} merchant: {}", session.getSessionId(), session.getMerchantId());
+    }
+
+    /**
+     * 搜索商家（按相关度排序，返回前 limit 个）
+     */
+    @Transactional(readOnly = true)
+    public List<MerchantResponseDTO> searchMerchants(String keyword, Integer limit) {
+        if (!StringUtils.hasText(keyword)) {
+            throw BusinessException.dataValidation("搜索关键词不能为空");
+        }
+        int max = PageCursor.resolvePageSize(limit);
+        if (!merchantSearchIndex.isReady()) {
+            return merchantRepository.searchPage(keyword.trim(), PageRequest.of(0, max)).stream()
+                    .map(MerchantMapper::toResponseDTO)
+                    .toList();
+        }
+
+        List<String> ids = merchantSearchIndex.search(keyword, max);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<String, MerchantView> byId = new HashMap<>();
+        merchantRepository.findViewsByIdIn(ids).forEach(merchant -> byId.put(merchant.id(), merchant));
+        return ids.stream()
+                .map(byId::get)
+                .filter(merchant -> merchant != null && !Boolean.TRUE.equals(merchant.isDeleted()))
                 .map(MerchantMapper::toResponseDTO)
-                .collect(Collectors.toList());
+                .toList();
     }
 
     /**
-     * 统计商家数量
+     * 统计商家数量（读内存计数器，启动加载完成前回退到数据库）
      */
     public long countActiveMerchants() {
-        return merchantRepository.countByStatusAndNotDeleted("ACTIVE");
+        if (!merchantCounters.isReady()) {
+            return merchantRepository.countByStatusAndNotDeleted("ACTIVE");
+        }
+        return merchantCounters.countByStatus("ACTIVE");
     }
 
     /**
      * 统计各行业商家数量
      */
     public List<Object[]> countMerchantsByIndustry() {
-        return merchantRepository.countMerchantsByIndustry();
+        if (!merchantCounters.isReady()) {
+            return merchantRepository.countMerchantsByIndustry();
+        }
+        return toRows(merchantCounters.countByIndustry());
+    }
+
+    /**
+     * 统计各国家商家数量
+     */
+    public List<Object[]> countMerchantsByCountry() {
+        if (!merchantCounters.isReady()) {
+            return merchantRepository.countMerchantsByCountry();
+        }
+        return toRows(merchantCounters.countByCountry());
+    }
+
+    /**
+     * 计数结果转换为与 GROUP BY 查询相同的 [分组, 数量] 行格式
+     */
+    private List<Object[]> toRows(Map<String, Long> counts) {
+        return counts.entrySet().stream()
+                .map(entry -> new Object[]{entry.getKey(), entry.getValue()})
+                .toList();
+    }
+
+    /**
+     * 保存商家并立即刷新，邮箱违反 merchants.email 唯一约束（并发注册或修改）时转换为业务异常
+     */
+    private Merchant saveUniqueEmail(Merchant merchant, String duplicateMessage) {
+        try {
+            return merchantRepository.saveAndFlush(merchant);
+        } catch (DataIntegrityViolationException e) {
+            throw new BusinessException(duplicateMessage);
+        }
+    }
+
+    /**
+     * 按响应DTO包含的字段计算商家版本
+     */
+    private static ResourceVersion versionOf(MerchantView merchant) {
+        Instant lastModified = merchant.updatedAt() != null ? merchant.updatedAt() : merchant.createdAt();
+        return ResourceVersion.of(merchant.id(), lastModified,
+                merchant.email(), merchant.businessName(), merchant.industry(), merchant.currency(),
+                merchant.country(), merchant.status(), merchant.createdAt(), merchant.updatedAt());
     }
 
     /**
-     * 生成商家ID - Square风格
+     * 生成商家ID - MRC- 前缀加时间有序主体
      */
     private String generateMerchantId() {
-        long timestamp = System.currentTimeMillis();
-        int randomNum = RANDOM.nextInt(1000);
-        return String.format("MRC-%d-%03d", timestamp, randomNum);
+        return idGenerator.next(GlobalConstants.IdPrefix.MERCHANT);
     }
 
     /**
-     * 生成门店ID - Square风格
+     * 生成门店ID - LOC- 前缀加时间有序主体
      */
     private String generateLocationId() {
-        long timestamp = System.currentTimeMillis();
-        int randomNum = RANDOM.nextInt(1000);
-        return String.format("LOC-%d-%03d", timestamp, randomNum);
+        return idGenerator.next(GlobalConstants.IdPrefix.LOCATION);
     }
 }
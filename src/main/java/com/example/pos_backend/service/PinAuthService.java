@@ -0,0 +1,398 @@
+package com.example.pos_backend.service;
+
+import com.example.pos_backend.common.LocalCache;
+import com.example.pos_backend.dto.PinLoginRequestDTO;
+import com.example.pos_backend.dto.PinLoginResponseDTO;
+import com.example.pos_backend.entity.User;
+import com.example.pos_backend.entity.UserSession;
+import com.example.pos_backend.exception.BusinessException;
+import com.example.pos_backend.repository.UserRepository;
+import com.example.pos_backend.repository.UserSessionRepository;
+import com.example.pos_backend.security.AuthenticatedPrincipal;
+import com.example.pos_backend.security.PasswordHashingExecutor;
+import com.example.pos_backend.security.PinHasher;
+import com.example.pos_backend.security.StoreAccess;
+import com.example.pos_backend.security.TokenDigest;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 员工 PIN 登录服务（iPad 收银终端快速切换收银员）
+ * 每个门店在内存中维护一份在职员工名册，以 HMAC(pepper, storeId:pin) 为键，登录只需一次 HMAC 和一次哈希查找；
+ * 旧版 BCrypt PIN 仍可登录，成功后自动升级为 HMAC；每次登录最多比对 max-legacy-checks 个旧版 PIN，超出部分需由管理员重设 PIN。
+ * 失败次数按客户端地址统计（不使用请求体中可随意更换的终端ID），超过上限即锁定该地址一段时间；
+ * 门店维度的失败次数只用于告警，不锁定登录，否则知道门店ID的匿名调用方就能让整个门店的收银台无法登录。
+ * 名册只为存在的门店加载，不存在的门店做短时负缓存，名册缓存有容量上限。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PinAuthService {
+
+    private static final String ROSTER_SQL =
+            "SELECT user_id, username, first_name, last_name, role, pin_hash FROM users " +
+            "WHERE store_id = ? AND status = 'ACTIVE' AND is_deleted = FALSE AND pin_hash IS NOT NULL";
+
+    private static final String UPGRADE_PIN_SQL =
+            "UPDATE users SET pin_hash = ?, updated_at = updated_at WHERE user_id = ? AND pin_hash = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserRepository userRepository;
+    private final UserSessionRepository userSessionRepository;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final PinHasher pinHasher;
+    private final JwtService jwtService;
+    private final MerchantCache merchantCache;
+    private final StoreAccess storeAccess;
+
+    @Value("${pin.roster-ttl-ms:60000}")
+    private long rosterTtlMs;
+
+    @Value("${pin.max-cached-stores:10000}")
+    private int maxCachedStores;
+
+    @Value("${pin.unknown-store-ttl-ms:10000}")
+    private long unknownStoreTtlMs;
+
+    @Value("${pin.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${pin.max-attempts-per-store:20}")
+    private int maxAttemptsPerStore;
+
+    @Value("${pin.max-legacy-checks:5}")
+    private int maxLegacyChecks;
+
+    @Value("${pin.attempt-window-ms:60000}")
+    private long attemptWindowMs;
+
+    @Value("${pin.lockout-ms:300000}")
+    private long lockoutMs;
+
+    /**
+     * 门店ID -> 员工名册（门店不存在时为负缓存）
+     */
+    private LocalCache<String, StoreRoster> rosters;
+
+    /**
+     * store:门店ID（只告警）/ ip:客户端地址（锁定）-> 失败尝试记录
+     */
+    private final ConcurrentHashMap<String, Attempts> attempts = new ConcurrentHashMap<>();
+
+    private final LongAdder logins = new LongAdder();
+
+    private final LongAdder failures = new LongAdder();
+
+    private final LongAdder lockouts = new LongAdder();
+
+    private final LongAdder storeAlerts = new LongAdder();
+
+    private final LongAdder rosterLoads = new LongAdder();
+
+    private final LongAdder legacyUpgrades = new LongAdder();
+
+    private final LongAdder legacyCapped = new LongAdder();
+
+    /**
+     * 按配置创建名册缓存
+     */
+    @PostConstruct
+    public void init() {
+        this.rosters = new LocalCache<>(maxCachedStores, rosterTtlMs, unknownStoreTtlMs);
+    }
+
+    /**
+     * PIN 登录
+     *
+     * @param request   登录请求
+     * @param ipAddress 客户端地址（连接的远端地址，经可信代理时由容器解析转发头）
+     * @param userAgent 客户端UA
+     * @return 登录结果
+     */
+    @Transactional
+    public PinLoginResponseDTO login(PinLoginRequestDTO request, String ipAddress, String userAgent) {
+        String storeId = request.getStoreId();
+        String storeKey = "store:" + storeId;
+        String ipKey = "ip:" + ipAddress;
+        checkNotLocked(ipKey);
+
+        StoreRoster roster = rosters.get(storeId, this::loadRoster);
+        RosterEntry entry = null;
+        if (roster != null && PinHasher.isValidPin(request.getPin())) {
+            String pinKey = pinHasher.hash(storeId, request.getPin());
+            entry = roster.byPin().get(pinKey);
+            if (entry == null && !roster.legacy().isEmpty()) {
+                entry = matchLegacy(storeId, roster, request.getPin(), pinKey);
+            }
+        }
+        if (entry == null) {
+            failures.increment();
+            // 不存在的门店不建立门店计数，避免随意的门店ID撑大失败记录表
+            if (roster != null) {
+                recordStoreFailure(storeKey);
+            }
+            recordFailure(ipKey, maxAttempts);
+            throw new BusinessException("PIN码错误");
+        }
+
+        attempts.remove(ipKey);
+        logins.increment();
+        return issueSession(entry, roster.merchantId(), storeId, request.getDeviceId(), ipAddress, userAgent);
+    }
+
+    /**
+     * 设置员工 PIN（同一门店内 PIN 不可重复，否则无法按 PIN 定位员工）
+     * 名册预检查给出友好提示，并发设置同一 PIN 时由 uk_users_store_pin 唯一索引兜底
+     *
+     * @param userId   用户ID
+     * @param pin      新 PIN
+     * @param operator 操作人（须与员工属于同一商家，且能访问员工所在门店）
+     */
+    @Transactional
+    public void updatePin(String userId, String pin, AuthenticatedPrincipal operator) {
+        if (!PinHasher.isValidPin(pin)) {
+            throw BusinessException.dataValidation("PIN码必须为4-6位数字");
+        }
+        User user = userRepository.findById(userId)
+                .filter(u -> !Boolean.TRUE.equals(u.getIsDeleted()))
+                .orElseThrow(() -> BusinessException.dataNotFound("用户不存在: " + userId));
+        storeAccess.requireMerchant(operator, user.getMerchantId());
+        storeAccess.requireStore(operator, user.getStoreId());
+
+        String storeId = user.getStoreId();
+        String pinKey = pinHasher.hash(storeId, pin);
+        StoreRoster roster = loadRoster(storeId);
+        if (roster == null) {
+            throw BusinessException.dataNotFound("门店不存在: " + storeId);
+        }
+        RosterEntry holder = roster.byPin().get(pinKey);
+        boolean taken = holder != null && !holder.userId().equals(userId);
+        if (!taken) {
+            taken = roster.legacy().stream()
+                    .anyMatch(legacy -> !legacy.userId().equals(userId) && passwordHashingExecutor.matches(pin, legacy.pinHash()));
+        }
+        if (taken) {
+            throw BusinessException.dataDuplicate("该PIN码已被本门店其他员工使用");
+        }
+
+        user.setPinHash(pinKey);
+        user.setUpdatedAt(Instant.now());
+        user.setUpdatedBy(operator.id());
+        try {
+            userRepository.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            throw BusinessException.dataDuplicate("该PIN码已被本门店其他员工使用");
+        }
+        rosters.invalidate(storeId);
+        log.info("PIN updated for user: {} store: {}", userId, storeId);
+    }
+
+    /**
+     * 使门店名册失效（员工入职、离职、停用后调用）
+     *
+     * @param storeId 门店ID
+     */
+    public void invalidateStore(String storeId) {
+        rosters.invalidate(storeId);
+    }
+
+    /**
+     * 定时清理过期的失败尝试记录
+     */
+    @Scheduled(fixedDelayString = "${pin.attempt-window-ms:60000}")
+    public void evictAttempts() {
+        long now = System.currentTimeMillis();
+        attempts.values().removeIf(a -> a.lockedUntil() < now && now - a.windowStart() > attemptWindowMs);
+    }
+
+    /**
+     * 运行统计：登录成功次数、失败次数、锁定次数、门店告警次数、名册加载次数、旧版 PIN 升级次数、旧版比对截断次数、已缓存门店数、失败记录数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "logins", logins.sum(),
+                "failures", failures.sum(),
+                "lockouts", lockouts.sum(),
+                "storeAlerts", storeAlerts.sum(),
+                "rosterLoads", rosterLoads.sum(),
+                "legacyUpgrades", legacyUpgrades.sum(),
+                "legacyCapped", legacyCapped.sum(),
+                "cachedStores", rosters.stats().size(),
+                "trackedAttempts", (long) attempts.size());
+    }
+
+    /**
+     * 加载门店员工名册，门店不存在或已删除时返回 null
+     */
+    private StoreRoster loadRoster(String storeId) {
+        String merchantId = merchantCache.getStoreMerchantId(storeId).orElse(null);
+        if (merchantId == null) {
+            return null;
+        }
+        rosterLoads.increment();
+        Map<String, RosterEntry> byPin = new HashMap<>();
+        List<RosterEntry> legacy = new ArrayList<>();
+        jdbcTemplate.query(ROSTER_SQL, rs -> {
+            RosterEntry entry = new RosterEntry(
+                    rs.getString("user_id"),
+                    rs.getString("username"),
+                    rs.getString("first_name"),
+                    rs.getString("last_name"),
+                    rs.getString("role"),
+                    rs.getString("pin_hash"));
+            if (PinHasher.isLegacyHash(entry.pinHash())) {
+                legacy.add(entry);
+            } else {
+                byPin.put(entry.pinHash(), entry);
+            }
+        }, storeId);
+        if (legacy.size() > maxLegacyChecks) {
+            log.warn("Store {} has {} legacy BCrypt PINs, only the first {} are checked at login; reset the rest",
+                    storeId, legacy.size(), maxLegacyChecks);
+        }
+        return new StoreRoster(merchantId, Map.copyOf(byPin), List.copyOf(legacy));
+    }
+
+    /**
+     * 比对尚未升级的 BCrypt PIN（最多 max-legacy-checks 个），命中后升级为 HMAC 并使名册失效
+     */
+    private RosterEntry matchLegacy(String storeId, StoreRoster roster, String pin, String pinKey) {
+        List<RosterEntry> candidates = roster.legacy();
+        if (candidates.size() > maxLegacyChecks) {
+            legacyCapped.increment();
+            candidates = candidates.subList(0, maxLegacyChecks);
+        }
+        for (RosterEntry legacy : candidates) {
+            if (passwordHashingExecutor.matches(pin, legacy.pinHash())) {
+                try {
+                    if (jdbcTemplate.update(UPGRADE_PIN_SQL, pinKey, legacy.userId(), legacy.pinHash()) > 0) {
+                        legacyUpgrades.increment();
+                    }
+                } catch (DuplicateKeyException e) {
+                    // 同店已有员工使用相同 PIN，保留旧版哈希，由管理员重设
+                    log.warn("Legacy PIN of user {} collides with another employee in store {}, not upgraded",
+                            legacy.userId(), storeId);
+                }
+                rosters.invalidate(storeId);
+                return legacy;
+            }
+        }
+        return null;
+    }
+
+    private PinLoginResponseDTO issueSession(RosterEntry entry, String merchantId, String storeId, String deviceId,
+                                             String ipAddress, String userAgent) {
+        Instant now = Instant.now();
+        String sessionId = jwtService.generateSessionId();
+        String accessToken = jwtService.generateUserAccessToken(
+                entry.userId(), entry.username(), merchantId, storeId, sessionId);
+        Long accessTokenExpiration = jwtService.getAccessTokenExpiration();
+
+        UserSession session = UserSession.builder()
+                .sessionId(sessionId)
+                .userId(entry.userId())
+                .deviceId(deviceId)
+                .accessTokenHash(TokenDigest.sha256(accessToken))
+                .accessTokenExpiresAt(now.plusSeconds(accessTokenExpiration))
+                .ipAddress(ipAddress)
+                .userAgent(userAgent)
+                .status("ACTIVE")
+                .lastActivityAt(now)
+                .createdAt(now)
+                .createdBy(entry.userId())
+                .isDeleted(false)
+                .build();
+        userSessionRepository.save(session);
+
+        return PinLoginResponseDTO.builder()
+                .userId(entry.userId())
+                .locationId(storeId)
+                .accessToken(accessToken)
+                .expiresIn(accessTokenExpiration)
+                .sessionId(sessionId)
+                .username(entry.username())
+                .firstName(entry.firstName())
+                .lastName(entry.lastName())
+                .role(entry.role())
+                .build();
+    }
+
+    private void checkNotLocked(String limiterKey) {
+        Attempts current = attempts.get(limiterKey);
+        if (current != null && current.lockedUntil() > System.currentTimeMillis()) {
+            throw BusinessException.operationNotAllowed("PIN尝试次数过多，请稍后再试");
+        }
+    }
+
+    private void recordFailure(String limiterKey, int limit) {
+        long now = System.currentTimeMillis();
+        attempts.compute(limiterKey, (key, current) -> {
+            Attempts next = current == null || now - current.windowStart() > attemptWindowMs
+                    ? new Attempts(now, 0, 0)
+                    : current;
+            int count = next.failures() + 1;
+            if (count >= limit) {
+                lockouts.increment();
+                log.warn("PIN login locked for {} after {} failures", key, count);
+                return new Attempts(now, 0, now + lockoutMs);
+            }
+            return new Attempts(next.windowStart(), count, next.lockedUntil());
+        });
+    }
+
+    /**
+     * 记录门店维度的失败：窗口内达到阈值时告警并重新计数，不锁定门店
+     */
+    private void recordStoreFailure(String storeKey) {
+        long now = System.currentTimeMillis();
+        attempts.compute(storeKey, (key, current) -> {
+            Attempts next = current == null || now - current.windowStart() > attemptWindowMs
+                    ? new Attempts(now, 0, 0)
+                    : current;
+            int count = next.failures() + 1;
+            if (count >= maxAttemptsPerStore) {
+                storeAlerts.increment();
+                log.warn("PIN login failures for {} reached {} within {} ms, possible brute force", key, count, attemptWindowMs);
+                return new Attempts(now, 0, 0);
+            }
+            return new Attempts(next.windowStart(), count, 0);
+        });
+    }
+
+    /**
+     * 门店员工名册（不可变，过期后整体替换）
+     */
+    private record StoreRoster(String merchantId, Map<String, RosterEntry> byPin, List<RosterEntry> legacy) {
+    }
+
+    /**
+     * 名册条目
+     */
+    private record RosterEntry(String userId, String username, String firstName, String lastName,
+                               String role, String pinHash) {
+    }
+
+    /**
+     * 失败尝试窗口
+     */
+    private record Attempts(long windowStart, int failures, long lockedUntil) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.example.pos_backend.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 会话活跃时间追踪器（写回合并）
+ * 请求路径上只在内存中记录 sessionId -> 最后活跃时间，定时批量写回 last_activity_at，
+ * 同一会话在最大陈旧时间内只写一次，读请求不会变成会话表上的行写入。应用关闭时会做最后一次写回。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionActivityTracker {
+
+    private static final String UPDATE_MERCHANT_SESSION_SQL =
+            "UPDATE merchant_sessions SET last_activity_at = ?, updated_at = updated_at " +
+            "WHERE session_id = ? AND (last_activity_at IS NULL OR last_activity_at < ?)";
+
+    private static final String UPDATE_USER_SESSION_SQL =
+            "UPDATE user_sessions SET last_activity_at = ?, updated_at = updated_at " +
+            "WHERE session_id = ? AND (last_activity_at IS NULL OR last_activity_at < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${session.activity.max-staleness-ms:60000}")
+    private long maxStalenessMs;
+
+    @Value("${session.activity.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 待写回的商家会话活跃时间
+     */
+    private final ConcurrentHashMap<String, Instant> pendingMerchantSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 待写回的员工会话活跃时间
+     */
+    private final ConcurrentHashMap<String, Instant> pendingUserSessions = new ConcurrentHashMap<>();
+
+    /**
+     * 最近一次写回数据库的活跃时间，用于在最大陈旧时间内丢弃重复的 touch
+     */
+    private final ConcurrentHashMap<String, Instant> persisted = new ConcurrentHashMap<>();
+
+    private final LongAdder touches = new LongAdder();
+
+    private final LongAdder coalesced = new LongAdder();
+
+    private final LongAdder rowsWritten = new LongAdder();
+
+    private final LongAdder flushes = new LongAdder();
+
+    /**
+     * 记录商家会话活跃
+     *
+     * @param sessionId 会话ID
+     */
+    public void touchMerchantSession(String sessionId) {
+        touch(pendingMerchantSessions, sessionId);
+    }
+
+    /**
+     * 记录员工会话活跃
+     *
+     * @param sessionId 会话ID
+     */
+    public void touchUserSession(String sessionId) {
+        touch(pendingUserSessions, sessionId);
+    }
+
+    private void touch(ConcurrentHashMap<String, Instant> pending, String sessionId) {
+        if (sessionId == null) {
+            return;
+        }
+        touches.increment();
+        Instant now = Instant.now();
+        Instant lastPersisted = persisted.get(sessionId);
+        if (lastPersisted != null && Duration.between(lastPersisted, now).toMillis() < maxStalenessMs) {
+            coalesced.increment();
+            return;
+        }
+        if (pending.put(sessionId, now) != null) {
+            coalesced.increment();
+        }
+    }
+
+    /**
+     * 定时写回
+     */
+    @Scheduled(fixedDelayString = "${session.activity.flush-interval-ms:15000}",
+               initialDelayString = "${session.activity.flush-interval-ms:15000}")
+    public void scheduledFlush() {
+        try {
+            flush();
+        } catch (Exception e) {
+            log.warn("会话活跃时间写回失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 应用关闭前写回剩余的活跃时间
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        int written = flush();
+        log.info("应用关闭，写回会话活跃时间 {} 条", written);
+    }
+
+    /**
+     * 将待写回的活跃时间批量更新到会话表
+     *
+     * @return 提交的更新条数
+     */
+    public synchronized int flush() {
+        int written = flush(pendingMerchantSessions, UPDATE_MERCHANT_SESSION_SQL)
+                + flush(pendingUserSessions, UPDATE_USER_SESSION_SQL);
+        evictPersisted();
+        flushes.increment();
+        if (written > 0) {
+            log.debug("写回会话活跃时间 {} 条", written);
+        }
+        return written;
+    }
+
+    private int flush(ConcurrentHashMap<String, Instant> pending, String sql) {
+        if (pending.isEmpty()) {
+            return 0;
+        }
+        List<Object[]> batch = new ArrayList<>(Math.min(pending.size(), batchSize));
+        int written = 0;
+        for (Iterator<Map.Entry<String, Instant>> it = pending.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<String, Instant> entry = it.next();
+            String sessionId = entry.getKey();
+            Instant activityAt = entry.getValue();
+            // 只移除本次读到的值，期间新到的 touch 留到下一轮
+            if (!pending.remove(sessionId, activityAt)) {
+                continue;
+            }
+            Timestamp timestamp = Timestamp.from(activityAt);
+            batch.add(new Object[]{timestamp, sessionId, timestamp});
+            persisted.put(sessionId, activityAt);
+            if (batch.size() >= batchSize) {
+                written += executeBatch(pending, sql, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            written += executeBatch(pending, sql, batch);
+        }
+        return written;
+    }
+
+    private int executeBatch(ConcurrentHashMap<String, Instant> pending, String sql, List<Object[]> batch) {
+        try {
+            jdbcTemplate.batchUpdate(sql, batch);
+        } catch (RuntimeException e) {
+            // 写回失败时放回待写队列，保留较新的时间，下一轮重试
+            for (Object[] args : batch) {
+                String sessionId = (String) args[1];
+                Instant activityAt = ((Timestamp) args[0]).toInstant();
+                persisted.remove(sessionId);
+                pending.merge(sessionId, activityAt, (current, failed) -> current.isAfter(failed) ? current : failed);
+            }
+            throw e;
+        }
+        rowsWritten.add(batch.size());
+        return batch.size();
+    }
+
+    /**
+     * 清理超过最大陈旧时间的写回记录，使其保持有界
+     */
+    private void evictPersisted() {
+        Instant threshold = Instant.now().minusMillis(maxStalenessMs);
+        persisted.values().removeIf(persistedAt -> persistedAt.isBefore(threshold));
+    }
+
+    /**
+     * 运行统计：touch 次数、被合并次数、写回行数、写回轮次、待写回条数
+     *
+     * @return 统计值
+     */
+    public Map<String, Long> stats() {
+        return Map.of(
+                "touches", touches.sum(),
+                "coalesced", coalesced.sum(),
+                "rowsWritten", rowsWritten.sum(),
+                "flushes", flushes.sum(),
+                "pending", (long) (pendingMerchantSessions.size() + pendingUserSessions.size()));
+    }
+}
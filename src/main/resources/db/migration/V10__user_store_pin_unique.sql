@@ -0,0 +1,8 @@
+-- ==============================
+-- V10__user_store_pin_unique.sql
+-- 同一门店内员工 PIN 唯一：应用侧的名册预检查在并发设置 PIN 时可能同时通过，由唯一索引兜底。
+-- 已删除的员工不参与唯一性（表达式取 NULL），其 PIN 可以分配给其他员工；未设置 PIN 的行同样为 NULL。
+-- ==============================
+
+ALTER TABLE users
+    ADD UNIQUE INDEX uk_users_store_pin (store_id, (IF(is_deleted, NULL, pin_hash)));
@@ -0,0 +1,10 @@
+-- ==============================
+-- V2__session_revocation_sync_index.sql
+-- 会话吊销索引增量同步：按 updated_at 拉取新近注销/停用的会话
+-- ==============================
+
+ALTER TABLE merchant_sessions
+    ADD INDEX idx_merchant_sessions_updated (updated_at, status, is_deleted);
+
+ALTER TABLE user_sessions
+    ADD INDEX idx_sessions_updated (updated_at, status, is_deleted);
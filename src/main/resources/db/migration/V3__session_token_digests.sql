@@ -0,0 +1,40 @@
+-- ==============================
+-- V3__session_token_digests.sql
+-- 会话表不再保存令牌原文，改为保存 SHA-256 摘要（BINARY(32)）
+-- 令牌查找先在应用侧计算摘要再按摘要索引查询，索引和行大小约缩小为原来的 1/10
+-- ==============================
+
+-- 1. 新增摘要列
+ALTER TABLE merchant_sessions
+    ADD COLUMN access_token_hash BINARY(32) COMMENT '访问令牌SHA-256摘要' AFTER device_id,
+    ADD COLUMN refresh_token_hash BINARY(32) COMMENT '刷新令牌SHA-256摘要' AFTER access_token_hash;
+
+ALTER TABLE user_sessions
+    ADD COLUMN access_token_hash BINARY(32) COMMENT '访问令牌SHA-256摘要' AFTER device_id,
+    ADD COLUMN refresh_token_hash BINARY(32) COMMENT '刷新令牌SHA-256摘要' AFTER access_token_hash;
+
+-- 2. 回填已有会话的摘要（与应用侧对令牌 UTF-8 字节做 SHA-256 一致），不改变 updated_at
+UPDATE merchant_sessions
+SET access_token_hash = UNHEX(SHA2(access_token, 256)),
+    refresh_token_hash = UNHEX(SHA2(refresh_token, 256)),
+    updated_at = updated_at;
+
+UPDATE user_sessions
+SET access_token_hash = UNHEX(SHA2(access_token, 256)),
+    refresh_token_hash = UNHEX(SHA2(refresh_token, 256)),
+    updated_at = updated_at;
+
+-- 3. 用摘要索引替换令牌原文索引，并删除原文列
+ALTER TABLE merchant_sessions
+    DROP INDEX idx_merchant_sessions_access_token,
+    DROP COLUMN access_token,
+    DROP COLUMN refresh_token,
+    ADD INDEX idx_merchant_sessions_access_token (access_token_hash),
+    ADD INDEX idx_merchant_sessions_refresh_token (refresh_token_hash);
+
+ALTER TABLE user_sessions
+    DROP INDEX idx_sessions_access_token,
+    DROP COLUMN access_token,
+    DROP COLUMN refresh_token,
+    ADD INDEX idx_sessions_access_token (access_token_hash),
+    ADD INDEX idx_sessions_refresh_token (refresh_token_hash);
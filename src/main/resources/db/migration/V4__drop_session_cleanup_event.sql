@@ -0,0 +1,6 @@
+-- ==============================
+-- V4__drop_session_cleanup_event.sql
+-- 过期会话改由应用内 ExpiredSessionPurger 按主键分块清理，删除每小时一次全表 DELETE 的事件
+-- ==============================
+
+DROP EVENT IF EXISTS ev_cleanup_expired_sessions;
@@ -0,0 +1,9 @@
+-- ==============================
+-- V5__merchant_keyset_indexes.sql
+-- 商家列表键集分页：按 (created_at, id) 倒序翻页，过滤条件作为索引前缀
+-- ==============================
+
+ALTER TABLE merchants
+    ADD INDEX idx_merchants_keyset (is_deleted, created_at, id),
+    ADD INDEX idx_merchants_status_keyset (status, is_deleted, created_at, id),
+    ADD INDEX idx_merchants_industry_keyset (industry, is_deleted, created_at, id);
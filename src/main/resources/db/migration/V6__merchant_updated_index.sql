@@ -0,0 +1,7 @@
+-- ==============================
+-- V6__merchant_updated_index.sql
+-- 商家内存索引增量同步：按 updated_at 拉取新近变更的商家（含软删除），避免每次轮询全表扫描
+-- ==============================
+
+ALTER TABLE merchants
+    ADD INDEX idx_merchants_updated (updated_at);
@@ -0,0 +1,9 @@
+-- ==============================
+-- V7__device_code_store.sql
+-- 激活码按门店发放：记录发放门店，激活后设备归属该门店；发放列表按门店查询
+-- ==============================
+
+ALTER TABLE device_codes
+    ADD COLUMN store_id CHAR(36) NULL COMMENT '发放门店（池中未发放的码为 NULL）' AFTER device_id,
+    ADD CONSTRAINT fk_device_codes_store FOREIGN KEY (store_id) REFERENCES stores(id),
+    ADD INDEX idx_device_codes_store (store_id, status);
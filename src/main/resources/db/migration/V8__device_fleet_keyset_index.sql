@@ -0,0 +1,7 @@
+-- ==============================
+-- V8__device_fleet_keyset_index.sql
+-- 设备列表键集分页：门店内按 (last_online, device_id) 倒序翻页，门店和删除标识作为索引前缀
+-- ==============================
+
+ALTER TABLE devices
+    ADD INDEX idx_devices_store_keyset (store_id, is_deleted, last_online, device_id);
@@ -0,0 +1,11 @@
+-- ==============================
+-- V9__session_purge_index.sql
+-- 过期会话清理：会话在刷新令牌过期后才可删除，按刷新令牌过期时间有序分块扫描；
+-- 没有刷新令牌的会话以 refresh_token_expires_at IS NULL 为前缀，再按访问令牌过期时间扫描
+-- ==============================
+
+ALTER TABLE merchant_sessions
+    ADD INDEX idx_merchant_sessions_purge (refresh_token_expires_at, access_token_expires_at);
+
+ALTER TABLE user_sessions
+    ADD INDEX idx_sessions_purge (refresh_token_expires_at, access_token_expires_at);
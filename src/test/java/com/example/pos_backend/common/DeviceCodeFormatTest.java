@@ -0,0 +1,71 @@
+package com.example.pos_backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 设备激活码格式测试
+ * 对随机生成的码逐位替换和相邻颠倒，校验位必须发现全部单字符输错和绝大部分相邻颠倒。
+ */
+class DeviceCodeFormatTest {
+
+    private static final int CODES = 10_000;
+
+    @Test
+    void detectsEverySingleCharacterSubstitution() {
+        SplittableRandom random = new SplittableRandom(42);
+        for (int n = 0; n < CODES; n++) {
+            String code = DeviceCodeFormat.generate(random);
+            assertThat(DeviceCodeFormat.isValid(code)).isTrue();
+            for (int i = 0; i < DeviceCodeFormat.LENGTH; i++) {
+                for (char c : DeviceCodeFormat.ALPHABET.toCharArray()) {
+                    if (c != code.charAt(i)) {
+                        assertThat(DeviceCodeFormat.isValid(replace(code, i, c))).isFalse();
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void detectsAlmostAllAdjacentTranspositions() {
+        SplittableRandom random = new SplittableRandom(42);
+        int transpositions = 0;
+        int undetected = 0;
+        for (int n = 0; n < CODES; n++) {
+            String code = DeviceCodeFormat.generate(random);
+            for (int i = 0; i < DeviceCodeFormat.LENGTH - 1; i++) {
+                if (code.charAt(i) == code.charAt(i + 1)) {
+                    continue;
+                }
+                transpositions++;
+                String swapped = replace(replace(code, i, code.charAt(i + 1)), i + 1, code.charAt(i));
+                if (DeviceCodeFormat.isValid(swapped)) {
+                    undetected++;
+                }
+            }
+        }
+        assertThat((double) undetected / transpositions).isLessThan(0.005);
+    }
+
+    @Test
+    void normalizesHumanInput() {
+        String code = DeviceCodeFormat.generate(new SplittableRandom(7));
+        String typed = code.substring(0, 4).toLowerCase() + "-" + code.substring(4, 8) + " " + code.substring(8);
+
+        assertThat(DeviceCodeFormat.normalize(typed)).isEqualTo(code);
+        assertThat(DeviceCodeFormat.normalize("0OIL-1111-2222")).isEqualTo("001111112222");
+        assertThat(DeviceCodeFormat.normalize("ABCD-EFGH-JKMU")).isNull();
+        assertThat(DeviceCodeFormat.normalize("ABCD-EFGH")).isNull();
+        assertThat(DeviceCodeFormat.isValid(null)).isFalse();
+    }
+
+    private static String replace(String code, int index, char c) {
+        char[] chars = code.toCharArray();
+        chars[index] = c;
+        return new String(chars);
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.pos_backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 分层时间轮测试
+ * 截止时间随机分布在多层范围内，时钟以不规则步长推进，验证每个条目都不早于截止时间、最多晚一个刻度到期。
+ */
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK_MS = 1_000;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void expiresEveryEntryWithinOneTickAfterDeadline() {
+        long start = 1_700_000_123_456L;
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, start);
+        SplittableRandom random = new SplittableRandom(42);
+        Map<Integer, Long> deadlines = new HashMap<>();
+        for (int i = 0; i < 50_000; i++) {
+            // 覆盖 4 层：8 秒、64 秒、512 秒、4096 秒
+            long deadline = start + random.nextLong(3_000_000);
+            deadlines.put(i, deadline);
+            wheel.add(i, deadline);
+        }
+        assertThat(wheel.levelCount()).isEqualTo(4);
+
+        Map<Integer, Long> expiredAt = new HashMap<>();
+        long now = start;
+        int next = deadlines.size();
+        while (expiredAt.size() < deadlines.size()) {
+            now += random.nextLong(1, 3 * TICK_MS);
+            long at = now;
+            wheel.advance(now, item -> assertThat(expiredAt.put(item, at)).isNull());
+            // 推进过程中继续加入新条目，包括截止时间已过的
+            if (next < 60_000) {
+                long deadline = now + random.nextLong(-TICK_MS, 600_000);
+                deadlines.put(next, deadline);
+                wheel.add(next++, deadline);
+            }
+        }
+
+        assertThat(wheel.size()).isZero();
+        for (Map.Entry<Integer, Long> entry : deadlines.entrySet()) {
+            long deadline = entry.getValue();
+            long firedAt = expiredAt.get(entry.getKey());
+            // 推进步长最多 3 个刻度，最坏情况下刻度边界后再等一个步长才被推进
+            assertThat(firedAt).isGreaterThanOrEqualTo(deadline);
+            assertThat(firedAt).isLessThan(Math.max(deadline, start) + TICK_MS + 3 * TICK_MS);
+        }
+    }
+
+    @Test
+    void entriesInSameTickExpireTogetherAndOverdueEntriesExpireOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        wheel.add("overdue", -5_000);
+        wheel.add("a", 2_100);
+        wheel.add("b", 2_900);
+        wheel.add("far", 100_000);
+
+        List<String> expired = new ArrayList<>();
+        assertThat(wheel.advance(999, expired::add)).isZero();
+        assertThat(wheel.advance(1_000, expired::add)).isEqualTo(1);
+        assertThat(expired).containsExactly("overdue");
+
+        assertThat(wheel.advance(2_999, expired::add)).isZero();
+        assertThat(wheel.advance(3_000, expired::add)).isEqualTo(2);
+        assertThat(expired).containsExactly("overdue", "a", "b");
+
+        assertThat(wheel.advance(100_999, expired::add)).isZero();
+        assertThat(wheel.advance(101_000, expired::add)).isEqualTo(1);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void emptyWheelSkipsIdleTime() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK_MS, WHEEL_SIZE, 0);
+        assertThat(wheel.advance(86_400_000L * 365, item -> { })).isZero();
+
+        wheel.add("later", 86_400_000L * 365 + 10_000);
+        List<String> expired = new ArrayList<>();
+        wheel.advance(86_400_000L * 365 + 11_000, expired::add);
+        assertThat(expired).containsExactly("later");
+    }
+}
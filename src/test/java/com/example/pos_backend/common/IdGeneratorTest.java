@@ -0,0 +1,129 @@
+package com.example.pos_backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 主键生成器测试
+ * 多线程唯一性、单线程单调性、时钟回拨与序号溢出
+ */
+class IdGeneratorTest {
+
+    private static final int THREADS = 16;
+    private static final int IDS_PER_THREAD = 100_000;
+
+    @Test
+    void idsAreUniqueAcrossThreads() throws Exception {
+        IdGenerator generator = new IdGenerator(7);
+        Set<String> ids = ConcurrentHashMap.newKeySet(THREADS * IDS_PER_THREAD);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    String previous = null;
+                    boolean ordered = true;
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        String id = generator.next("MRC-");
+                        ids.add(id);
+                        ordered &= previous == null || id.compareTo(previous) > 0;
+                        previous = id;
+                    }
+                    return ordered;
+                }));
+            }
+            start.countDown();
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).as("同一线程内 ID 严格递增").isTrue();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(ids).hasSize(THREADS * IDS_PER_THREAD);
+    }
+
+    @Test
+    void idsKeepPrefixAndFitColumn() {
+        IdGenerator generator = new IdGenerator(1);
+        String merchantId = generator.next("MRC-");
+        String locationId = generator.next("LOC-");
+
+        assertThat(merchantId).startsWith("MRC-").hasSize(4 + IdGenerator.BODY_LENGTH);
+        assertThat(locationId).startsWith("LOC-").matches("LOC-[0-9A-HJKMNP-TV-Z]{13}");
+        assertThat(merchantId.length()).isLessThanOrEqualTo(36);
+    }
+
+    @Test
+    void idsStayMonotonicWhenClockMovesBackwardsOrSequenceOverflows() {
+        MutableClock clock = new MutableClock(IdGenerator.EPOCH_MILLIS + 1_000_000);
+        IdGenerator generator = new IdGenerator(3, clock);
+
+        long previous = generator.nextLong();
+        // 同一毫秒内发号超过序号空间，借用后续毫秒
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        // 时钟回拨
+        clock.millis -= 5_000;
+        for (int i = 0; i < 100; i++) {
+            long id = generator.nextLong();
+            assertThat(id).isGreaterThan(previous);
+            previous = id;
+        }
+        assertThat(IdGenerator.timestampOf(previous)).isGreaterThanOrEqualTo(IdGenerator.EPOCH_MILLIS + 1_000_000);
+    }
+
+    @Test
+    void rejectsInvalidNodeId() {
+        assertThatThrownBy(() -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private long millis;
+
+        private MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public long millis() {
+            return millis;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.pos_backend.common;
+
+import com.example.pos_backend.constants.GlobalConstants;
+import com.example.pos_backend.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 键集分页游标测试
+ * 编码往返（含空排序时间）、无效游标、页边界与页大小截断
+ */
+class PageCursorTest {
+
+    @Test
+    void roundTripKeepsTimeAndId() {
+        PageCursor cursor = new PageCursor(Instant.parse("2025-03-01T08:15:30.123456789Z"), "id-1");
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void roundTripKeepsNullTime() {
+        PageCursor cursor = new PageCursor(null, "device-1");
+
+        assertThat(PageCursor.decode(cursor.encode())).isEqualTo(cursor);
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertThat(PageCursor.decode(null)).isNull();
+        assertThat(PageCursor.decode("  ")).isNull();
+    }
+
+    @Test
+    void rejectsMalformedCursors() {
+        for (String raw : List.of("v0|1|0|id", "v1|1|0|", "v1|1|0", "v1|-|0|id", "v1|x|0|id", "v1|1|2000000000|id")) {
+            String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+            assertThatThrownBy(() -> PageCursor.decode(cursor)).as(raw).isInstanceOf(BusinessException.class);
+        }
+        assertThatThrownBy(() -> PageCursor.decode("not base64!")).isInstanceOf(BusinessException.class);
+    }
+
+    @Test
+    void extraRowMeansMorePagesAndCursorPointsAtLastRowOnPage() {
+        List<Row> rows = rows(4);
+
+        CursorPage<String> page = PageCursor.toPage(rows, 3, Row::time, Row::id, Row::id);
+
+        assertThat(page.items()).containsExactly("r0", "r1", "r2");
+        assertThat(page.hasMore()).isTrue();
+        assertThat(PageCursor.decode(page.nextCursor())).isEqualTo(new PageCursor(rows.get(2).time(), "r2"));
+    }
+
+    @Test
+    void fullPageWithoutExtraRowIsLastPage() {
+        CursorPage<String> page = PageCursor.toPage(rows(3), 3, Row::time, Row::id, Row::id);
+
+        assertThat(page.items()).hasSize(3);
+        assertThat(page.hasMore()).isFalse();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void pageEndingOnNullTimeCarriesNullTimeInCursor() {
+        List<Row> rows = List.of(
+                new Row(Instant.parse("2025-03-01T00:00:00Z"), "r0"),
+                new Row(null, "r1"),
+                new Row(null, "r2"));
+
+        CursorPage<Row> page = PageCursor.toPage(rows, 2, Row::time, Row::id, Function.identity());
+
+        assertThat(page.hasMore()).isTrue();
+        assertThat(PageCursor.decode(page.nextCursor())).isEqualTo(new PageCursor(null, "r1"));
+    }
+
+    @Test
+    void pageSizeFallsBackToDefaultAndIsCapped() {
+        assertThat(PageCursor.resolvePageSize(null)).isEqualTo(GlobalConstants.Database.DEFAULT_PAGE_SIZE);
+        assertThat(PageCursor.resolvePageSize(0)).isEqualTo(GlobalConstants.Database.DEFAULT_PAGE_SIZE);
+        assertThat(PageCursor.resolvePageSize(7)).isEqualTo(7);
+        assertThat(PageCursor.resolvePageSize(10_000)).isEqualTo(GlobalConstants.Database.MAX_PAGE_SIZE);
+    }
+
+    private static List<Row> rows(int count) {
+        Instant base = Instant.parse("2025-03-01T00:00:00Z");
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(new Row(base.minusSeconds(i), "r" + i));
+        }
+        return rows;
+    }
+
+    private record Row(Instant time, String id) {
+    }
+}
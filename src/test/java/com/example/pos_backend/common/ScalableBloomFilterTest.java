@@ -0,0 +1,65 @@
+package com.example.pos_backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 可扩容布隆过滤器测试
+ * 以合成邮箱校验误判率：写入量为首层预估容量的 8 倍，验证扩容后误判率仍在目标之内且没有漏判。
+ */
+class ScalableBloomFilterTest {
+
+    private static final int INITIAL_CAPACITY = 5_000;
+    private static final int EMAILS = 40_000;
+    private static final int PROBES = 100_000;
+    private static final double TARGET_RATE = 0.01;
+
+    @Test
+    void keepsFalsePositiveRateBeyondInitialCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(INITIAL_CAPACITY, TARGET_RATE);
+        for (int i = 0; i < EMAILS; i++) {
+            filter.put(email("merchant", i));
+        }
+
+        for (int i = 0; i < EMAILS; i++) {
+            assertThat(filter.mightContain(email("merchant", i))).isTrue();
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain(email("signup", i))) {
+                falsePositives++;
+            }
+        }
+        double observed = (double) falsePositives / PROBES;
+
+        assertThat(filter.layerCount()).isGreaterThan(1);
+        assertThat(observed).isLessThan(TARGET_RATE);
+        assertThat(filter.expectedFalsePositiveRate()).isLessThan(TARGET_RATE);
+    }
+
+    @Test
+    void skipsValuesAlreadyPresent() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1024, TARGET_RATE);
+        filter.put("owner@example.com");
+        filter.put("owner@example.com");
+
+        assertThat(filter.insertions()).isEqualTo(1);
+        assertThat(filter.mightContain("owner@example.com")).isTrue();
+        assertThat(filter.targetFalsePositiveRate()).isEqualTo(TARGET_RATE);
+    }
+
+    @Test
+    void rejectsInvalidFalsePositiveRate() {
+        assertThatThrownBy(() -> new ScalableBloomFilter(1024, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new ScalableBloomFilter(1024, 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String email(String prefix, int i) {
+        return prefix + i + "@shop" + (i % 997) + ".example.com";
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.pos_backend.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 三元组索引测试
+ * 在合成商家上校验索引搜索的命中数与 LIKE '%keyword%' 的等价做法（逐行 contains 全量扫描）一致
+ * 与 LIKE 查询的性能对比见 src/jmh 中的 TrigramIndexBenchmark（-Pbenchmark）
+ */
+class TrigramIndexTest {
+
+    private static final int MERCHANTS = 20_000;
+    private static final int LIMIT = 20;
+
+    private static final String[] WORDS = {
+            "coffee", "bakery", "noodle", "tea", "pizza", "sushi", "grill", "market", "florist", "books",
+            "salon", "garden", "deli", "taco", "burger", "bistro", "kitchen", "studio", "house", "corner"};
+
+    @Test
+    void ranksExactAndPrefixMatchesFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.upsert("MRC-1", "Blue Bottle Coffee", "owner@bluebottle.com", 1);
+        index.upsert("MRC-2", "Coffee", "hello@coffee.com", 2);
+        index.upsert("MRC-3", "Coffee House Tokyo", "tokyo@example.com", 3);
+        index.upsert("MRC-4", "Tea Room", "coffee.lover@example.com", 4);
+        index.upsert("MRC-5", "Tofu Shop", "tofu@example.com", 5);
+
+        TrigramIndex.SearchResult result = index.search("COFFEE", 10);
+
+        assertThat(result.keys()).containsExactly("MRC-2", "MRC-3", "MRC-4", "MRC-1");
+        assertThat(result.matches()).isEqualTo(4);
+        assertThat(index.search("coffee", 2).keys()).containsExactly("MRC-2", "MRC-3");
+        assertThat(index.search("bluebottle.com", 10).keys()).containsExactly("MRC-1");
+        assertThat(index.search("xyz", 10).keys()).isEmpty();
+    }
+
+    @Test
+    void reflectsUpdatesAndRemovals() {
+        TrigramIndex index = new TrigramIndex();
+        index.upsert("MRC-1", "Sunrise Bakery", "sun@example.com", 1);
+        index.upsert("MRC-2", "Moonlight Bakery", "moon@example.com", 2);
+
+        index.upsert("MRC-1", "Sunrise Deli", "sun@example.com", 1);
+        index.remove("MRC-2");
+
+        assertThat(index.search("bakery", 10).keys()).isEmpty();
+        assertThat(index.search("deli", 10).keys()).containsExactly("MRC-1");
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.tombstones()).isEqualTo(2);
+        // 少于 3 个字符走顺序扫描
+        assertThat(index.search("de", 10).keys()).containsExactly("MRC-1");
+    }
+
+    @Test
+    void matchesSameMerchantsAsFullScan() {
+        Random random = new Random(42);
+        String[] names = new String[MERCHANTS];
+        String[] emails = new String[MERCHANTS];
+        TrigramIndex index = new TrigramIndex(MERCHANTS);
+
+        for (int i = 0; i < MERCHANTS; i++) {
+            names[i] = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " " + Integer.toString(i, 36);
+            emails[i] = "owner" + i + "@" + WORDS[random.nextInt(WORDS.length)] + ".example.com";
+            index.upsert("MRC-" + i, names[i], emails[i], i);
+        }
+
+        for (String keyword : new String[]{"owner12345@", "bakery 1a", "sushi grill", "florist"}) {
+            TrigramIndex.SearchResult result = index.search(keyword, LIMIT);
+
+            assertThat(result.matches()).isEqualTo(scan(names, emails, keyword));
+            assertThat(result.keys()).hasSizeLessThanOrEqualTo(LIMIT);
+        }
+    }
+
+    private static int scan(String[] names, String[] emails, String keyword) {
+        int matches = 0;
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].contains(keyword) || emails[i].contains(keyword)) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+}
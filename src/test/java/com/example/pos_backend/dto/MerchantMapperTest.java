@@ -0,0 +1,27 @@
+package com.example.pos_backend.dto;
+
+import com.example.pos_backend.entity.Merchant;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 商家映射测试
+ * 只读投影与实体转换出的响应必须一致，读路径改用投影后接口输出不变。
+ */
+class MerchantMapperTest {
+
+    @Test
+    void projectionAndEntityMapToSameResponse() {
+        Merchant entity = Merchant.builder()
+                .id("MRC-1").email("owner@example.com").passwordHash("hash").businessName("Blue Bottle")
+                .industry("RESTAURANT").currency("USD").country("US").status("ACTIVE").isDeleted(false)
+                .createdAt(Instant.EPOCH).updatedAt(Instant.EPOCH).build();
+        MerchantView view = new MerchantView("MRC-1", "owner@example.com", "Blue Bottle", "RESTAURANT",
+                "USD", "US", "ACTIVE", false, Instant.EPOCH, Instant.EPOCH);
+
+        assertThat(MerchantMapper.toResponseDTO(view)).isEqualTo(MerchantMapper.toResponseDTO(entity));
+    }
+}
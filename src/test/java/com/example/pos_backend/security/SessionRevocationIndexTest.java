@@ -0,0 +1,91 @@
+package com.example.pos_backend.security;
+
+import com.example.pos_backend.repository.MerchantSessionRepository;
+import com.example.pos_backend.repository.UserSessionRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 会话吊销索引测试
+ * 验证加载后的吊销判断、布隆过滤器对有效令牌的放行比例、过滤器重建后不丢条目，以及加载完成前拒绝令牌。
+ */
+class SessionRevocationIndexTest {
+
+    private static final int TOKENS = 50_000;
+
+    private MerchantSessionRepository merchantSessionRepository;
+    private SessionRevocationIndex index;
+    private final List<String> activeTokens = new ArrayList<>();
+    private final List<String> revokedTokens = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        merchantSessionRepository = mock(MerchantSessionRepository.class);
+        UserSessionRepository userSessionRepository = mock(UserSessionRepository.class);
+        Instant expiresAt = Instant.now().plus(Duration.ofHours(1));
+
+        List<Object[]> revokedRows = new ArrayList<>();
+        for (int i = 0; i < TOKENS; i++) {
+            activeTokens.add("active." + UUID.randomUUID());
+            String revoked = "revoked." + UUID.randomUUID();
+            revokedTokens.add(revoked);
+            revokedRows.add(new Object[]{TokenDigest.sha256(revoked), expiresAt, null, null});
+        }
+        when(merchantSessionRepository.findRevokedTokensSince(any(), any())).thenReturn(revokedRows);
+        when(userSessionRepository.findRevokedTokensSince(any(), any())).thenReturn(List.of());
+
+        index = new SessionRevocationIndex(merchantSessionRepository, userSessionRepository, new VerifiedTokenCache());
+        ReflectionTestUtils.setField(index, "expectedEntries", TOKENS * 2);
+        ReflectionTestUtils.setField(index, "falsePositiveRate", 0.01);
+    }
+
+    @Test
+    void revokedTokensAreRejectedAndActiveTokensPass() {
+        index.bootstrap();
+
+        assertThat(index.size()).isEqualTo(TOKENS);
+        assertThat(revokedTokens).allMatch(token -> index.isRevoked(TokenDigest.of(token)));
+        assertThat(activeTokens).noneMatch(token -> index.isRevoked(TokenDigest.of(token)));
+    }
+
+    @Test
+    void bloomFilterAnswersMostActiveTokensWithoutExactLookup() {
+        index.bootstrap();
+        activeTokens.forEach(token -> index.isRevoked(TokenDigest.of(token)));
+
+        assertThat(index.stats().get("filterPassed")).isLessThan(index.stats().get("checks") / 10);
+    }
+
+    @Test
+    void rebuiltFilterKeepsAllRevokedTokens() throws InterruptedException {
+        index.bootstrap();
+        index.revoke("short-lived", Instant.now().plusMillis(20));
+        Thread.sleep(50);
+
+        index.refresh();
+
+        assertThat(index.size()).isEqualTo(TOKENS);
+        assertThat(revokedTokens).allMatch(token -> index.isRevoked(TokenDigest.of(token)));
+    }
+
+    @Test
+    void rejectsEveryTokenUntilLoaded() {
+        when(merchantSessionRepository.findRevokedTokensSince(any(), any())).thenThrow(new IllegalStateException("db down"));
+        index.bootstrap();
+
+        assertThat(index.isRevoked(TokenDigest.of(activeTokens.get(0)))).isTrue();
+        assertThat(index.stats().get("rejectedNotReady")).isEqualTo(1);
+    }
+}